@@ -0,0 +1,51 @@
+package dao;
+
+import jakarta.persistence.EntityManager;
+import utils.UnitOfWork;
+
+import java.util.Collection;
+
+/**
+ * Persists collections of entities with JDBC batching.
+ * The persistence context is flushed every {@link #BATCH_SIZE} entities
+ * (matching hibernate.jdbc.batch_size) so that each flush becomes one
+ * batched INSERT per table.
+ */
+class BatchWriter {
+
+    static final int BATCH_SIZE = 50;
+
+    private BatchWriter() {
+    }
+
+    /**
+     * Persists all entities in one transaction.
+     * Outside a unit of work the persistence context is also cleared after
+     * each batch to keep memory flat; inside one, entities stay managed.
+     *
+     * @param entities The new entities to persist
+     */
+    static void persistAll(Collection<?> entities) {
+        if (entities == null || entities.isEmpty()) {
+            return;
+        }
+        boolean ownsContext = !UnitOfWork.isActive();
+        UnitOfWork.execute(em -> {
+            int count = 0;
+            for (Object entity : entities) {
+                em.persist(entity);
+                if (++count % BATCH_SIZE == 0) {
+                    flush(em, ownsContext);
+                }
+            }
+            flush(em, ownsContext);
+        });
+    }
+
+    private static void flush(EntityManager em, boolean clear) {
+        em.flush();
+        if (clear) {
+            em.clear();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package dao;
+
+import utils.UnitOfWork;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers committed changes to listeners.
+ * A change is delivered once it is committed (at the end of the unit of
+ * work if one is open), on the thread that made it and outside any unit of
+ * work; changes that roll back are never delivered. Listeners are expected
+ * to return at once, handing any work over to their own thread.
+ *
+ * @param <L> The listener type
+ */
+final class ChangePublisher<L> {
+
+    private final String description;
+    private final List<L> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param description What the changes are, for error messages
+     */
+    ChangePublisher(String description) {
+        this.description = description;
+    }
+
+    void addListener(L listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(L listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Delivers a change to every listener once committed.
+     *
+     * @param change Calls the listener method matching the change
+     */
+    void publish(Consumer<L> change) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        UnitOfWork.afterCommit(() -> {
+            for (L listener : listeners) {
+                try {
+                    change.accept(listener);
+                } catch (RuntimeException re) {
+                    // The change itself is committed; listeners catch up on their next full pass
+                    System.err.println("Could not apply " + description + ": " + re.getMessage());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package dao;
+
+import entities.FallbackPricingRule;
+import utils.UnitOfWork;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * DAO for FallbackPricingRule entity.
+ * Changes are published to {@link PricingInputs} once committed.
+ */
+public class FallbackPricingRuleDAO {
+
+    public void create(FallbackPricingRule rule) {
+        UnitOfWork.execute(em -> em.persist(rule));
+        PricingInputs.fallbackRulesChanged();
+    }
+
+    /**
+     * Saves many fallback pricing rules at once using batched inserts.
+     *
+     * @param rules The rules to save
+     */
+    public void saveAll(Collection<FallbackPricingRule> rules) {
+        BatchWriter.persistAll(rules);
+        PricingInputs.fallbackRulesChanged();
+    }
+
+    /**
+     * Saves rules if the table holds none yet, in one transaction.
+     *
+     * @param rules The rules to save
+     * @return true if they were saved
+     */
+    public boolean saveAllIfEmpty(Collection<FallbackPricingRule> rules) {
+        boolean saved = UnitOfWork.call(em -> {
+            Long count = em.createQuery("SELECT COUNT(r) FROM FallbackPricingRule r", Long.class)
+                    .getSingleResult();
+            if (count > 0) {
+                return false;
+            }
+            rules.forEach(em::persist);
+            return true;
+        });
+        if (saved) {
+            PricingInputs.fallbackRulesChanged();
+        }
+        return saved;
+    }
+
+    public FallbackPricingRule findById(Long id) {
+        return UnitOfWork.read(em -> em.find(FallbackPricingRule.class, id));
+    }
+
+    /**
+     * Gets all fallback pricing rules in id order.
+     */
+    public List<FallbackPricingRule> findAll() {
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT r FROM FallbackPricingRule r ORDER BY r.id",
+                FallbackPricingRule.class)
+                .getResultList());
+    }
+
+    public int setSurcharge(Long id, double surcharge) {
+        int updated = Patch.of(FallbackPricingRule.class).set("surcharge", surcharge).applyTo(id);
+        if (updated > 0) {
+            PricingInputs.fallbackRulesChanged();
+        }
+        return updated;
+    }
+
+    public void remove(Long id) {
+        UnitOfWork.execute(em -> {
+            FallbackPricingRule rule = em.find(FallbackPricingRule.class, id);
+            em.remove(rule);
+        });
+        PricingInputs.fallbackRulesChanged();
+    }
+}
@@ -0,0 +1,97 @@
+package dao;
+
+import entities.GroupPricing;
+import utils.UnitOfWork;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * DAO for GroupPricing entity.
+ * Changes are published to {@link PricingInputs} once committed.
+ */
+public class GroupPricingDAO {
+
+    public void create(GroupPricing pricing) {
+        UnitOfWork.execute(em -> em.persist(pricing));
+        PricingInputs.groupPricingChanged(pricing.getInterventionType().getId());
+    }
+
+    /**
+     * Saves many group pricing rules at once using batched inserts.
+     *
+     * @param pricings The rules to save
+     */
+    public void saveAll(Collection<GroupPricing> pricings) {
+        BatchWriter.persistAll(pricings);
+        Set<Long> interventionTypeIds = new LinkedHashSet<>();
+        for (GroupPricing pricing : pricings) {
+            interventionTypeIds.add(pricing.getInterventionType().getId());
+        }
+        for (Long interventionTypeId : interventionTypeIds) {
+            PricingInputs.groupPricingChanged(interventionTypeId);
+        }
+    }
+
+    public GroupPricing findById(Long id) {
+        return UnitOfWork.read(em -> em.find(GroupPricing.class, id));
+    }
+
+    /**
+     * Gets all group pricing rules in id order, with their intervention
+     * type.
+     */
+    public List<GroupPricing> findAll() {
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT p FROM GroupPricing p JOIN FETCH p.interventionType ORDER BY p.id",
+                GroupPricing.class)
+                .getResultList());
+    }
+
+    /**
+     * Gets the group pricing rules of some intervention types in id order,
+     * with their intervention type.
+     *
+     * @param interventionTypeIds The intervention types
+     * @return Their rules
+     */
+    public List<GroupPricing> findByInterventionTypes(Collection<Long> interventionTypeIds) {
+        if (interventionTypeIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT p FROM GroupPricing p JOIN FETCH p.interventionType " +
+                        "WHERE p.interventionType.id IN :typeIds ORDER BY p.id",
+                GroupPricing.class)
+                .setParameter("typeIds", interventionTypeIds)
+                .getResultList());
+    }
+
+    public int setPrice(Long id, double price) {
+        GroupPricing changed = UnitOfWork.call(em -> {
+            GroupPricing pricing = em.find(GroupPricing.class, id);
+            if (pricing == null) {
+                return null;
+            }
+            Patch.of(GroupPricing.class).set("price", price).applyTo(id);
+            return pricing;
+        });
+        if (changed == null) {
+            return 0;
+        }
+        PricingInputs.groupPricingChanged(changed.getInterventionType().getId());
+        return 1;
+    }
+
+    public void remove(Long id) {
+        GroupPricing removed = UnitOfWork.call(em -> {
+            GroupPricing pricing = em.find(GroupPricing.class, id);
+            em.remove(pricing);
+            return pricing;
+        });
+        PricingInputs.groupPricingChanged(removed.getInterventionType().getId());
+    }
+}
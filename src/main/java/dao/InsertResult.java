@@ -0,0 +1,37 @@
+package dao;
+
+/**
+ * Outcome of an insert-if-absent: the row that now holds the unique key and
+ * whether it was created by this call.
+ * A created entity is detached: it is not managed by the unit of work and
+ * its JPA callbacks did not run (see {@link UniqueInsert}). An existing one
+ * is managed by the unit of work it was read in, if any.
+ *
+ * @param <T> The entity type
+ */
+public final class InsertResult<T> {
+
+    private final T entity;
+    private final boolean created;
+
+    InsertResult(T entity, boolean created) {
+        this.entity = entity;
+        this.created = created;
+    }
+
+    /**
+     * Gets the inserted entity, detached, or the one that already existed.
+     */
+    public T getEntity() {
+        return entity;
+    }
+
+    /**
+     * Checks if the row was created by this call.
+     *
+     * @return true if inserted, false if it already existed
+     */
+    public boolean isCreated() {
+        return created;
+    }
+}
@@ -1,23 +1,35 @@
 package dao;
 
+import dto.LastIntervention;
 import entities.Intervention;
 import entities.InterventionType;
 import entities.Vehicle;
-import jakarta.persistence.EntityTransaction;
-import utils.JPAUtil;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
+import utils.UnitOfWork;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * DAO for Intervention entity.
- * Prevents duplicate interventions (same vehicle + same intervention type +
- * same date).
+ * Duplicate interventions (same vehicle + same intervention type + same
+ * date) are rejected by a unique constraint. Writes also update the
+ * mileage stats of the vehicle ({@link VehicleMileageStatsDAO}) in the same
+ * transaction. Committed changes are published to {@link MaintenanceInputs}.
  */
 public class InterventionDAO {
 
+    private static final String LIST_QUERY = "SELECT i FROM Intervention i LEFT JOIN FETCH i.vehicle v LEFT JOIN FETCH v.vehicleType " +
+            "LEFT JOIN FETCH v.owner LEFT JOIN FETCH v.registration LEFT JOIN FETCH i.interventionType";
+
     /**
      * Saves a new intervention if it's not a duplicate.
      * 
@@ -26,38 +38,56 @@ public class InterventionDAO {
      *                                  type exists on the same date
      */
     public void save(Intervention intervention) {
-
-        if (existsByVehicleTypeAndDate(intervention.getVehicle(),
-                intervention.getInterventionType(),
-                intervention.getDate())) {
+        if (!saveIfAbsent(intervention).isCreated()) {
             throw new IllegalArgumentException(
                     "An intervention of this type already exists for this vehicle on this date.");
         }
+    }
 
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
-            et.begin();
-
-            if (intervention.getVehicle() != null && intervention.getVehicle().getId() != null) {
-                Vehicle managedVehicle = em.find(Vehicle.class, intervention.getVehicle().getId());
-                intervention.setVehicle(managedVehicle);
-            }
-            if (intervention.getInterventionType() != null && intervention.getInterventionType().getId() != null) {
-                InterventionType managedType = em.find(InterventionType.class,
-                        intervention.getInterventionType().getId());
-                intervention.setInterventionType(managedType);
-            }
-            em.persist(intervention);
-            et.commit();
-        } catch (RuntimeException re) {
-            if (et.isActive()) {
-                et.rollback();
+    /**
+     * Inserts an intervention unless one of the same type already exists for
+     * the vehicle on that day, in a single statement when it does not.
+     *
+     * @param intervention The intervention to save, with a saved vehicle and type
+     * @return The created intervention, or the existing one
+     */
+    public InsertResult<Intervention> saveIfAbsent(Intervention intervention) {
+        InsertResult<Intervention> result = UnitOfWork.call(em -> {
+            InsertResult<Intervention> inserted = UniqueInsert.insert(intervention, unit -> {
+                List<Intervention> existing = findByVehicleTypeAndDay(unit, intervention.getVehicle(),
+                        intervention.getInterventionType(), intervention.getDate())
+                        .setLockMode(LockModeType.PESSIMISTIC_READ)
+                        .getResultList();
+                return existing.isEmpty() ? null : existing.get(0);
+            });
+            if (inserted.isCreated()) {
+                VehicleMileageStatsDAO.add(em, List.of(intervention));
             }
-            throw re;
-        } finally {
-            em.close();
+            return inserted;
+        });
+        if (result.isCreated()) {
+            MaintenanceInputs.interventionChanged(intervention.getVehicle().getId(),
+                    intervention.getInterventionType().getId());
         }
+        return result;
+    }
+
+    /**
+     * Saves many interventions at once using batched inserts.
+     * A duplicate makes the whole batch fail.
+     *
+     * @param interventions The interventions to save
+     */
+    public void saveAll(Collection<Intervention> interventions) {
+        UnitOfWork.execute(em -> {
+            BatchWriter.persistAll(interventions);
+            VehicleMileageStatsDAO.add(em, interventions);
+        });
+        Set<Long> vehicleIds = new LinkedHashSet<>();
+        for (Intervention intervention : interventions) {
+            vehicleIds.add(intervention.getVehicle().getId());
+        }
+        MaintenanceInputs.vehiclesChanged(vehicleIds);
     }
 
     /**
@@ -75,6 +105,14 @@ public class InterventionDAO {
             return false;
         }
 
+        return UnitOfWork.read(em -> !findByVehicleTypeAndDay(em, vehicle, interventionType, date)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty());
+    }
+
+    private static TypedQuery<Intervention> findByVehicleTypeAndDay(EntityManager em, Vehicle vehicle,
+            InterventionType interventionType, Date date) {
         Calendar cal = Calendar.getInstance();
         cal.setTime(date);
         cal.set(Calendar.HOUR_OF_DAY, 0);
@@ -86,22 +124,15 @@ public class InterventionDAO {
         cal.add(Calendar.DAY_OF_MONTH, 1);
         Date endOfDay = cal.getTime();
 
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            Long count = em.createQuery(
-                    "SELECT COUNT(i) FROM Intervention i WHERE i.vehicle.id = :vehicleId " +
-                            "AND i.interventionType.id = :typeId " +
-                            "AND i.date >= :startOfDay AND i.date < :endOfDay",
-                    Long.class)
-                    .setParameter("vehicleId", vehicle.getId())
-                    .setParameter("typeId", interventionType.getId())
-                    .setParameter("startOfDay", startOfDay)
-                    .setParameter("endOfDay", endOfDay)
-                    .getSingleResult();
-            return count > 0;
-        } finally {
-            em.close();
-        }
+        return em.createQuery(
+                "SELECT i FROM Intervention i WHERE i.vehicle.id = :vehicleId " +
+                        "AND i.interventionType.id = :typeId " +
+                        "AND i.date >= :startOfDay AND i.date < :endOfDay",
+                Intervention.class)
+                .setParameter("vehicleId", vehicle.getId())
+                .setParameter("typeId", interventionType.getId())
+                .setParameter("startOfDay", startOfDay)
+                .setParameter("endOfDay", endOfDay);
     }
 
     /**
@@ -123,118 +154,118 @@ public class InterventionDAO {
         cal.add(Calendar.DAY_OF_MONTH, 1);
         Date endOfDay = cal.getTime();
 
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT i FROM Intervention i WHERE i.vehicle = :vehicle " +
-                            "AND i.date >= :startOfDay AND i.date < :endOfDay",
-                    Intervention.class)
-                    .setParameter("vehicle", vehicle)
-                    .setParameter("startOfDay", startOfDay)
-                    .setParameter("endOfDay", endOfDay)
-                    .getResultList();
-        } finally {
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT i FROM Intervention i WHERE i.vehicle = :vehicle " +
+                        "AND i.date >= :startOfDay AND i.date < :endOfDay",
+                Intervention.class)
+                .setParameter("vehicle", vehicle)
+                .setParameter("startOfDay", startOfDay)
+                .setParameter("endOfDay", endOfDay)
+                .getResultList());
     }
 
     public Intervention findById(Long id) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.find(Intervention.class, id);
-        } finally {
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.find(Intervention.class, id));
     }
 
     public void remove(Long id) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
+        Intervention removed = UnitOfWork.call(em -> {
             Intervention intervention = em.find(Intervention.class, id);
-            et.begin();
+            VehicleMileageStatsDAO.remove(em, intervention);
             em.remove(intervention);
-            et.commit();
-        } catch (RuntimeException re) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw re;
-        } finally {
-            em.close();
-        }
+            return intervention;
+        });
+        MaintenanceInputs.interventionChanged(removed.getVehicle().getId(),
+                removed.getInterventionType().getId());
     }
 
-    public void setDate(Long id, Date date) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
+    public int setDate(Long id, Date date) {
+        Intervention moved = UnitOfWork.call(em -> {
             Intervention intervention = em.find(Intervention.class, id);
-            et.begin();
-            intervention.setDate(date);
-            et.commit();
-        } catch (RuntimeException re) {
-            if (et.isActive()) {
-                et.rollback();
+            if (intervention == null) {
+                return null;
             }
-            throw re;
-        } finally {
-            em.close();
+            VehicleMileageStatsDAO.move(em, intervention, date);
+            Patch.of(Intervention.class).set("date", date).applyTo(id);
+            return intervention;
+        });
+        if (moved == null) {
+            return 0;
         }
+        MaintenanceInputs.interventionChanged(moved.getVehicle().getId(), moved.getInterventionType().getId());
+        return 1;
     }
 
-    public void setPrice(Long id, double price) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
-            Intervention intervention = em.find(Intervention.class, id);
-            et.begin();
-            intervention.setPrice(price);
-            et.commit();
-        } catch (RuntimeException re) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw re;
-        } finally {
-            em.close();
-        }
+    public int setPrice(Long id, double price) {
+        return Patch.of(Intervention.class).set("price", price).applyTo(id);
     }
 
     public List<Intervention> findAll() {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT i FROM Intervention i LEFT JOIN FETCH i.vehicle LEFT JOIN FETCH i.interventionType",
-                    Intervention.class).getResultList();
-        } finally {
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT i FROM Intervention i LEFT JOIN FETCH i.vehicle LEFT JOIN FETCH i.interventionType",
+                Intervention.class).getResultList());
+    }
+
+    /**
+     * Streams all interventions in id order, associations fetched in the same
+     * query. The stream must be closed.
+     *
+     * @param fetchSize  Rows fetched per database round trip
+     * @param clearEvery Rows between persistence context clears, 0 to never clear
+     * @return The interventions
+     */
+    public Stream<Intervention> stream(int fetchSize, int clearEvery) {
+        return Listing.stream(Intervention.class, LIST_QUERY, "i", fetchSize, clearEvery);
+    }
+
+    /**
+     * Gets the next page of interventions in id order.
+     *
+     * @param afterId Last id of the previous page, null for the first page
+     * @param limit   Maximum page size
+     * @return The interventions with an id greater than afterId
+     */
+    public List<Intervention> page(Long afterId, int limit) {
+        return Listing.page(Intervention.class, LIST_QUERY, "i", afterId, limit);
     }
 
     public List<Intervention> findByVehicle(Vehicle vehicle) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT i FROM Intervention i LEFT JOIN FETCH i.interventionType WHERE i.vehicle = :vehicle ORDER BY i.date DESC",
-                    Intervention.class)
-                    .setParameter("vehicle", vehicle)
-                    .getResultList();
-        } finally {
-            em.close();
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT i FROM Intervention i LEFT JOIN FETCH i.interventionType WHERE i.vehicle = :vehicle ORDER BY i.date DESC",
+                Intervention.class)
+                .setParameter("vehicle", vehicle)
+                .getResultList());
+    }
+
+    /**
+     * Gets the date and mileage of the latest intervention of each type on
+     * the given vehicles, in one query. Vehicles without interventions are
+     * absent. The unique constraint on vehicle + type + date makes each pair
+     * appear once, and its index answers each MAX with a single lookup.
+     *
+     * @param vehicleIds The vehicles to look at
+     * @return One entry per (vehicle, intervention type) pair
+     */
+    public List<LastIntervention> findLastByVehicleAndType(Collection<Long> vehicleIds) {
+        if (vehicleIds.isEmpty()) {
+            return new ArrayList<>();
         }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT new dto.LastIntervention(i.vehicle.id, i.interventionType.id, i.date, i.vehicleMileage) " +
+                        "FROM Intervention i " +
+                        "WHERE i.vehicle.id IN :vehicleIds AND i.date = " +
+                        "(SELECT MAX(l.date) FROM Intervention l " +
+                        "WHERE l.vehicle.id = i.vehicle.id AND l.interventionType.id = i.interventionType.id)",
+                LastIntervention.class)
+                .setParameter("vehicleIds", vehicleIds)
+                .getResultList());
     }
 
     public List<Intervention> findByInterventionType(InterventionType interventionType) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT i FROM Intervention i WHERE i.interventionType = :interventionType",
-                    Intervention.class)
-                    .setParameter("interventionType", interventionType)
-                    .getResultList();
-        } finally {
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT i FROM Intervention i WHERE i.interventionType = :interventionType",
+                Intervention.class)
+                .setParameter("interventionType", interventionType)
+                .getResultList());
     }
 }
\ No newline at end of file
@@ -1,84 +1,86 @@
 package dao;
 
+import dto.TypeOption;
 import entities.InterventionType;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityTransaction;
-import utils.JPAUtil;
+import org.hibernate.jpa.HibernateHints;
+import utils.UnitOfWork;
 import java.util.*;
+import java.util.stream.Stream;
 
 public class InterventionTypeDAO {
 
+    private static final String LIST_QUERY = "SELECT t FROM InterventionType t";
+
     public void create(InterventionType interventionType) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
-            et.begin();
-            em.persist(interventionType);
-            et.commit();
-        } catch (RuntimeException re) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw re;
-        } finally {
-            em.close();
-        }
+        UnitOfWork.execute(em -> em.persist(interventionType));
+    }
+
+    /**
+     * Saves many intervention types at once using batched inserts.
+     *
+     * @param interventionTypes The intervention types to save
+     */
+    public void saveAll(Collection<InterventionType> interventionTypes) {
+        BatchWriter.persistAll(interventionTypes);
     }
 
     public InterventionType findById(Long id) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.find(InterventionType.class, id);
-        } finally {
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.find(InterventionType.class, id));
     }
 
     public void removeInterventionType(Long id) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
+        UnitOfWork.execute(em -> {
             InterventionType interventionType = em.find(InterventionType.class, id);
-            et.begin();
             em.remove(interventionType);
-            et.commit();
-        } catch (RuntimeException re) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw re;
-        } finally {
-            em.close();
-        }
+        });
     }
 
-    public void setName(Long id, String name) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
-            InterventionType interventionType = em.find(InterventionType.class, id);
-            et.begin();
-            interventionType.setName(name);
-            et.commit();
-        } catch (RuntimeException re) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw re;
-        } finally {
-            em.close();
-        }
+    public int setName(Long id, String name) {
+        return Patch.of(InterventionType.class).set("name", name).applyTo(id);
     }
 
     public List<InterventionType> findAll() {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT r FROM InterventionType r",
-                    InterventionType.class).getResultList();
-        } finally {
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT r FROM InterventionType r",
+                InterventionType.class)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .getResultList());
+    }
+
+    /**
+     * Streams all intervention types in id order. The stream must be closed.
+     *
+     * @param fetchSize  Rows fetched per database round trip
+     * @param clearEvery Rows between persistence context clears, 0 to never clear
+     * @return The intervention types
+     */
+    public Stream<InterventionType> stream(int fetchSize, int clearEvery) {
+        return Listing.stream(InterventionType.class, LIST_QUERY, "t", fetchSize, clearEvery);
+    }
+
+    /**
+     * Gets the next page of intervention types in id order.
+     *
+     * @param afterId Last id of the previous page, null for the first page
+     * @param limit   Maximum page size
+     * @return The intervention types with an id greater than afterId
+     */
+    public List<InterventionType> page(Long afterId, int limit) {
+        return Listing.page(InterventionType.class, LIST_QUERY, "t", afterId, limit);
+    }
+
+    /**
+     * Gets the id and name of every intervention type, without loading the
+     * entities.
+     *
+     * @return The options in id order
+     */
+    public List<TypeOption> findOptions() {
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT new dto.TypeOption(t.id, t.name) FROM InterventionType t ORDER BY t.id",
+                TypeOption.class)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .getResultList());
     }
 
 }
\ No newline at end of file
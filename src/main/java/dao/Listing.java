@@ -0,0 +1,111 @@
+package dao;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import utils.JPAUtil;
+import utils.UnitOfWork;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Bounded-memory alternatives to the findAll methods of the DAOs:
+ * result streams and keyset pagination. Rows are always ordered by id.
+ *
+ * Queries are passed as "SELECT x FROM Entity x [JOIN FETCH ...]", without
+ * WHERE or ORDER BY, together with the alias of the root entity.
+ */
+class Listing {
+
+    private Listing() {
+    }
+
+    /**
+     * Streams the results of a query.
+     * Outside a unit of work the stream holds its own EntityManager and
+     * connection until it is closed, and the persistence context is cleared
+     * every {@code clearEvery} rows, which detaches the entities handed out so
+     * far. Inside a unit of work the stream runs on the shared EntityManager
+     * and never clears it.
+     *
+     * @param type       The entity class
+     * @param query      The select query
+     * @param alias      The alias of the root entity
+     * @param fetchSize  Rows fetched from the database per round trip
+     * @param clearEvery Rows between two clears of the persistence context, 0 to never clear
+     * @return The results, to be closed by the caller
+     */
+    static <T> Stream<T> stream(Class<T> type, String query, String alias, int fetchSize, int clearEvery) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be positive: " + fetchSize);
+        }
+        String jpql = query + " ORDER BY " + alias + ".id";
+        if (UnitOfWork.isActive()) {
+            return UnitOfWork.read(em -> em.createQuery(jpql, type)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                    .getResultStream());
+        }
+
+        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
+        EntityTransaction et = em.getTransaction();
+        try {
+            // Keeps the connection (and the server-side cursor) until the stream is closed
+            et.begin();
+            Stream<T> results = em.createQuery(jpql, type)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                    .getResultStream()
+                    .onClose(() -> {
+                        try {
+                            if (et.isActive()) {
+                                et.rollback();
+                            }
+                        } finally {
+                            em.close();
+                        }
+                    });
+            if (clearEvery > 0) {
+                int[] seen = {0};
+                results = results.peek(entity -> {
+                    if (++seen[0] % clearEvery == 0) {
+                        em.clear();
+                    }
+                });
+            }
+            return results;
+        } catch (RuntimeException re) {
+            if (et.isActive()) {
+                et.rollback();
+            }
+            em.close();
+            throw re;
+        }
+    }
+
+    /**
+     * Gets one page of results after a given id (keyset pagination).
+     * Unlike an offset, the cost of a page does not grow with its position.
+     *
+     * @param type    The entity class
+     * @param query   The select query
+     * @param alias   The alias of the root entity
+     * @param afterId Last id of the previous page, null for the first page
+     * @param limit   Maximum number of results
+     * @return The results with an id greater than afterId
+     */
+    static <T> List<T> page(Class<T> type, String query, String alias, Long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + limit);
+        }
+        String jpql = query + (afterId != null ? " WHERE " + alias + ".id > :afterId" : "") +
+                " ORDER BY " + alias + ".id";
+        return UnitOfWork.read(em -> {
+            TypedQuery<T> page = em.createQuery(jpql, type).setMaxResults(limit);
+            if (afterId != null) {
+                page.setParameter("afterId", afterId);
+            }
+            return page.getResultList();
+        });
+    }
+}
@@ -0,0 +1,219 @@
+package dao;
+
+import dto.DueSlot;
+import entities.MaintenanceDue;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import utils.UnitOfWork;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * DAO for MaintenanceDue entity.
+ * Holds one row per vehicle and maintenance type, so the dashboard reads
+ * the most urgent maintenance from an index instead of scoring the fleet.
+ */
+public class MaintenanceDueDAO {
+
+    private static final String LIST_QUERY = "SELECT d FROM MaintenanceDue d";
+
+    // Orders matching the indexes declared on MaintenanceDue
+    private static final String BY_PRIORITY = "d.priority DESC, d.vehicle.id, d.maintenanceType.id";
+    private static final String BY_DUE_DATE = "d.nextDueDate, d.vehicle.id, d.maintenanceType.id";
+    private static final String BY_REMAINING_MILEAGE = "d.remainingMileage, d.vehicle.id, d.maintenanceType.id";
+
+    public void create(MaintenanceDue maintenanceDue) {
+        UnitOfWork.execute(em -> em.persist(maintenanceDue));
+    }
+
+    /**
+     * Gets the rows of the given vehicles.
+     * Maintenance types are not fetched; their id is available.
+     *
+     * @param vehicleIds The vehicles
+     * @return The rows of those vehicles
+     */
+    public List<MaintenanceDue> findByVehicles(Collection<Long> vehicleIds) {
+        if (vehicleIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT d FROM MaintenanceDue d WHERE d.vehicle.id IN :vehicleIds",
+                MaintenanceDue.class)
+                .setParameter("vehicleIds", vehicleIds)
+                .getResultList());
+    }
+
+    /**
+     * Gets the most urgent due maintenance, with vehicle, owner, registration,
+     * vehicle type and maintenance type fetched.
+     * The rows are picked first from the priority index alone, then loaded
+     * with their associations, so the joins never see the whole table.
+     *
+     * @param limit Maximum number of rows
+     * @return Rows with a positive priority, highest first, ties by vehicle
+     *         id then maintenance type id
+     */
+    public List<MaintenanceDue> findMostUrgent(int limit) {
+        return UnitOfWork.read(em -> fetch(em, em.createQuery(
+                "SELECT d.id FROM MaintenanceDue d WHERE d.priority > 0 ORDER BY " + BY_PRIORITY,
+                Long.class)
+                .setMaxResults(limit)
+                .getResultList(), BY_PRIORITY));
+    }
+
+    /**
+     * Gets the maintenance coming due in a date window, associations
+     * fetched. Answered by a range scan of the next due date index.
+     *
+     * @param from  First day of the window, inclusive
+     * @param to    Last day of the window, inclusive
+     * @param limit Maximum number of rows
+     * @return Rows ordered by next due date, ties by vehicle id then
+     *         maintenance type id
+     */
+    public List<MaintenanceDue> findDueBetween(Date from, Date to, int limit) {
+        return UnitOfWork.read(em -> fetch(em, em.createQuery(
+                "SELECT d.id FROM MaintenanceDue d WHERE d.nextDueDate BETWEEN :from AND :to ORDER BY " + BY_DUE_DATE,
+                Long.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setMaxResults(limit)
+                .getResultList(), BY_DUE_DATE));
+    }
+
+    /**
+     * Gets the maintenance whose remaining kilometres before the mileage
+     * threshold fall in a range, associations fetched. Answered by a range
+     * scan of the remaining mileage index.
+     *
+     * @param minKm Lowest remaining distance, inclusive (negative once exceeded)
+     * @param maxKm Highest remaining distance, inclusive
+     * @param limit Maximum number of rows
+     * @return Rows ordered by remaining distance, ties by vehicle id then
+     *         maintenance type id
+     */
+    public List<MaintenanceDue> findByRemainingMileage(int minKm, int maxKm, int limit) {
+        return UnitOfWork.read(em -> fetch(em, em.createQuery(
+                "SELECT d.id FROM MaintenanceDue d WHERE d.remainingMileage BETWEEN :minKm AND :maxKm " +
+                        "ORDER BY " + BY_REMAINING_MILEAGE,
+                Long.class)
+                .setParameter("minKm", minKm)
+                .setParameter("maxKm", maxKm)
+                .setMaxResults(limit)
+                .getResultList(), BY_REMAINING_MILEAGE));
+    }
+
+    /**
+     * Passes every row due before a day to an action, with the vehicle
+     * type and the mileage sums of the vehicle, in one streaming query.
+     * No entity is loaded.
+     *
+     * @param end    First day excluded
+     * @param action Called once per row, in no particular order
+     */
+    public void forEachDueBefore(Date end, Consumer<DueSlot> action) {
+        UnitOfWork.read(em -> {
+            try (Stream<DueSlot> slots = em.createQuery(
+                    "SELECT new dto.DueSlot(d.nextDueDate, d.maintenanceType.id, vt.id, " +
+                            "s.points, s.sumDays, s.sumMileage, s.sumDaysSquared, s.sumDaysMileage) " +
+                            "FROM MaintenanceDue d JOIN d.vehicle v LEFT JOIN v.vehicleType vt " +
+                            "LEFT JOIN VehicleMileageStats s ON s.vehicle = v " +
+                            "WHERE d.nextDueDate < :end",
+                    DueSlot.class)
+                    .setParameter("end", end)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, BatchWriter.BATCH_SIZE * 10)
+                    .getResultStream()) {
+                slots.forEach(action);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Loads rows picked from an index with their associations.
+     */
+    private static List<MaintenanceDue> fetch(EntityManager em, List<Long> ids, String orderBy) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return em.createQuery(
+                "SELECT d FROM MaintenanceDue d JOIN FETCH d.vehicle v LEFT JOIN FETCH v.vehicleType " +
+                        "LEFT JOIN FETCH v.owner LEFT JOIN FETCH v.registration JOIN FETCH d.maintenanceType " +
+                        "WHERE d.id IN :ids ORDER BY " + orderBy,
+                MaintenanceDue.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    public long count() {
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT COUNT(d) FROM MaintenanceDue d", Long.class)
+                .getSingleResult());
+    }
+
+    /**
+     * Counts the rows whose priority was computed before a given day, or
+     * that have no remaining mileage yet.
+     *
+     * @param day The day, without time
+     * @return The number of outdated rows
+     */
+    public long countEvaluatedBefore(Date day) {
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT COUNT(d) FROM MaintenanceDue d WHERE d.evaluatedOn < :day OR d.remainingMileage IS NULL",
+                Long.class)
+                .setParameter("day", day)
+                .getSingleResult());
+    }
+
+    /**
+     * Marks the rows of some vehicles and maintenance types as computed on
+     * a day, in one statement. Rows already marked on that day or later are
+     * left alone, so an evaluation that changes nothing writes nothing more.
+     *
+     * @param vehicleIds         The vehicles
+     * @param maintenanceTypeIds The maintenance types
+     * @param day                The day, without time
+     * @return The number of rows marked
+     */
+    public int setEvaluatedOn(Collection<Long> vehicleIds, Collection<Long> maintenanceTypeIds, Date day) {
+        if (vehicleIds.isEmpty() || maintenanceTypeIds.isEmpty()) {
+            return 0;
+        }
+        return UnitOfWork.call(em -> em.createQuery(
+                "UPDATE MaintenanceDue d SET d.evaluatedOn = :day WHERE d.vehicle.id IN :vehicleIds " +
+                        "AND d.maintenanceType.id IN :typeIds AND d.evaluatedOn < :day")
+                .setParameter("day", day)
+                .setParameter("vehicleIds", vehicleIds)
+                .setParameter("typeIds", maintenanceTypeIds)
+                .executeUpdate());
+    }
+
+    /**
+     * Streams all rows in id order. The stream must be closed.
+     *
+     * @param fetchSize  Rows fetched per database round trip
+     * @param clearEvery Rows between persistence context clears, 0 to never clear
+     * @return The rows
+     */
+    public Stream<MaintenanceDue> stream(int fetchSize, int clearEvery) {
+        return Listing.stream(MaintenanceDue.class, LIST_QUERY, "d", fetchSize, clearEvery);
+    }
+
+    /**
+     * Gets the next page of rows in id order.
+     *
+     * @param afterId Last id of the previous page, null for the first page
+     * @param limit   Maximum number of rows
+     * @return The rows with an id greater than afterId
+     */
+    public List<MaintenanceDue> page(Long afterId, int limit) {
+        return Listing.page(MaintenanceDue.class, LIST_QUERY, "d", afterId, limit);
+    }
+}
@@ -0,0 +1,63 @@
+package dao;
+
+import java.util.Collection;
+
+/**
+ * Notifies changes of the data maintenance schedules are computed from:
+ * interventions, vehicle mileage and registration date, and maintenance
+ * type limits.
+ * The DAOs publish a change once it is committed (at the end of the unit
+ * of work if one is open); changes that roll back are never published.
+ */
+public final class MaintenanceInputs {
+
+    /**
+     * Receives committed changes. Called on the thread that made the change,
+     * outside any unit of work, so it must return at once (see
+     * {@link ChangePublisher}).
+     */
+    public interface Listener {
+
+        /**
+         * An intervention of a type was added, moved or removed on a vehicle.
+         */
+        void interventionChanged(Long vehicleId, Long interventionTypeId);
+
+        /**
+         * Vehicles were added or their mileage or registration date changed.
+         */
+        void vehiclesChanged(Collection<Long> vehicleIds);
+
+        /**
+         * A maintenance type was added or its limits changed.
+         */
+        void maintenanceTypeChanged(Long maintenanceTypeId);
+    }
+
+    private static final ChangePublisher<Listener> PUBLISHER = new ChangePublisher<>("maintenance input change");
+
+    private MaintenanceInputs() {
+    }
+
+    public static void addListener(Listener listener) {
+        PUBLISHER.addListener(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        PUBLISHER.removeListener(listener);
+    }
+
+    static void interventionChanged(Long vehicleId, Long interventionTypeId) {
+        PUBLISHER.publish(listener -> listener.interventionChanged(vehicleId, interventionTypeId));
+    }
+
+    static void vehiclesChanged(Collection<Long> vehicleIds) {
+        if (!vehicleIds.isEmpty()) {
+            PUBLISHER.publish(listener -> listener.vehiclesChanged(vehicleIds));
+        }
+    }
+
+    static void maintenanceTypeChanged(Long maintenanceTypeId) {
+        PUBLISHER.publish(listener -> listener.maintenanceTypeChanged(maintenanceTypeId));
+    }
+}
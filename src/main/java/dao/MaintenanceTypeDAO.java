@@ -1,129 +1,121 @@
 package dao;
 
+import dto.MaintenanceTypeOption;
 import entities.MaintenanceType;
 import entities.InterventionType;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityTransaction;
-import utils.JPAUtil;
+import org.hibernate.jpa.HibernateHints;
+import utils.UnitOfWork;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+/**
+ * DAO for MaintenanceType entity.
+ * New maintenance types and limit changes are published to
+ * {@link MaintenanceInputs} once committed.
+ */
 public class MaintenanceTypeDAO {
 
+    private static final String LIST_QUERY = "SELECT m FROM MaintenanceType m";
+
     public void create(MaintenanceType maintenanceType){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
-            et.begin();
-            em.persist(maintenanceType);
-            et.commit();
-        }
-        catch(RuntimeException e){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw e;
-        }
-        finally{
-            em.close();
+        UnitOfWork.execute(em -> em.persist(maintenanceType));
+        MaintenanceInputs.maintenanceTypeChanged(maintenanceType.getId());
+    }
+
+    /**
+     * Saves many maintenance types at once using batched inserts.
+     *
+     * @param maintenanceTypes The maintenance types to save
+     */
+    public void saveAll(Collection<MaintenanceType> maintenanceTypes){
+        BatchWriter.persistAll(maintenanceTypes);
+        for (MaintenanceType maintenanceType : maintenanceTypes) {
+            MaintenanceInputs.maintenanceTypeChanged(maintenanceType.getId());
         }
     }
 
     public MaintenanceType findById(Long id){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try{
-            return em.find(MaintenanceType.class, id);
-        }
-        finally{
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.find(MaintenanceType.class, id));
     }
 
     public List<MaintenanceType> findAll(){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try{
-            return em.createQuery(
-                    "SELECT m FROM MaintenanceType m",
-                    MaintenanceType.class
-            ).getResultList();
-        }
-        finally{
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT m FROM MaintenanceType m",
+                MaintenanceType.class
+            )
+            .setHint(HibernateHints.HINT_CACHEABLE, true)
+            .getResultList());
+    }
+
+    /**
+     * Streams all maintenance types in id order. The stream must be closed.
+     *
+     * @param fetchSize  Rows fetched per database round trip
+     * @param clearEvery Rows between persistence context clears, 0 to never clear
+     * @return The maintenance types
+     */
+    public Stream<MaintenanceType> stream(int fetchSize, int clearEvery){
+        return Listing.stream(MaintenanceType.class, LIST_QUERY, "m", fetchSize, clearEvery);
+    }
+
+    /**
+     * Gets the next page of maintenance types in id order.
+     *
+     * @param afterId Last id of the previous page, null for the first page
+     * @param limit   Maximum page size
+     * @return The maintenance types with an id greater than afterId
+     */
+    public List<MaintenanceType> page(Long afterId, int limit){
+        return Listing.page(MaintenanceType.class, LIST_QUERY, "m", afterId, limit);
+    }
+
+    /**
+     * Gets the name and thresholds of every maintenance type, without
+     * loading the entities.
+     *
+     * @return The options in id order
+     */
+    public List<MaintenanceTypeOption> findOptions(){
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT new dto.MaintenanceTypeOption(m.id, m.name, m.maxMileage, m.maxDuration) " +
+                        "FROM MaintenanceType m ORDER BY m.id",
+                MaintenanceTypeOption.class
+            )
+            .setHint(HibernateHints.HINT_CACHEABLE, true)
+            .getResultList());
     }
 
     public List<MaintenanceType> findByInterventionType(InterventionType interventionType){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try{
-            return em.createQuery(
-                            "SELECT m FROM MaintenanceType m WHERE m.interventionType = :interventionType",
-                            MaintenanceType.class
-                    )
-                    .setParameter("interventionType", interventionType)
-                    .getResultList();
-        }
-        finally{
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.createQuery(
+                        "SELECT m FROM MaintenanceType m WHERE m.interventionType = :interventionType",
+                        MaintenanceType.class
+                )
+                .setParameter("interventionType", interventionType)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .getResultList());
     }
 
-    public void setMaxDuration(Long id, int maxDuration){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
-            MaintenanceType maintenanceType = em.find(MaintenanceType.class, id);
-            et.begin();
-            maintenanceType.setMaxDuration(maxDuration);
-            et.commit();
-        }
-        catch(RuntimeException e){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw e;
-        }
-        finally{
-            em.close();
-        }
+    public int setMaxDuration(Long id, int maxDuration){
+        return published(id, Patch.of(MaintenanceType.class).set("maxDuration", maxDuration).applyTo(id));
     }
 
-    public void setMaxMileage(Long id, int maxMileage){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
-            MaintenanceType maintenanceType = em.find(MaintenanceType.class, id);
-            et.begin();
-            maintenanceType.setMaxMileage(maxMileage);
-            et.commit();
-        }
-        catch(RuntimeException e){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw e;
-        }
-        finally{
-            em.close();
+    public int setMaxMileage(Long id, int maxMileage){
+        return published(id, Patch.of(MaintenanceType.class).set("maxMileage", maxMileage).applyTo(id));
+    }
+
+    private static int published(Long id, int updated){
+        if (updated > 0) {
+            MaintenanceInputs.maintenanceTypeChanged(id);
         }
+        return updated;
     }
 
     public void remove(Long id){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
+        UnitOfWork.execute(em -> {
             MaintenanceType maintenanceType = em.find(MaintenanceType.class, id);
-            et.begin();
             em.remove(maintenanceType);
-            et.commit();
-        }
-        catch(RuntimeException e){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw e;
-        }
-        finally{
-            em.close();
-        }
+        });
     }
 }
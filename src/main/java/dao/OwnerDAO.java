@@ -2,18 +2,22 @@ package dao;
 
 import entities.Owner;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityTransaction;
-import utils.JPAUtil;
+import jakarta.persistence.LockModeType;
+import utils.UnitOfWork;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * DAO for Owner entity.
- * Prevents duplicate owners by checking firstName + lastName + phoneNumber
- * combination.
+ * Duplicate owners (same firstName + lastName + phoneNumber, ignoring case)
+ * are rejected by a unique constraint on the normalized ownerKey column.
  */
 public class OwnerDAO {
 
+    private static final String LIST_QUERY = "SELECT o FROM Owner o";
+
     /**
      * Creates a new owner if not a duplicate.
      * 
@@ -22,27 +26,33 @@ public class OwnerDAO {
      *                                  already exists
      */
     public void create(Owner owner) {
-        
-        if (existsByNameAndPhone(owner.getFirstName(), owner.getLastName(), owner.getPhoneNumber())) {
+        if (!createIfAbsent(owner).isCreated()) {
             throw new IllegalArgumentException(
                     "An owner with the name " + owner.getFirstName() + " " + owner.getLastName() +
                             " and phone number " + owner.getPhoneNumber() + " already exists.");
         }
+    }
 
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
-            et.begin();
-            em.persist(owner);
-            et.commit();
-        } catch (RuntimeException re) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw re;
-        } finally {
-            em.close();
-        }
+    /**
+     * Inserts an owner unless the same owner already exists, in a single
+     * statement when it does not.
+     *
+     * @param owner The owner to create
+     * @return The created owner, or the existing one
+     */
+    public InsertResult<Owner> createIfAbsent(Owner owner) {
+        return UniqueInsert.insert(owner, em -> owner.getOwnerKey() == null ? null
+                : findByKey(em, owner.getOwnerKey(), LockModeType.PESSIMISTIC_READ));
+    }
+
+    /**
+     * Saves many owners at once using batched inserts.
+     * A duplicate makes the whole batch fail.
+     *
+     * @param owners The owners to save
+     */
+    public void saveAll(Collection<Owner> owners) {
+        BatchWriter.persistAll(owners);
     }
 
     /**
@@ -55,20 +65,18 @@ public class OwnerDAO {
      * @return true if exists, false otherwise
      */
     public boolean existsByNameAndPhone(String firstName, String lastName, String phoneNumber) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
+        String key = Owner.identityKey(firstName, lastName, phoneNumber);
+        if (key == null) {
+            return false;
+        }
+        return UnitOfWork.read(em -> {
             Long count = em.createQuery(
-                    "SELECT COUNT(o) FROM Owner o WHERE LOWER(o.firstName) = LOWER(:firstName) " +
-                            "AND LOWER(o.lastName) = LOWER(:lastName) AND o.phoneNumber = :phoneNumber",
+                    "SELECT COUNT(o) FROM Owner o WHERE o.ownerKey = :key",
                     Long.class)
-                    .setParameter("firstName", firstName)
-                    .setParameter("lastName", lastName)
-                    .setParameter("phoneNumber", phoneNumber)
+                    .setParameter("key", key)
                     .getSingleResult();
             return count > 0;
-        } finally {
-            em.close();
-        }
+        });
     }
 
     /**
@@ -80,20 +88,21 @@ public class OwnerDAO {
      * @return The owner found or null if not found
      */
     public Owner findByNameAndPhone(String firstName, String lastName, String phoneNumber) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            List<Owner> results = em.createQuery(
-                    "SELECT o FROM Owner o WHERE LOWER(o.firstName) = LOWER(:firstName) " +
-                            "AND LOWER(o.lastName) = LOWER(:lastName) AND o.phoneNumber = :phoneNumber",
-                    Owner.class)
-                    .setParameter("firstName", firstName)
-                    .setParameter("lastName", lastName)
-                    .setParameter("phoneNumber", phoneNumber)
-                    .getResultList();
-            return results.isEmpty() ? null : results.get(0);
-        } finally {
-            em.close();
+        String key = Owner.identityKey(firstName, lastName, phoneNumber);
+        if (key == null) {
+            return null;
         }
+        return UnitOfWork.read(em -> findByKey(em, key, LockModeType.NONE));
+    }
+
+    private static Owner findByKey(EntityManager em, String key, LockModeType lockMode) {
+        List<Owner> results = em.createQuery(
+                "SELECT o FROM Owner o WHERE o.ownerKey = :key",
+                Owner.class)
+                .setParameter("key", key)
+                .setLockMode(lockMode)
+                .getResultList();
+        return results.isEmpty() ? null : results.get(0);
     }
 
     /**
@@ -107,100 +116,70 @@ public class OwnerDAO {
      * @return The existing or newly created owner
      */
     public Owner findOrCreate(String firstName, String lastName, String phoneNumber, String email) {
-        Owner existing = findByNameAndPhone(firstName, lastName, phoneNumber);
-        if (existing != null) {
-            return existing;
-        }
-
-        Owner newOwner = new Owner(firstName, lastName, phoneNumber, email);
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
-            et.begin();
-            em.persist(newOwner);
-            et.commit();
-            return newOwner;
-        } catch (RuntimeException re) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw re;
-        } finally {
-            em.close();
-        }
+        return createIfAbsent(new Owner(firstName, lastName, phoneNumber, email)).getEntity();
     }
 
     public Owner findById(Long id) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.find(Owner.class, id);
-        } finally {
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.find(Owner.class, id));
     }
 
     public List<Owner> findAll() {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT o FROM Owner o",
-                    Owner.class).getResultList();
-        } finally {
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT o FROM Owner o",
+                Owner.class).getResultList());
+    }
+
+    /**
+     * Streams all owners in id order. The stream must be closed.
+     *
+     * @param fetchSize  Rows fetched per database round trip
+     * @param clearEvery Rows between persistence context clears, 0 to never clear
+     * @return The owners
+     */
+    public Stream<Owner> stream(int fetchSize, int clearEvery) {
+        return Listing.stream(Owner.class, LIST_QUERY, "o", fetchSize, clearEvery);
+    }
+
+    /**
+     * Gets the next page of owners in id order.
+     *
+     * @param afterId Last id of the previous page, null for the first page
+     * @param limit   Maximum page size
+     * @return The owners with an id greater than afterId
+     */
+    public List<Owner> page(Long afterId, int limit) {
+        return Listing.page(Owner.class, LIST_QUERY, "o", afterId, limit);
     }
 
     public void remove(Long id) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
+        UnitOfWork.execute(em -> {
             Owner owner = em.find(Owner.class, id);
-            et.begin();
             em.remove(owner);
-            et.commit();
-        } catch (RuntimeException re) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw re;
-        } finally {
-            em.close();
-        }
+        });
     }
 
-    public void setEmail(Long id, String email) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
-            Owner owner = em.find(Owner.class, id);
-            et.begin();
-            owner.setEmail(email);
-            et.commit();
-        } catch (RuntimeException re) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw re;
-        } finally {
-            em.close();
-        }
+    public int setEmail(Long id, String email) {
+        return Patch.of(Owner.class).set("email", email).applyTo(id);
     }
 
-    public void setPhoneNumber(Long id, String phoneNumber) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
-            Owner owner = em.find(Owner.class, id);
-            et.begin();
-            owner.setPhoneNumber(phoneNumber);
-            et.commit();
-        } catch (RuntimeException re) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw re;
-        } finally {
-            em.close();
+    /**
+     * Changes the phone number of an owner and its identity key in the same
+     * statement.
+     *
+     * @return The number of rows updated, 0 if the id does not exist
+     */
+    public int setPhoneNumber(Long id, String phoneNumber) {
+        if (phoneNumber == null) {
+            return Patch.of(Owner.class).set("phoneNumber", null).set("ownerKey", null).applyTo(id);
         }
+        // Same normalization as Owner.identityKey
+        return UnitOfWork.call(em -> em.createQuery(
+                "UPDATE Owner o SET o.phoneNumber = :phoneNumber, " +
+                        "o.ownerKey = CONCAT(LOWER(TRIM(o.firstName)), '|', LOWER(TRIM(o.lastName)), '|', :phoneKey) " +
+                        "WHERE o.id = :id")
+                .setParameter("phoneNumber", phoneNumber)
+                .setParameter("phoneKey", phoneNumber.trim())
+                .setParameter("id", id)
+                .executeUpdate());
     }
 }
\ No newline at end of file
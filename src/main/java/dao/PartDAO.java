@@ -2,108 +2,83 @@ package dao;
 
 import entities.Part;
 import entities.InterventionType;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityTransaction;
-import utils.JPAUtil;
+import org.hibernate.jpa.HibernateHints;
+import utils.UnitOfWork;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class PartDAO {
 
+    private static final String LIST_QUERY = "SELECT p FROM Part p";
+
     public void create(Part part){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
-            et.begin();
-            em.persist(part);
-            et.commit();
-        }
-        catch(RuntimeException e){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw e;
-        }
-        finally{
-            em.close();
-        }
+        UnitOfWork.execute(em -> em.persist(part));
+    }
+
+    /**
+     * Saves many parts at once using batched inserts.
+     *
+     * @param parts The parts to save
+     */
+    public void saveAll(Collection<Part> parts){
+        BatchWriter.persistAll(parts);
     }
 
     public Part findById(Long id){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try{
-            return em.find(Part.class, id);
-        }
-        finally{
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.find(Part.class, id));
     }
 
     public List<Part> findAll(){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try{
-            return em.createQuery(
-                    "SELECT p FROM Part p",
-                    Part.class
-            ).getResultList();
-        }
-        finally{
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT p FROM Part p",
+                Part.class
+            )
+            .setHint(HibernateHints.HINT_CACHEABLE, true)
+            .getResultList());
+    }
+
+    /**
+     * Streams all parts in id order. The stream must be closed.
+     *
+     * @param fetchSize  Rows fetched per database round trip
+     * @param clearEvery Rows between persistence context clears, 0 to never clear
+     * @return The parts
+     */
+    public Stream<Part> stream(int fetchSize, int clearEvery){
+        return Listing.stream(Part.class, LIST_QUERY, "p", fetchSize, clearEvery);
+    }
+
+    /**
+     * Gets the next page of parts in id order.
+     *
+     * @param afterId Last id of the previous page, null for the first page
+     * @param limit   Maximum page size
+     * @return The parts with an id greater than afterId
+     */
+    public List<Part> page(Long afterId, int limit){
+        return Listing.page(Part.class, LIST_QUERY, "p", afterId, limit);
     }
 
     public List<Part> findByInterventionType(InterventionType interventionType){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try{
-            return em.createQuery(
-                    "SELECT p FROM Part p WHERE p.interventionType = :interventionType",
-                    Part.class
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT p FROM Part p WHERE p.interventionType = :interventionType",
+                Part.class
             )
             .setParameter("interventionType", interventionType)
-            .getResultList();
-        }
-        finally{
-            em.close();
-        }
+            .setHint(HibernateHints.HINT_CACHEABLE, true)
+            .getResultList());
     }
 
-    public void setName(Long id, String name){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
-            Part part = em.find(Part.class, id);
-            et.begin();
-            part.setName(name);
-            et.commit();
-        }
-        catch(RuntimeException e){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw e;
-        }
-        finally{
-            em.close();
-        }
+    public int setName(Long id, String name){
+        return Patch.of(Part.class).set("name", name).applyTo(id);
     }
 
     public void remove(Long id){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
+        UnitOfWork.execute(em -> {
             Part part = em.find(Part.class, id);
-            et.begin();
             em.remove(part);
-            et.commit();
-        }
-        catch(RuntimeException e){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw e;
-        }
-        finally{
-            em.close();
-        }
+        });
     }
 }
@@ -0,0 +1,141 @@
+package dao;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import utils.UnitOfWork;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Partial update of an entity, applied as a single bulk UPDATE statement.
+ * No SELECT is issued beforehand: the number of affected rows tells the
+ * caller whether the id exists.
+ *
+ * <pre>
+ * int updated = Patch.of(VehicleType.class)
+ *         .set("brand", "Renault")
+ *         .set("power", 90)
+ *         .applyTo(vehicleTypeId);
+ * </pre>
+ *
+ * Being a bulk statement, a patch does not refresh instances already
+ * loaded in the current unit of work.
+ *
+ * @param <T> The entity type
+ */
+public class Patch<T> {
+
+    /** Maximum number of ids bound in a single IN list. */
+    private static final int MAX_IDS_PER_STATEMENT = 1000;
+
+    private final Class<T> entityType;
+    private final Map<String, Object> changes = new LinkedHashMap<>();
+
+    private Patch(Class<T> entityType) {
+        this.entityType = entityType;
+    }
+
+    /**
+     * Starts a patch for an entity type.
+     *
+     * @param entityType The entity class
+     * @return An empty patch
+     */
+    public static <T> Patch<T> of(Class<T> entityType) {
+        return new Patch<>(entityType);
+    }
+
+    /**
+     * Adds a field change to the patch.
+     *
+     * @param attribute The entity attribute name
+     * @param value     The new value (may be null)
+     * @return This patch
+     */
+    public Patch<T> set(String attribute, Object value) {
+        changes.put(attribute, value);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * Applies the patch to one entity.
+     *
+     * @param id The entity id
+     * @return The number of rows updated, 0 if the id does not exist
+     * @throws IllegalArgumentException if an attribute is unknown or not updatable
+     */
+    public int applyTo(Long id) {
+        if (id == null || changes.isEmpty()) {
+            return 0;
+        }
+        return UnitOfWork.call(em -> {
+            Query query = em.createQuery(buildUpdate(em, "e.id = :id"));
+            bindChanges(query);
+            return query.setParameter("id", id).executeUpdate();
+        });
+    }
+
+    /**
+     * Applies the same patch to many entities with one statement per
+     * {@value #MAX_IDS_PER_STATEMENT} ids.
+     *
+     * @param ids The entity ids
+     * @return The total number of rows updated
+     * @throws IllegalArgumentException if an attribute is unknown or not updatable
+     */
+    public int applyTo(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty() || changes.isEmpty()) {
+            return 0;
+        }
+        List<Long> idList = new ArrayList<>(ids);
+        return UnitOfWork.call(em -> {
+            String jpql = buildUpdate(em, "e.id IN :ids");
+            int updated = 0;
+            for (int from = 0; from < idList.size(); from += MAX_IDS_PER_STATEMENT) {
+                List<Long> chunk = idList.subList(from, Math.min(idList.size(), from + MAX_IDS_PER_STATEMENT));
+                Query query = em.createQuery(jpql);
+                bindChanges(query);
+                updated += query.setParameter("ids", chunk).executeUpdate();
+            }
+            return updated;
+        });
+    }
+
+    private String buildUpdate(EntityManager em, String where) {
+        EntityType<T> type = em.getMetamodel().entity(entityType);
+        StringBuilder jpql = new StringBuilder("UPDATE ").append(type.getName()).append(" e SET ");
+        int index = 0;
+        for (String attribute : changes.keySet()) {
+            Attribute<? super T, ?> meta = type.getAttribute(attribute);
+            if (meta.isCollection()) {
+                throw new IllegalArgumentException("Cannot patch collection attribute " + attribute);
+            }
+            if (meta instanceof SingularAttribute && ((SingularAttribute<?, ?>) meta).isId()) {
+                throw new IllegalArgumentException("Cannot patch the id attribute of " + type.getName());
+            }
+            if (index > 0) {
+                jpql.append(", ");
+            }
+            jpql.append("e.").append(attribute).append(" = :v").append(index++);
+        }
+        return jpql.append(" WHERE ").append(where).toString();
+    }
+
+    private void bindChanges(Query query) {
+        int index = 0;
+        for (Object value : changes.values()) {
+            query.setParameter("v" + index++, value);
+        }
+    }
+}
@@ -1,56 +1,76 @@
 package dao;
 
+import dto.PriceEntry;
 import entities.InterventionType;
 import entities.Pricing;
 import entities.VehicleType;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityTransaction;
-import utils.JPAUtil;
+import org.hibernate.jpa.HibernateHints;
+import utils.UnitOfWork;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * DAO for Pricing entity.
  * Manages price lookups based on intervention type and vehicle type
- * combinations.
+ * combinations. Changes are published to {@link PricingInputs} once
+ * committed.
  */
 public class PricingDAO {
 
+    private static final String LIST_QUERY = "SELECT p FROM Pricing p";
+
     public void create(Pricing pricing) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
-            et.begin();
-            em.persist(pricing);
-            et.commit();
-        } catch (RuntimeException e) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw e;
-        } finally {
-            em.close();
+        UnitOfWork.execute(em -> em.persist(pricing));
+        PricingInputs.pricingChanged(pricing.getInterventionType().getId(), pricing.getVehicleType().getId());
+    }
+
+    /**
+     * Saves many pricing rules at once using batched inserts.
+     *
+     * @param pricings The pricing rules to save
+     */
+    public void saveAll(Collection<Pricing> pricings) {
+        BatchWriter.persistAll(pricings);
+        for (Pricing pricing : pricings) {
+            PricingInputs.pricingChanged(pricing.getInterventionType().getId(), pricing.getVehicleType().getId());
         }
     }
 
     public Pricing findById(Long id) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.find(Pricing.class, id);
-        } finally {
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.find(Pricing.class, id));
     }
 
     public List<Pricing> findAll() {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT p FROM Pricing p",
-                    Pricing.class).getResultList();
-        } finally {
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT p FROM Pricing p",
+                Pricing.class)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .getResultList());
+    }
+
+    /**
+     * Streams all pricing rules in id order. The stream must be closed.
+     *
+     * @param fetchSize  Rows fetched per database round trip
+     * @param clearEvery Rows between persistence context clears, 0 to never clear
+     * @return The pricing rules
+     */
+    public Stream<Pricing> stream(int fetchSize, int clearEvery) {
+        return Listing.stream(Pricing.class, LIST_QUERY, "p", fetchSize, clearEvery);
+    }
+
+    /**
+     * Gets the next page of pricing rules in id order.
+     *
+     * @param afterId Last id of the previous page, null for the first page
+     * @param limit   Maximum page size
+     * @return The pricing rules with an id greater than afterId
+     */
+    public List<Pricing> page(Long afterId, int limit) {
+        return Listing.page(Pricing.class, LIST_QUERY, "p", afterId, limit);
     }
 
     /**
@@ -67,18 +87,69 @@ public class PricingDAO {
             return null;
         }
 
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
+        return UnitOfWork.read(em -> {
             List<Pricing> results = em.createQuery(
                     "SELECT p FROM Pricing p WHERE p.interventionType.id = :typeId AND p.vehicleType.id = :vehicleId",
                     Pricing.class)
                     .setParameter("typeId", interventionType.getId())
                     .setParameter("vehicleId", vehicleType.getId())
+                    .setHint(HibernateHints.HINT_CACHEABLE, true)
                     .getResultList();
             return results.isEmpty() ? null : results.get(0);
-        } finally {
-            em.close();
+        });
+    }
+
+    /**
+     * Gets the prices of all pricing rules, without loading the entities.
+     *
+     * @return One entry per pricing rule
+     */
+    public List<PriceEntry> findPrices() {
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT new dto.PriceEntry(p.interventionType.id, p.vehicleType.id, p.price) FROM Pricing p",
+                PriceEntry.class)
+                .getResultList());
+    }
+
+    /**
+     * Gets in one query the prices of some intervention types on some
+     * vehicle types, without loading the entities.
+     *
+     * @param interventionTypeIds The intervention types
+     * @param vehicleTypeIds      The vehicle types
+     * @return One entry per pricing rule of any of those intervention types
+     *         on any of those vehicle types
+     */
+    public List<PriceEntry> findPrices(Collection<Long> interventionTypeIds, Collection<Long> vehicleTypeIds) {
+        if (interventionTypeIds.isEmpty() || vehicleTypeIds.isEmpty()) {
+            return new ArrayList<>();
         }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT new dto.PriceEntry(p.interventionType.id, p.vehicleType.id, p.price) FROM Pricing p " +
+                        "WHERE p.interventionType.id IN :typeIds AND p.vehicleType.id IN :vehicleIds",
+                PriceEntry.class)
+                .setParameter("typeIds", interventionTypeIds)
+                .setParameter("vehicleIds", vehicleTypeIds)
+                .getResultList());
+    }
+
+    /**
+     * Gets the price of an intervention type on a vehicle type.
+     *
+     * @param interventionTypeId The intervention type
+     * @param vehicleTypeId      The vehicle type
+     * @return The price, or null if there is no pricing rule
+     */
+    public Double findPrice(Long interventionTypeId, Long vehicleTypeId) {
+        return UnitOfWork.read(em -> {
+            List<Double> results = em.createQuery(
+                    "SELECT p.price FROM Pricing p WHERE p.interventionType.id = :typeId AND p.vehicleType.id = :vehicleId",
+                    Double.class)
+                    .setParameter("typeId", interventionTypeId)
+                    .setParameter("vehicleId", vehicleTypeId)
+                    .getResultList();
+            return results.isEmpty() ? null : results.get(0);
+        });
     }
 
     /**
@@ -88,16 +159,12 @@ public class PricingDAO {
      * @return List of pricing rules for that type
      */
     public List<Pricing> findByInterventionType(InterventionType interventionType) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT p FROM Pricing p WHERE p.interventionType = :type",
-                    Pricing.class)
-                    .setParameter("type", interventionType)
-                    .getResultList();
-        } finally {
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT p FROM Pricing p WHERE p.interventionType = :type",
+                Pricing.class)
+                .setParameter("type", interventionType)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .getResultList());
     }
 
     /**
@@ -107,51 +174,36 @@ public class PricingDAO {
      * @return List of pricing rules for that vehicle type
      */
     public List<Pricing> findByVehicleType(VehicleType vehicleType) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT p FROM Pricing p WHERE p.vehicleType = :type",
-                    Pricing.class)
-                    .setParameter("type", vehicleType)
-                    .getResultList();
-        } finally {
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT p FROM Pricing p WHERE p.vehicleType = :type",
+                Pricing.class)
+                .setParameter("type", vehicleType)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .getResultList());
     }
 
-    public void setPrice(Long id, double price) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
+    public int setPrice(Long id, double price) {
+        Pricing changed = UnitOfWork.call(em -> {
             Pricing pricing = em.find(Pricing.class, id);
-            et.begin();
-            pricing.setPrice(price);
-            et.commit();
-        } catch (RuntimeException e) {
-            if (et.isActive()) {
-                et.rollback();
+            if (pricing == null) {
+                return null;
             }
-            throw e;
-        } finally {
-            em.close();
+            Patch.of(Pricing.class).set("price", price).applyTo(id);
+            return pricing;
+        });
+        if (changed == null) {
+            return 0;
         }
+        PricingInputs.pricingChanged(changed.getInterventionType().getId(), changed.getVehicleType().getId());
+        return 1;
     }
 
     public void remove(Long id) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
+        Pricing removed = UnitOfWork.call(em -> {
             Pricing pricing = em.find(Pricing.class, id);
-            et.begin();
             em.remove(pricing);
-            et.commit();
-        } catch (RuntimeException e) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw e;
-        } finally {
-            em.close();
-        }
+            return pricing;
+        });
+        PricingInputs.pricingChanged(removed.getInterventionType().getId(), removed.getVehicleType().getId());
     }
 }
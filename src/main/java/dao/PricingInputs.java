@@ -0,0 +1,70 @@
+package dao;
+
+/**
+ * Notifies changes of the inputs of prices: pricing rules, group pricing
+ * rules, fallback pricing rules and the vehicle types rules match on.
+ * The DAOs publish a change once it is committed (at the end of the unit
+ * of work if one is open); changes that roll back are never published.
+ */
+public final class PricingInputs {
+
+    /**
+     * Receives committed changes. Called on the thread that made the change,
+     * outside any unit of work, so it must return at once (see
+     * {@link ChangePublisher}).
+     */
+    public interface Listener {
+
+        /**
+         * The price of an intervention type on a vehicle type was added,
+         * changed or removed.
+         */
+        void pricingChanged(Long interventionTypeId, Long vehicleTypeId);
+
+        /**
+         * A group pricing rule of an intervention type was added, changed
+         * or removed.
+         */
+        void groupPricingChanged(Long interventionTypeId);
+
+        /**
+         * A vehicle type was added or removed, or its brand, fuel type or
+         * power changed.
+         */
+        void vehicleTypeChanged(Long vehicleTypeId);
+
+        /**
+         * A fallback pricing rule was added, changed or removed.
+         */
+        void fallbackRulesChanged();
+    }
+
+    private static final ChangePublisher<Listener> PUBLISHER = new ChangePublisher<>("pricing change");
+
+    private PricingInputs() {
+    }
+
+    public static void addListener(Listener listener) {
+        PUBLISHER.addListener(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        PUBLISHER.removeListener(listener);
+    }
+
+    static void pricingChanged(Long interventionTypeId, Long vehicleTypeId) {
+        PUBLISHER.publish(listener -> listener.pricingChanged(interventionTypeId, vehicleTypeId));
+    }
+
+    static void groupPricingChanged(Long interventionTypeId) {
+        PUBLISHER.publish(listener -> listener.groupPricingChanged(interventionTypeId));
+    }
+
+    static void vehicleTypeChanged(Long vehicleTypeId) {
+        PUBLISHER.publish(listener -> listener.vehicleTypeChanged(vehicleTypeId));
+    }
+
+    static void fallbackRulesChanged() {
+        PUBLISHER.publish(Listener::fallbackRulesChanged);
+    }
+}
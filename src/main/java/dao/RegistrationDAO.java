@@ -2,17 +2,23 @@ package dao;
 
 import entities.Registration;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityTransaction;
-import utils.JPAUtil;
+import jakarta.persistence.LockModeType;
+import utils.UnitOfWork;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * DAO for Registration entity.
- * Prevents duplicate license plates by checking before creation.
+ * Duplicate license plates are rejected by a unique constraint on the
+ * normalized plateKey column.
  */
 public class RegistrationDAO {
 
+    private static final String LIST_QUERY = "SELECT r FROM Registration r LEFT JOIN FETCH r.vehicle v " +
+            "LEFT JOIN FETCH v.owner LEFT JOIN FETCH v.vehicleType";
+
     /**
      * Creates a new registration if it doesn't already exist.
      * 
@@ -21,28 +27,34 @@ public class RegistrationDAO {
      *                                  already exists
      */
     public void create(Registration registration) {
-        
-        if (existsByParts(registration.getPart1(), registration.getPart2(), registration.getPart3())) {
+        if (!createIfAbsent(registration).isCreated()) {
             throw new IllegalArgumentException(
                     "A registration with license plate " +
                             registration.getPart1() + "-" + registration.getPart2() + "-" + registration.getPart3() +
                             " already exists.");
         }
+    }
 
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
-            et.begin();
-            em.persist(registration);
-            et.commit();
-        } catch (RuntimeException e) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw e;
-        } finally {
-            em.close();
-        }
+    /**
+     * Inserts a registration unless its plate is already registered, in a
+     * single statement when it is not.
+     *
+     * @param registration The registration to create
+     * @return The created registration, or the existing one with that plate
+     */
+    public InsertResult<Registration> createIfAbsent(Registration registration) {
+        return UniqueInsert.insert(registration,
+                em -> findByPlateKey(em, registration.getPlateKey(), LockModeType.PESSIMISTIC_READ));
+    }
+
+    /**
+     * Saves many registrations at once using batched inserts.
+     * A duplicate makes the whole batch fail.
+     *
+     * @param registrations The registrations to save
+     */
+    public void saveAll(Collection<Registration> registrations) {
+        BatchWriter.persistAll(registrations);
     }
 
     /**
@@ -54,39 +66,47 @@ public class RegistrationDAO {
      * @return true if exists, false otherwise
      */
     public boolean existsByParts(String part1, int part2, String part3) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
+        return UnitOfWork.read(em -> {
             Long count = em.createQuery(
-                    "SELECT COUNT(r) FROM Registration r WHERE UPPER(r.part1) = UPPER(:part1) AND r.part2 = :part2 AND UPPER(r.part3) = UPPER(:part3)",
+                    "SELECT COUNT(r) FROM Registration r WHERE r.plateKey = :plateKey",
                     Long.class)
-                    .setParameter("part1", part1)
-                    .setParameter("part2", part2)
-                    .setParameter("part3", part3)
+                    .setParameter("plateKey", Registration.plateKey(part1, part2, part3))
                     .getSingleResult();
             return count > 0;
-        } finally {
-            em.close();
-        }
+        });
     }
 
     public Registration findById(Long id) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.find(Registration.class, id);
-        } finally {
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.find(Registration.class, id));
     }
 
     public List<Registration> findAll() {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT r FROM Registration r",
-                    Registration.class).getResultList();
-        } finally {
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT r FROM Registration r",
+                Registration.class).getResultList());
+    }
+
+    /**
+     * Streams all registrations in id order, associations fetched in the same
+     * query. The stream must be closed.
+     *
+     * @param fetchSize  Rows fetched per database round trip
+     * @param clearEvery Rows between persistence context clears, 0 to never clear
+     * @return The registrations
+     */
+    public Stream<Registration> stream(int fetchSize, int clearEvery) {
+        return Listing.stream(Registration.class, LIST_QUERY, "r", fetchSize, clearEvery);
+    }
+
+    /**
+     * Gets the next page of registrations in id order.
+     *
+     * @param afterId Last id of the previous page, null for the first page
+     * @param limit   Maximum page size
+     * @return The registrations with an id greater than afterId
+     */
+    public List<Registration> page(Long afterId, int limit) {
+        return Listing.page(Registration.class, LIST_QUERY, "r", afterId, limit);
     }
 
     /**
@@ -98,20 +118,18 @@ public class RegistrationDAO {
      * @return The registration found or null if not found
      */
     public Registration findByParts(String part1, int part2, String part3) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            List<Registration> results = em.createQuery(
-                    "SELECT r FROM Registration r WHERE UPPER(r.part1) = UPPER(:part1) AND r.part2 = :part2 AND UPPER(r.part3) = UPPER(:part3)",
-                    Registration.class)
-                    .setParameter("part1", part1)
-                    .setParameter("part2", part2)
-                    .setParameter("part3", part3)
-                    .getResultList();
-
-            return results.isEmpty() ? null : results.get(0);
-        } finally {
-            em.close();
-        }
+        String plateKey = Registration.plateKey(part1, part2, part3);
+        return UnitOfWork.read(em -> findByPlateKey(em, plateKey, LockModeType.NONE));
+    }
+
+    private static Registration findByPlateKey(EntityManager em, String plateKey, LockModeType lockMode) {
+        List<Registration> results = em.createQuery(
+                "SELECT r FROM Registration r WHERE r.plateKey = :plateKey",
+                Registration.class)
+                .setParameter("plateKey", plateKey)
+                .setLockMode(lockMode)
+                .getResultList();
+        return results.isEmpty() ? null : results.get(0);
     }
 
     /**
@@ -124,44 +142,13 @@ public class RegistrationDAO {
      * @return The existing or newly created registration
      */
     public Registration findOrCreate(String part1, int part2, String part3) {
-        Registration existing = findByParts(part1, part2, part3);
-        if (existing != null) {
-            return existing;
-        }
-
-        Registration newReg = new Registration(part1, part2, part3);
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
-            et.begin();
-            em.persist(newReg);
-            et.commit();
-            return newReg;
-        } catch (RuntimeException e) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw e;
-        } finally {
-            em.close();
-        }
+        return createIfAbsent(new Registration(part1, part2, part3)).getEntity();
     }
 
     public void remove(Long id) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
+        UnitOfWork.execute(em -> {
             Registration registration = em.find(Registration.class, id);
-            et.begin();
             em.remove(registration);
-            et.commit();
-        } catch (RuntimeException e) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw e;
-        } finally {
-            em.close();
-        }
+        });
     }
 }
@@ -2,88 +2,79 @@ package dao;
 
 import entities.RepairType;
 import entities.InterventionType;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityTransaction;
-import utils.JPAUtil;
+import org.hibernate.jpa.HibernateHints;
+import utils.UnitOfWork;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class RepairTypeDAO {
 
+    private static final String LIST_QUERY = "SELECT r FROM RepairType r";
+
     public void save(RepairType repairType){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
-            et.begin();
-            em.persist(repairType);
-            et.commit();
-        }
-        catch(RuntimeException e){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw e;
-        }
-        finally{
-            em.close();
-        }
+        UnitOfWork.execute(em -> em.persist(repairType));
+    }
+
+    /**
+     * Saves many repair types at once using batched inserts.
+     *
+     * @param repairTypes The repair types to save
+     */
+    public void saveAll(Collection<RepairType> repairTypes){
+        BatchWriter.persistAll(repairTypes);
     }
 
     public RepairType findById(Long id){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try{
-            return em.find(RepairType.class, id);
-        }
-        finally{
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.find(RepairType.class, id));
     }
 
     public List<RepairType> findAll(){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try{
-            return em.createQuery(
-                    "SELECT r FROM RepairType r",
-                    RepairType.class
-            ).getResultList();
-        }
-        finally{
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT r FROM RepairType r",
+                RepairType.class
+            )
+            .setHint(HibernateHints.HINT_CACHEABLE, true)
+            .getResultList());
+    }
+
+    /**
+     * Streams all repair types in id order. The stream must be closed.
+     *
+     * @param fetchSize  Rows fetched per database round trip
+     * @param clearEvery Rows between persistence context clears, 0 to never clear
+     * @return The repair types
+     */
+    public Stream<RepairType> stream(int fetchSize, int clearEvery){
+        return Listing.stream(RepairType.class, LIST_QUERY, "r", fetchSize, clearEvery);
+    }
+
+    /**
+     * Gets the next page of repair types in id order.
+     *
+     * @param afterId Last id of the previous page, null for the first page
+     * @param limit   Maximum page size
+     * @return The repair types with an id greater than afterId
+     */
+    public List<RepairType> page(Long afterId, int limit){
+        return Listing.page(RepairType.class, LIST_QUERY, "r", afterId, limit);
     }
 
     public List<RepairType> findByInterventionType(InterventionType interventionType){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try{
-            return em.createQuery(
-                    "SELECT r FROM RepairType r WHERE r.interventionType = :interventionType",
-                    RepairType.class
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT r FROM RepairType r WHERE r.interventionType = :interventionType",
+                RepairType.class
             )
             .setParameter("interventionType", interventionType)
-            .getResultList();
-        }
-        finally{
-            em.close();
-        }
+            .setHint(HibernateHints.HINT_CACHEABLE, true)
+            .getResultList());
     }
 
     public void remove(Long id){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
+        UnitOfWork.execute(em -> {
             RepairType repairType = em.find(RepairType.class, id);
-            et.begin();
             em.remove(repairType);
-            et.commit();
-        }
-        catch(RuntimeException e){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw e;
-        }
-        finally{
-            em.close();
-        }
+        });
     }
 }
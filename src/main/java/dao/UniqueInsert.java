@@ -0,0 +1,99 @@
+package dao;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.exception.ConstraintViolationException;
+import utils.UnitOfWork;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.function.Function;
+
+/**
+ * Insert-if-absent backed by a database unique constraint.
+ * The row is inserted straight away; only when the constraint rejects it is
+ * the existing row looked up. Concurrent callers cannot both create it.
+ *
+ * The insert runs on the connection of the current transaction (the unit of
+ * work if one is open) inside a savepoint, so a duplicate leaves that
+ * transaction usable. When the insert is rejected, the id the insert
+ * generated for the new entity is reset to null, so the caller's entity
+ * stays transient and never points at a row that was not written.
+ *
+ * The insert goes through a StatelessSession on that connection, not
+ * through the unit's persistence context: after a rejected flush Hibernate
+ * would mark the whole unit of work rollback-only, losing the caller's
+ * other changes. As a consequence an inserted entity is detached: it is not
+ * managed by the unit of work nor put in the second-level cache, and JPA
+ * callbacks such as {@code @PrePersist} do not run on it. Entities inserted
+ * this way must therefore hold their unique key before the call; Owner and
+ * Registration compute theirs in their constructors and setters.
+ */
+class UniqueInsert {
+
+    private UniqueInsert() {
+    }
+
+    /**
+     * Inserts an entity unless a row with the same unique key exists.
+     *
+     * @param entity       The new entity
+     * @param findExisting Looks up the existing row holding the entity's unique key.
+     *                     It should use a locking read: under REPEATABLE READ a
+     *                     plain read may not see a row committed concurrently.
+     * @return The inserted entity, detached and without its JPA callbacks
+     *         run, or the existing one; the given entity gets its id back
+     *         to null when it was not inserted
+     * @throws ConstraintViolationException if the insert fails on another
+     *                                      constraint (no existing row is found)
+     */
+    static <T> InsertResult<T> insert(T entity, Function<EntityManager, T> findExisting) {
+        return UnitOfWork.call(em -> {
+            Session session = em.unwrap(Session.class);
+            // Earlier changes of this unit of work must reach the database first
+            session.flush();
+            ConstraintViolationException violation = session.doReturningWork(connection -> {
+                Savepoint savepoint = connection.setSavepoint();
+                SessionFactory factory = session.getSessionFactory();
+                try (StatelessSession insert = factory.withStatelessOptions().connection(connection)
+                        .openStatelessSession()) {
+                    insert.insert(entity);
+                    releaseQuietly(connection, savepoint);
+                    return null;
+                } catch (ConstraintViolationException duplicate) {
+                    connection.rollback(savepoint);
+                    return duplicate;
+                }
+            });
+            if (violation == null) {
+                return new InsertResult<>(entity, true);
+            }
+            clearId(session, entity);
+
+            T existing = findExisting.apply(em);
+            if (existing == null) {
+                throw violation;
+            }
+            return new InsertResult<>(existing, false);
+        });
+    }
+
+    private static void clearId(Session session, Object entity) {
+        session.getSessionFactory().unwrap(SessionFactoryImplementor.class).getMappingMetamodel()
+                .getEntityDescriptor(entity.getClass())
+                .setIdentifier(entity, null, session.unwrap(SharedSessionContractImplementor.class));
+    }
+
+    private static void releaseQuietly(Connection connection, Savepoint savepoint) {
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            // Not supported by every driver; the savepoint ends with the transaction anyway
+        }
+    }
+}
@@ -1,149 +1,195 @@
 package dao;
 
+import dto.VehicleOption;
 import entities.Registration;
 import entities.Vehicle;
 import entities.VehicleType;
 import entities.Owner;
-import jakarta.persistence.EntityTransaction;
-import utils.JPAUtil;
-import jakarta.persistence.EntityManager;
+import utils.UnitOfWork;
 import java.util.*;
+import java.util.stream.Stream;
 
+/**
+ * DAO for Vehicle entity.
+ * New vehicles and mileage or registration date changes are published to
+ * {@link MaintenanceInputs} once committed.
+ */
 public class VehicleDAO {
 
+    private static final String LIST_QUERY = "SELECT v FROM Vehicle v LEFT JOIN FETCH v.vehicleType LEFT JOIN FETCH v.owner " +
+            "LEFT JOIN FETCH v.registration";
+
     public void create(Vehicle vehicle) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
-            et.begin();
-            em.persist(vehicle);
-            et.commit();
-        } catch (RuntimeException re) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw re;
-        } finally {
-            em.close();
+        UnitOfWork.execute(em -> em.persist(vehicle));
+        MaintenanceInputs.vehiclesChanged(Collections.singletonList(vehicle.getId()));
+    }
+
+    /**
+     * Saves many vehicles at once using batched inserts.
+     *
+     * @param vehicles The vehicles to save
+     */
+    public void saveAll(Collection<Vehicle> vehicles) {
+        BatchWriter.persistAll(vehicles);
+        List<Long> ids = new ArrayList<>(vehicles.size());
+        for (Vehicle vehicle : vehicles) {
+            ids.add(vehicle.getId());
         }
+        MaintenanceInputs.vehiclesChanged(ids);
     }
 
     public Vehicle findById(Long id) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
+        return UnitOfWork.read(em -> {
             List<Vehicle> results = em.createQuery(
                     "SELECT v FROM Vehicle v LEFT JOIN FETCH v.vehicleType LEFT JOIN FETCH v.owner LEFT JOIN FETCH v.registration WHERE v.id = :id",
                     Vehicle.class)
                     .setParameter("id", id)
                     .getResultList();
             return results.isEmpty() ? null : results.get(0);
-        } finally {
-            em.close();
-        }
+        });
     }
 
     public List<Vehicle> findAll() {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT v FROM Vehicle v LEFT JOIN FETCH v.vehicleType LEFT JOIN FETCH v.owner LEFT JOIN FETCH v.registration",
-                    Vehicle.class).getResultList();
-        } finally {
-            em.close();
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT v FROM Vehicle v LEFT JOIN FETCH v.vehicleType LEFT JOIN FETCH v.owner LEFT JOIN FETCH v.registration",
+                Vehicle.class).getResultList());
+    }
+
+    /**
+     * Streams all vehicles in id order, associations fetched in the same
+     * query. The stream must be closed.
+     *
+     * @param fetchSize  Rows fetched per database round trip
+     * @param clearEvery Rows between persistence context clears, 0 to never clear
+     * @return The vehicles
+     */
+    public Stream<Vehicle> stream(int fetchSize, int clearEvery) {
+        return Listing.stream(Vehicle.class, LIST_QUERY, "v", fetchSize, clearEvery);
+    }
+
+    /**
+     * Gets the next page of vehicles in id order.
+     *
+     * @param afterId Last id of the previous page, null for the first page
+     * @param limit   Maximum page size
+     * @return The vehicles with an id greater than afterId
+     */
+    public List<Vehicle> page(Long afterId, int limit) {
+        return Listing.page(Vehicle.class, LIST_QUERY, "v", afterId, limit);
+    }
+
+    /**
+     * Gets a lightweight entry per vehicle for pickers. Only the displayed
+     * columns are selected and no entity is loaded.
+     *
+     * @return The vehicle options in id order
+     */
+    public List<VehicleOption> findOptions() {
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT new dto.VehicleOption(v.id, r.part1, r.part2, r.part3, t.brand, t.model, o.firstName, o.lastName) " +
+                        "FROM Vehicle v JOIN v.registration r JOIN v.vehicleType t JOIN v.owner o ORDER BY v.id",
+                VehicleOption.class).getResultList());
+    }
+
+    /**
+     * Gets the vehicles with the given ids, in id order.
+     *
+     * @param ids The vehicle ids
+     * @return The vehicles found, associations not fetched
+     */
+    public List<Vehicle> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
         }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT v FROM Vehicle v WHERE v.id IN :ids ORDER BY v.id",
+                Vehicle.class)
+                .setParameter("ids", ids)
+                .getResultList());
+    }
+
+    /**
+     * Gets the lowest and highest vehicle id.
+     *
+     * @return {min, max}, or null if there is no vehicle
+     */
+    public long[] findIdRange() {
+        return UnitOfWork.read(em -> {
+            Object[] range = em.createQuery("SELECT MIN(v.id), MAX(v.id) FROM Vehicle v", Object[].class)
+                    .getSingleResult();
+            return range[0] == null ? null : new long[]{(Long) range[0], (Long) range[1]};
+        });
+    }
+
+    /**
+     * Gets the vehicles whose id is in a range, in id order, associations
+     * fetched in the same query.
+     *
+     * @param fromId Lowest id, inclusive
+     * @param toId   Highest id, inclusive
+     * @return The vehicles in the range
+     */
+    public List<Vehicle> findByIdRange(long fromId, long toId) {
+        return UnitOfWork.read(em -> em.createQuery(
+                LIST_QUERY + " WHERE v.id BETWEEN :fromId AND :toId ORDER BY v.id",
+                Vehicle.class)
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .getResultList());
     }
 
     public List<Vehicle> findByVehicleType(VehicleType vehicleType) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT v FROM Vehicle v LEFT JOIN FETCH v.vehicleType LEFT JOIN FETCH v.owner LEFT JOIN FETCH v.registration WHERE v.vehicleType = :vehicleType",
-                    Vehicle.class)
-                    .setParameter("vehicleType", vehicleType)
-                    .getResultList();
-        } finally {
-            em.close();
-        }
+        // Inner join first on the filtered association (never null), so H2 can start from its index
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT v FROM Vehicle v JOIN FETCH v.vehicleType LEFT JOIN FETCH v.owner LEFT JOIN FETCH v.registration WHERE v.vehicleType = :vehicleType",
+                Vehicle.class)
+                .setParameter("vehicleType", vehicleType)
+                .getResultList());
     }
 
     public Vehicle findByRegistration(Registration registration) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
+        return UnitOfWork.read(em -> {
             List<Vehicle> results = em.createQuery(
-                    "SELECT v FROM Vehicle v LEFT JOIN FETCH v.vehicleType LEFT JOIN FETCH v.owner LEFT JOIN FETCH v.registration WHERE v.registration = :registration",
+                    "SELECT v FROM Vehicle v JOIN FETCH v.registration LEFT JOIN FETCH v.vehicleType LEFT JOIN FETCH v.owner WHERE v.registration = :registration",
                     Vehicle.class)
                     .setParameter("registration", registration)
                     .getResultList();
             return results.isEmpty() ? null : results.get(0);
-        } finally {
-            em.close();
-        }
+        });
     }
 
     public List<Vehicle> findByOwner(Owner owner) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT v FROM Vehicle v LEFT JOIN FETCH v.vehicleType LEFT JOIN FETCH v.owner LEFT JOIN FETCH v.registration WHERE v.owner = :owner",
-                    Vehicle.class)
-                    .setParameter("owner", owner)
-                    .getResultList();
-        } finally {
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT v FROM Vehicle v JOIN FETCH v.owner LEFT JOIN FETCH v.vehicleType LEFT JOIN FETCH v.registration WHERE v.owner = :owner",
+                Vehicle.class)
+                .setParameter("owner", owner)
+                .getResultList());
     }
 
     public void remove(Long id) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
+        UnitOfWork.execute(em -> {
             Vehicle vehicle = em.find(Vehicle.class, id);
-            et.begin();
             em.remove(vehicle);
-            et.commit();
-        } catch (RuntimeException re) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw re;
-        } finally {
-            em.close();
-        }
+        });
     }
 
-    public void setDateRegistration(Long id, Date dateOfFirstRegistration) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
-            Vehicle vehicle = em.find(Vehicle.class, id);
-            et.begin();
-            vehicle.setDateOfFirstRegistration(dateOfFirstRegistration);
-            et.commit();
-        } catch (RuntimeException re) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw re;
-        } finally {
-            em.close();
-        }
+    public int setDateRegistration(Long id, Date dateOfFirstRegistration) {
+        return published(id, Patch.of(Vehicle.class).set("dateOfFirstRegistration", dateOfFirstRegistration).applyTo(id));
     }
 
-    public void setLastMileage(Long id, int lastMileage) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try {
-            Vehicle vehicle = em.find(Vehicle.class, id);
-            et.begin();
-            vehicle.setLastMileage(lastMileage);
-            et.commit();
-        } catch (RuntimeException re) {
-            if (et.isActive()) {
-                et.rollback();
-            }
-            throw re;
-        } finally {
-            em.close();
+    public int setLastMileage(Long id, int lastMileage) {
+        return published(id, Patch.of(Vehicle.class).set("lastMileage", lastMileage).applyTo(id));
+    }
+
+    public long count() {
+        return UnitOfWork.read(em -> em.createQuery("SELECT COUNT(v) FROM Vehicle v", Long.class)
+                .getSingleResult());
+    }
+
+    private static int published(Long id, int updated) {
+        if (updated > 0) {
+            MaintenanceInputs.vehiclesChanged(Collections.singletonList(id));
         }
+        return updated;
     }
 }
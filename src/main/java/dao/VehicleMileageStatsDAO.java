@@ -0,0 +1,170 @@
+package dao;
+
+import dto.MileageRate;
+import entities.Intervention;
+import entities.Vehicle;
+import entities.VehicleMileageStats;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.hibernate.jpa.HibernateHints;
+import utils.UnitOfWork;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * DAO for VehicleMileageStats entity.
+ * The sums are updated by {@link InterventionDAO} in the transaction that
+ * writes the interventions, one constant-time step per intervention.
+ */
+public class VehicleMileageStatsDAO {
+
+    /**
+     * Gets the fitted mileage rate of the given vehicles.
+     * Vehicles without recorded mileage are absent.
+     *
+     * @param vehicleIds The vehicles
+     * @return One rate per vehicle having stats
+     */
+    public List<MileageRate> findRates(Collection<Long> vehicleIds) {
+        if (vehicleIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT new dto.MileageRate(s.vehicle.id, s.points, s.sumDays, s.sumMileage, " +
+                        "s.sumDaysSquared, s.sumDaysMileage) " +
+                        "FROM VehicleMileageStats s WHERE s.vehicle.id IN :vehicleIds",
+                MileageRate.class)
+                .setParameter("vehicleIds", vehicleIds)
+                .getResultList());
+    }
+
+    /**
+     * Rebuilds the stats from the full intervention history if some vehicle
+     * with interventions has none (interventions written before the stats
+     * existed). The persistence context is flushed every
+     * {@link BatchWriter#BATCH_SIZE} stats and, outside a unit of work,
+     * also cleared, as {@link BatchWriter} does.
+     *
+     * @return true if the stats were rebuilt
+     */
+    public boolean rebuildIfIncomplete() {
+        long withInterventions = UnitOfWork.read(em -> em.createQuery(
+                "SELECT COUNT(DISTINCT i.vehicle.id) FROM Intervention i", Long.class)
+                .getSingleResult());
+        long withStats = UnitOfWork.read(em -> em.createQuery(
+                "SELECT COUNT(s) FROM VehicleMileageStats s WHERE s.points > 0", Long.class)
+                .getSingleResult());
+        if (withInterventions == withStats) {
+            return false;
+        }
+        boolean ownsContext = !UnitOfWork.isActive();
+        UnitOfWork.execute(em -> {
+            em.createQuery("DELETE FROM VehicleMileageStats").executeUpdate();
+            try (Stream<Object[]> points = em.createQuery(
+                    "SELECT i.vehicle.id, i.date, i.vehicleMileage FROM Intervention i ORDER BY i.vehicle.id",
+                    Object[].class)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, BatchWriter.BATCH_SIZE * 10)
+                    .getResultStream()) {
+                Long vehicleId = null;
+                VehicleMileageStats stats = null;
+                int count = 0;
+                for (Object[] point : (Iterable<Object[]>) points::iterator) {
+                    if (!point[0].equals(vehicleId)) {
+                        if (stats != null) {
+                            persist(em, stats, ++count, ownsContext);
+                        }
+                        vehicleId = (Long) point[0];
+                        stats = new VehicleMileageStats(em.getReference(Vehicle.class, vehicleId));
+                    }
+                    stats.add(MileageRate.epochDay((Date) point[1]), (Integer) point[2]);
+                }
+                if (stats != null) {
+                    persist(em, stats, ++count, ownsContext);
+                }
+            }
+        });
+        return true;
+    }
+
+    private static void persist(EntityManager em, VehicleMileageStats stats, int count, boolean clear) {
+        em.persist(stats);
+        if (count % BatchWriter.BATCH_SIZE == 0) {
+            em.flush();
+            if (clear) {
+                // The points are scalars, so only the written stats are detached
+                em.clear();
+            }
+        }
+    }
+
+    /**
+     * Adds the mileage of new interventions to the stats of their vehicles,
+     * creating the missing stats.
+     */
+    static void add(EntityManager em, Collection<Intervention> interventions) {
+        Map<Long, VehicleMileageStats> stats = lock(em, interventions);
+        for (Intervention intervention : interventions) {
+            Long vehicleId = intervention.getVehicle().getId();
+            VehicleMileageStats vehicleStats = stats.get(vehicleId);
+            if (vehicleStats == null) {
+                vehicleStats = new VehicleMileageStats(em.getReference(Vehicle.class, vehicleId));
+                em.persist(vehicleStats);
+                stats.put(vehicleId, vehicleStats);
+            }
+            vehicleStats.add(MileageRate.epochDay(intervention.getDate()), intervention.getVehicleMileage());
+        }
+    }
+
+    /**
+     * Removes the mileage of an intervention about to be deleted.
+     */
+    static void remove(EntityManager em, Intervention intervention) {
+        VehicleMileageStats stats = lock(em, List.of(intervention)).get(intervention.getVehicle().getId());
+        if (stats != null) {
+            stats.remove(MileageRate.epochDay(intervention.getDate()), intervention.getVehicleMileage());
+        }
+    }
+
+    /**
+     * Moves the mileage of an intervention to another day.
+     */
+    static void move(EntityManager em, Intervention intervention, Date date) {
+        VehicleMileageStats stats = lock(em, List.of(intervention)).get(intervention.getVehicle().getId());
+        if (stats != null) {
+            stats.remove(MileageRate.epochDay(intervention.getDate()), intervention.getVehicleMileage());
+            stats.add(MileageRate.epochDay(date), intervention.getVehicleMileage());
+        }
+    }
+
+    /**
+     * Loads the stats of the vehicles of some interventions, locked until
+     * the end of the transaction so that concurrent updates do not get lost.
+     */
+    private static Map<Long, VehicleMileageStats> lock(EntityManager em, Collection<Intervention> interventions) {
+        Set<Long> vehicleIds = new LinkedHashSet<>();
+        for (Intervention intervention : interventions) {
+            vehicleIds.add(intervention.getVehicle().getId());
+        }
+        Map<Long, VehicleMileageStats> stats = new HashMap<>();
+        if (vehicleIds.isEmpty()) {
+            return stats;
+        }
+        for (VehicleMileageStats vehicleStats : em.createQuery(
+                "SELECT s FROM VehicleMileageStats s WHERE s.vehicle.id IN :vehicleIds",
+                VehicleMileageStats.class)
+                .setParameter("vehicleIds", vehicleIds)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList()) {
+            stats.put(vehicleStats.getVehicle().getId(), vehicleStats);
+        }
+        return stats;
+    }
+}
@@ -1,224 +1,151 @@
 package dao;
+import dto.VehicleTypeTraits;
 import entities.Vehicle;
 import entities.VehicleType;
-import jakarta.persistence.EntityTransaction;
-import utils.JPAUtil;
-import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import utils.UnitOfWork;
 import java.util.*;
+import java.util.stream.Stream;
 
 public class VehicleTypeDAO {
 
+    private static final String LIST_QUERY = "SELECT vt FROM VehicleType vt";
+
     public void create(VehicleType vehicleType) {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
-            et.begin();
-            em.persist(vehicleType);
-            et.commit();
-        }
-        catch(RuntimeException re){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw re;
-        }
-        finally {
-            em.close();
+        UnitOfWork.execute(em -> em.persist(vehicleType));
+        PricingInputs.vehicleTypeChanged(vehicleType.getId());
+    }
+
+    /**
+     * Saves many vehicle types at once using batched inserts.
+     *
+     * @param vehicleTypes The vehicle types to save
+     */
+    public void saveAll(Collection<VehicleType> vehicleTypes){
+        BatchWriter.persistAll(vehicleTypes);
+        for (VehicleType vehicleType : vehicleTypes) {
+            PricingInputs.vehicleTypeChanged(vehicleType.getId());
         }
     }
 
     public VehicleType findById(Long id){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try{
-            return em.find(VehicleType.class, id);
-        }
-        finally{
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.find(VehicleType.class, id));
     }
 
     public List<VehicleType> findAll(){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try{
-            return em.createQuery(
-                    "SELECT vt FROM VehicleType vt",
-                    VehicleType.class
-            ).getResultList();
-        }
-        finally{
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT vt FROM VehicleType vt",
+                VehicleType.class
+            )
+            .setHint(HibernateHints.HINT_CACHEABLE, true)
+            .getResultList());
+    }
+
+    /**
+     * Streams all vehicle types in id order. The stream must be closed.
+     *
+     * @param fetchSize  Rows fetched per database round trip
+     * @param clearEvery Rows between persistence context clears, 0 to never clear
+     * @return The vehicle types
+     */
+    public Stream<VehicleType> stream(int fetchSize, int clearEvery){
+        return Listing.stream(VehicleType.class, LIST_QUERY, "vt", fetchSize, clearEvery);
+    }
+
+    /**
+     * Gets the next page of vehicle types in id order.
+     *
+     * @param afterId Last id of the previous page, null for the first page
+     * @param limit   Maximum page size
+     * @return The vehicle types with an id greater than afterId
+     */
+    public List<VehicleType> page(Long afterId, int limit){
+        return Listing.page(VehicleType.class, LIST_QUERY, "vt", afterId, limit);
+    }
+
+    /**
+     * Gets the attributes group pricing rules match on for every vehicle
+     * type, without loading the entities.
+     *
+     * @return The traits of each vehicle type
+     */
+    public List<VehicleTypeTraits> findTraits() {
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT new dto.VehicleTypeTraits(vt.id, vt.brand, vt.fuelType, vt.power) FROM VehicleType vt",
+                VehicleTypeTraits.class)
+                .getResultList());
+    }
+
+    /**
+     * Gets the attributes group pricing rules match on for a vehicle type.
+     *
+     * @param id The vehicle type
+     * @return Its traits, or null if it does not exist
+     */
+    public VehicleTypeTraits findTraits(Long id) {
+        return UnitOfWork.read(em -> {
+            List<VehicleTypeTraits> results = em.createQuery(
+                    "SELECT new dto.VehicleTypeTraits(vt.id, vt.brand, vt.fuelType, vt.power) " +
+                            "FROM VehicleType vt WHERE vt.id = :id",
+                    VehicleTypeTraits.class)
+                    .setParameter("id", id)
+                    .getResultList();
+            return results.isEmpty() ? null : results.get(0);
+        });
     }
 
     public List<VehicleType> findAllWithVehicles() {
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        try {
-            return em.createQuery(
-                    "SELECT vt FROM VehicleType vt LEFT JOIN FETCH vt.vehicles",
-                    VehicleType.class
-            ).getResultList();
-        } finally {
-            em.close();
-        }
+        return UnitOfWork.read(em -> em.createQuery(
+                "SELECT vt FROM VehicleType vt LEFT JOIN FETCH vt.vehicles",
+                VehicleType.class
+            ).getResultList());
     }
 
     public void remove(Long id){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
+        UnitOfWork.execute(em -> {
             VehicleType vehicleType = em.find(VehicleType.class, id);
-            et.begin();
             em.remove(vehicleType);
-            et.commit();
-        }
-        catch(RuntimeException re){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw re;
-        }
-        finally {
-            em.close();
-        }
+        });
+        PricingInputs.vehicleTypeChanged(id);
     }
 
-    public void setBrand(Long id, String brand){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
-            VehicleType vehicleType = em.find(VehicleType.class, id);
-            et.begin();
-            vehicleType.setBrand(brand);
-            et.commit();
-        }
-        catch(RuntimeException re){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw re;
-        }
-        finally{
-            em.close();
+    public int setBrand(Long id, String brand){
+        int updated = Patch.of(VehicleType.class).set("brand", brand).applyTo(id);
+        if (updated > 0) {
+            PricingInputs.vehicleTypeChanged(id);
         }
+        return updated;
     }
 
-    public void setFuelType(Long id, String fuelType){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
-            VehicleType vehicleType = em.find(VehicleType.class, id);
-            et.begin();
-            vehicleType.setFuelType(fuelType);
-            et.commit();
-        }
-        catch(RuntimeException re){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw re;
-        }
-        finally{
-            em.close();
+    public int setFuelType(Long id, String fuelType){
+        int updated = Patch.of(VehicleType.class).set("fuelType", fuelType).applyTo(id);
+        if (updated > 0) {
+            PricingInputs.vehicleTypeChanged(id);
         }
+        return updated;
     }
 
-    public void setGearbox(Long id, String gearbox){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
-            VehicleType vehicleType = em.find(VehicleType.class, id);
-            et.begin();
-            vehicleType.setGearbox(gearbox);
-            et.commit();
-        }
-        catch(RuntimeException re){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw re;
-        }
-        finally{
-            em.close();
-        }
+    public int setGearbox(Long id, String gearbox){
+        return Patch.of(VehicleType.class).set("gearbox", gearbox).applyTo(id);
     }
 
-    public void setModel(Long id, String model){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
-            VehicleType vehicleType = em.find(VehicleType.class, id);
-            et.begin();
-            vehicleType.setModel(model);
-            et.commit();
-        }
-        catch(RuntimeException re){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw re;
-        }
-        finally{
-            em.close();
-        }
+    public int setModel(Long id, String model){
+        return Patch.of(VehicleType.class).set("model", model).applyTo(id);
     }
 
-    public void setNumberOfDoors(Long id, int numberOfDoors){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
-            VehicleType vehicleType = em.find(VehicleType.class, id);
-            et.begin();
-            vehicleType.setNumberOfDoors(numberOfDoors);
-            et.commit();
-        }
-        catch(RuntimeException re){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw re;
-        }
-        finally{
-            em.close();
-        }
+    public int setNumberOfDoors(Long id, int numberOfDoors){
+        return Patch.of(VehicleType.class).set("numberOfDoors", numberOfDoors).applyTo(id);
     }
 
-    public void setNumberOfSeats(Long id, int numberOfSeats){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
-            VehicleType vehicleType = em.find(VehicleType.class, id);
-            et.begin();
-            vehicleType.setNumberOfSeats(numberOfSeats);
-            et.commit();
-        }
-        catch(RuntimeException re){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw re;
-        }
-        finally{
-            em.close();
-        }
+    public int setNumberOfSeats(Long id, int numberOfSeats){
+        return Patch.of(VehicleType.class).set("numberOfSeats", numberOfSeats).applyTo(id);
     }
 
-    public void setPower(Long id, int power){
-        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
-        EntityTransaction et = em.getTransaction();
-        try{
-            VehicleType vehicleType = em.find(VehicleType.class, id);
-            et.begin();
-            vehicleType.setPower(power);
-            et.commit();
-        }
-        catch(RuntimeException re){
-            if(et.isActive()){
-                et.rollback();
-            }
-            throw re;
-        }
-        finally{
-            em.close();
+    public int setPower(Long id, int power){
+        int updated = Patch.of(VehicleType.class).set("power", power).applyTo(id);
+        if (updated > 0) {
+            PricingInputs.vehicleTypeChanged(id);
         }
+        return updated;
     }
 }
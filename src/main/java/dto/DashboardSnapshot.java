@@ -0,0 +1,64 @@
+package dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Immutable list of dashboard rows and due-volume forecast as computed at a
+ * given time.
+ */
+public final class DashboardSnapshot {
+
+    private final List<PlannedInterventionRow> rows;
+    private final DueForecast forecast;
+    private final long computedAt;
+    private final boolean upToDate;
+
+    /**
+     * @param upToDate Whether the maintenance due table the rows were read
+     *                 from was up to date
+     */
+    public DashboardSnapshot(List<PlannedInterventionRow> rows, DueForecast forecast, long computedAt,
+            boolean upToDate) {
+        this.rows = Collections.unmodifiableList(new ArrayList<>(rows));
+        this.forecast = forecast;
+        this.computedAt = computedAt;
+        this.upToDate = upToDate;
+    }
+
+    public List<PlannedInterventionRow> getRows() {
+        return rows;
+    }
+
+    public DueForecast getForecast() {
+        return forecast;
+    }
+
+    /**
+     * Gets the time the rows were computed.
+     *
+     * @return A copy of the date
+     */
+    public Date getComputedAt() {
+        return new Date(computedAt);
+    }
+
+    /**
+     * Gets the time elapsed since the rows were computed.
+     *
+     * @return The age in milliseconds
+     */
+    public long getAgeMillis() {
+        return Math.max(0, System.currentTimeMillis() - computedAt);
+    }
+
+    /**
+     * Checks if the rows were read once the maintenance due table had been
+     * brought up to date after startup; otherwise they may be stale.
+     */
+    public boolean isUpToDate() {
+        return upToDate;
+    }
+}
@@ -0,0 +1,170 @@
+package dto;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Immutable count of maintenance jobs falling due per week and maintenance
+ * type, over a number of weeks starting on the Monday of the current week.
+ * Jobs already late are counted apart, as overdue.
+ *
+ * Counts may be broken down by vehicle type: each vehicle type is then a
+ * group; otherwise the whole fleet is a single group. Fleet totals are
+ * always available.
+ */
+public final class DueForecast {
+
+    private final long firstWeekStart;
+    private final int weeks;
+    private final List<Long> maintenanceTypeIds;
+    private final List<String> maintenanceTypeNames;
+    private final List<Long> vehicleTypeIds;
+    private final List<String> vehicleTypeLabels;
+    // [group][week][maintenance type] and [group][maintenance type], flattened
+    private final int[] counts;
+    private final int[] overdue;
+    private final int[] fleetCounts;
+    private final int[] fleetOverdue;
+    private final long computedAt;
+
+    /**
+     * Takes ownership of the count arrays.
+     *
+     * @param firstWeekStart       Start of the first week
+     * @param weeks                Number of weeks
+     * @param maintenanceTypeIds   Maintenance types, one per column
+     * @param maintenanceTypeNames Their names
+     * @param vehicleTypeIds       Vehicle types, one per group; a single null
+     *                             id when the fleet is not broken down
+     * @param vehicleTypeLabels    Their labels
+     * @param counts               Jobs per group, week and maintenance type
+     * @param overdue              Late jobs per group and maintenance type
+     * @param computedAt           Time of the computation
+     */
+    public DueForecast(Date firstWeekStart, int weeks, List<Long> maintenanceTypeIds,
+            List<String> maintenanceTypeNames, List<Long> vehicleTypeIds, List<String> vehicleTypeLabels,
+            int[] counts, int[] overdue, long computedAt) {
+        int types = maintenanceTypeIds.size();
+        int groups = vehicleTypeIds.size();
+        if (counts.length != groups * weeks * types || overdue.length != groups * types) {
+            throw new IllegalArgumentException("Counts do not match " + groups + " groups, " +
+                    weeks + " weeks and " + types + " maintenance types");
+        }
+        this.firstWeekStart = firstWeekStart.getTime();
+        this.weeks = weeks;
+        this.maintenanceTypeIds = Collections.unmodifiableList(new ArrayList<>(maintenanceTypeIds));
+        this.maintenanceTypeNames = Collections.unmodifiableList(new ArrayList<>(maintenanceTypeNames));
+        this.vehicleTypeIds = Collections.unmodifiableList(new ArrayList<>(vehicleTypeIds));
+        this.vehicleTypeLabels = Collections.unmodifiableList(new ArrayList<>(vehicleTypeLabels));
+        this.counts = counts;
+        this.overdue = overdue;
+        this.fleetCounts = new int[weeks * types];
+        this.fleetOverdue = new int[types];
+        for (int group = 0; group < groups; group++) {
+            for (int i = 0; i < fleetCounts.length; i++) {
+                fleetCounts[i] += counts[group * fleetCounts.length + i];
+            }
+            for (int i = 0; i < types; i++) {
+                fleetOverdue[i] += overdue[group * types + i];
+            }
+        }
+        this.computedAt = computedAt;
+    }
+
+    public int getWeeks() {
+        return weeks;
+    }
+
+    /**
+     * Gets the first day of a week.
+     *
+     * @param week The week, 0 for the current one
+     * @return The Monday starting it
+     */
+    public Date getWeekStart(int week) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(firstWeekStart);
+        cal.add(Calendar.DAY_OF_MONTH, 7 * week);
+        return cal.getTime();
+    }
+
+    public List<Long> getMaintenanceTypeIds() {
+        return maintenanceTypeIds;
+    }
+
+    public List<String> getMaintenanceTypeNames() {
+        return maintenanceTypeNames;
+    }
+
+    /**
+     * @return The vehicle type of each group, a single null id when the
+     *         fleet is not broken down
+     */
+    public List<Long> getVehicleTypeIds() {
+        return vehicleTypeIds;
+    }
+
+    public List<String> getVehicleTypeLabels() {
+        return vehicleTypeLabels;
+    }
+
+    /**
+     * Counts the fleet jobs of a maintenance type falling due in a week.
+     *
+     * @param week The week index
+     * @param type The maintenance type index
+     */
+    public int getCount(int week, int type) {
+        return fleetCounts[week * maintenanceTypeIds.size() + type];
+    }
+
+    /**
+     * Counts the jobs of a maintenance type falling due in a week on the
+     * vehicles of one group.
+     *
+     * @param group The vehicle type index
+     * @param week  The week index
+     * @param type  The maintenance type index
+     */
+    public int getCount(int group, int week, int type) {
+        return counts[(group * weeks + week) * maintenanceTypeIds.size() + type];
+    }
+
+    /**
+     * Counts the fleet jobs of all maintenance types falling due in a week.
+     */
+    public int getWeekTotal(int week) {
+        int total = 0;
+        for (int type = 0; type < maintenanceTypeIds.size(); type++) {
+            total += getCount(week, type);
+        }
+        return total;
+    }
+
+    /**
+     * Counts the fleet jobs of a maintenance type already late.
+     */
+    public int getOverdue(int type) {
+        return fleetOverdue[type];
+    }
+
+    /**
+     * Counts the jobs of a maintenance type already late on the vehicles of
+     * one group.
+     */
+    public int getOverdue(int group, int type) {
+        return overdue[group * maintenanceTypeIds.size() + type];
+    }
+
+    /**
+     * Gets the time the counts were computed.
+     *
+     * @return A copy of the date
+     */
+    public Date getComputedAt() {
+        return new Date(computedAt);
+    }
+}
@@ -0,0 +1,57 @@
+package dto;
+
+import java.util.Date;
+
+/**
+ * Read-only next due date of a maintenance type on a vehicle, with the
+ * vehicle type and mileage rate the forecast needs to project the following
+ * services. Built directly by JPQL constructor expressions.
+ */
+public final class DueSlot {
+
+    private final long nextDueDate;
+    private final Long maintenanceTypeId;
+    private final Long vehicleTypeId;
+    private final double kmPerDay;
+
+    /**
+     * The mileage sums come from an outer join and are null for vehicles
+     * without recorded mileage.
+     */
+    public DueSlot(Date nextDueDate, Long maintenanceTypeId, Long vehicleTypeId, Integer points,
+            Long sumDays, Long sumMileage, Long sumDaysSquared, Long sumDaysMileage) {
+        this.nextDueDate = nextDueDate.getTime();
+        this.maintenanceTypeId = maintenanceTypeId;
+        this.vehicleTypeId = vehicleTypeId;
+        this.kmPerDay = points != null
+                ? new MileageRate(null, points, sumDays, sumMileage, sumDaysSquared, sumDaysMileage).getKmPerDay()
+                : 0;
+    }
+
+    /**
+     * Gets the next due date without copying it.
+     *
+     * @return Milliseconds since 1970-01-01, as Date#getTime
+     */
+    public long getNextDueTime() {
+        return nextDueDate;
+    }
+
+    public Long getMaintenanceTypeId() {
+        return maintenanceTypeId;
+    }
+
+    /**
+     * @return The vehicle type, or null if the vehicle has none
+     */
+    public Long getVehicleTypeId() {
+        return vehicleTypeId;
+    }
+
+    /**
+     * @return The fitted kilometres per day, 0 if the rate is not fitted
+     */
+    public double getKmPerDay() {
+        return kmPerDay;
+    }
+}
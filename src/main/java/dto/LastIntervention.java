@@ -0,0 +1,52 @@
+package dto;
+
+import java.util.Date;
+
+/**
+ * Read-only date and mileage of the latest intervention of a type on a
+ * vehicle. Built directly by JPQL constructor expressions.
+ */
+public final class LastIntervention {
+
+    private final Long vehicleId;
+    private final Long interventionTypeId;
+    private final long date;
+    private final int vehicleMileage;
+
+    public LastIntervention(Long vehicleId, Long interventionTypeId, Date date, int vehicleMileage) {
+        this.vehicleId = vehicleId;
+        this.interventionTypeId = interventionTypeId;
+        this.date = date.getTime();
+        this.vehicleMileage = vehicleMileage;
+    }
+
+    public Long getVehicleId() {
+        return vehicleId;
+    }
+
+    public Long getInterventionTypeId() {
+        return interventionTypeId;
+    }
+
+    /**
+     * Gets the date of the intervention.
+     *
+     * @return A copy of the date
+     */
+    public Date getDate() {
+        return new Date(date);
+    }
+
+    /**
+     * Gets the date of the intervention without copying it.
+     *
+     * @return Milliseconds since 1970-01-01, as Date#getTime
+     */
+    public long getTime() {
+        return date;
+    }
+
+    public int getVehicleMileage() {
+        return vehicleMileage;
+    }
+}
@@ -0,0 +1,68 @@
+package dto;
+
+import java.util.Objects;
+
+/**
+ * Read-only maintenance type entry for pickers, with its thresholds.
+ */
+public final class MaintenanceTypeOption {
+
+    private final Long id;
+    private final String name;
+    private final int maxMileage;
+    private final int maxDuration;
+
+    public MaintenanceTypeOption(Long id, String name, int maxMileage, int maxDuration) {
+        this.id = id;
+        this.name = name;
+        this.maxMileage = maxMileage;
+        this.maxDuration = maxDuration;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxMileage() {
+        return maxMileage;
+    }
+
+    /**
+     * Maximum duration between two maintenances, in months.
+     */
+    public int getMaxDuration() {
+        return maxDuration;
+    }
+
+    /**
+     * Gets the display label, e.g. "Oil change (max 15000 km / 12 months)".
+     */
+    public String getLabel() {
+        return name + " (max " + maxMileage + " km / " + maxDuration + " months)";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MaintenanceTypeOption)) {
+            return false;
+        }
+        return Objects.equals(id, ((MaintenanceTypeOption) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return getLabel();
+    }
+}
@@ -0,0 +1,97 @@
+package dto;
+
+import java.time.LocalDate;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Read-only least-squares line of the mileage of a vehicle over time,
+ * fitted from the running sums of entities.VehicleMileageStats. Built
+ * directly by JPQL constructor expressions.
+ */
+public final class MileageRate {
+
+    /** Last day a date can be projected to (9999-12-31). */
+    private static final long MAX_DAY = LocalDate.of(9999, 12, 31).toEpochDay();
+
+    private final Long vehicleId;
+    private final int points;
+    private final double kmPerDay;
+    private final double intercept;
+
+    public MileageRate(Long vehicleId, int points, long sumDays, long sumMileage,
+            long sumDaysSquared, long sumDaysMileage) {
+        this.vehicleId = vehicleId;
+        this.points = points;
+        // Centered sums, scaled by the number of points; exact in long
+        long daysSpread = points * sumDaysSquared - sumDays * sumDays;
+        long covariance = points * sumDaysMileage - sumDays * sumMileage;
+        if (points >= 2 && daysSpread > 0) {
+            this.kmPerDay = (double) covariance / daysSpread;
+            this.intercept = (sumMileage - kmPerDay * sumDays) / points;
+        } else {
+            this.kmPerDay = 0;
+            this.intercept = 0;
+        }
+    }
+
+    public Long getVehicleId() {
+        return vehicleId;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    /**
+     * @return true if at least two readings on different days show the
+     *         mileage increasing
+     */
+    public boolean isFitted() {
+        return kmPerDay > 0;
+    }
+
+    public double getKmPerDay() {
+        return kmPerDay;
+    }
+
+    /**
+     * Estimates the mileage on a day.
+     *
+     * @return The estimated mileage, or -1 if the rate is not fitted
+     */
+    public long mileageOn(Date date) {
+        if (!isFitted()) {
+            return -1;
+        }
+        return Math.round(intercept + kmPerDay * epochDay(date));
+    }
+
+    /**
+     * Estimates the first day the vehicle reaches a mileage, counted from
+     * 1970-01-01.
+     *
+     * @return The day, possibly in the past, or Long.MIN_VALUE if the rate
+     *         is not fitted or the day is out of range
+     */
+    public long dayReaching(int mileage) {
+        if (!isFitted()) {
+            return Long.MIN_VALUE;
+        }
+        double day = Math.ceil((mileage - intercept) / kmPerDay);
+        if (day < 0 || day > MAX_DAY) {
+            return Long.MIN_VALUE;
+        }
+        return (long) day;
+    }
+
+    /**
+     * Counts the days from 1970-01-01 to the local calendar day of a date.
+     */
+    public static long epochDay(Date date) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(date);
+        return LocalDate.of(cal.get(Calendar.YEAR), cal.get(Calendar.MONTH) + 1,
+                cal.get(Calendar.DAY_OF_MONTH)).toEpochDay();
+    }
+}
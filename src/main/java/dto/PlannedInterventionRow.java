@@ -0,0 +1,92 @@
+package dto;
+
+import java.util.Date;
+
+/**
+ * Read-only dashboard row for a planned intervention.
+ * Holds only the displayed values, so the dashboard does not keep vehicle,
+ * owner and registration entities alive between refreshes.
+ */
+public final class PlannedInterventionRow {
+
+    private final Long vehicleId;
+    private final Long maintenanceTypeId;
+    private final int priority;
+    private final long plannedDate;
+    private final String interventionName;
+    private final String ownerName;
+    private final String ownerPhone;
+    private final String ownerEmail;
+    private final String vehicleLabel;
+    private final String reason;
+
+    public PlannedInterventionRow(Long vehicleId, Long maintenanceTypeId, int priority, Date plannedDate,
+            String interventionName, String ownerName, String ownerPhone, String ownerEmail,
+            String vehicleLabel, String reason) {
+        this.vehicleId = vehicleId;
+        this.maintenanceTypeId = maintenanceTypeId;
+        this.priority = priority;
+        this.plannedDate = plannedDate != null ? plannedDate.getTime() : Long.MIN_VALUE;
+        this.interventionName = interventionName;
+        this.ownerName = ownerName;
+        this.ownerPhone = ownerPhone;
+        this.ownerEmail = ownerEmail;
+        this.vehicleLabel = vehicleLabel;
+        this.reason = reason;
+    }
+
+    public Long getVehicleId() {
+        return vehicleId;
+    }
+
+    public Long getMaintenanceTypeId() {
+        return maintenanceTypeId;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Gets the planned date.
+     *
+     * @return A copy of the date, or null if unknown
+     */
+    public Date getPlannedDate() {
+        return plannedDate != Long.MIN_VALUE ? new Date(plannedDate) : null;
+    }
+
+    public String getInterventionName() {
+        return interventionName;
+    }
+
+    public String getOwnerName() {
+        return ownerName;
+    }
+
+    public String getOwnerPhone() {
+        return ownerPhone;
+    }
+
+    public String getOwnerEmail() {
+        return ownerEmail;
+    }
+
+    public String getVehicleLabel() {
+        return vehicleLabel;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "PlannedInterventionRow{" +
+                "vehicleId=" + vehicleId +
+                ", interventionName='" + interventionName + '\'' +
+                ", priority=" + priority +
+                ", plannedDate=" + getPlannedDate() +
+                '}';
+    }
+}
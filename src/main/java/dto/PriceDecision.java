@@ -0,0 +1,189 @@
+package dto;
+
+import java.util.Date;
+
+/**
+ * Immutable trace of one price computation: the priced intervention type
+ * and vehicle, how the price was obtained and the result.
+ * A price comes from a pricing rule, from the fallback calculation (base
+ * price increased by power and fuel surcharges) or was entered by hand;
+ * a pricing rule is either specific to the vehicle type or shared by a
+ * group of vehicle types, the level of the rule telling which.
+ */
+public final class PriceDecision {
+
+    /**
+     * How the price was obtained.
+     */
+    public enum Source {
+        RULE, FALLBACK, MANUAL
+    }
+
+    /**
+     * Level of the pricing rule giving the price, most specific first.
+     */
+    public enum Level {
+        /** Pricing rule of the exact vehicle type. */
+        VEHICLE_TYPE,
+        /** Group pricing rule of the brand. */
+        BRAND,
+        /** Group pricing rule of the fuel type and a range of power. */
+        FUEL_TYPE_POWER,
+        /** Default price of the intervention type. */
+        INTERVENTION_TYPE
+    }
+
+    private final long time;
+    private final Long interventionId;
+    private final Long interventionTypeId;
+    private final String interventionName;
+    private final Long vehicleId;
+    private final Long vehicleTypeId;
+    private final String vehicleBrand;
+    private final String vehicleModel;
+    private final Source source;
+    private final Level level;
+    private final double basePrice;
+    private final double powerSurcharge;
+    private final double fuelSurcharge;
+    private final double price;
+
+    /**
+     * @param level          Level of the pricing rule, null for other sources
+     * @param basePrice      Fallback base price, 0 for other sources
+     * @param powerSurcharge Fallback surcharge for the power, as a fraction
+     *                       of the base price
+     * @param fuelSurcharge  Fallback surcharge for the fuel type, as a
+     *                       fraction of the base price
+     */
+    public PriceDecision(long time, Long interventionId, Long interventionTypeId, String interventionName,
+            Long vehicleId, Long vehicleTypeId, String vehicleBrand, String vehicleModel, Source source,
+            Level level, double basePrice, double powerSurcharge, double fuelSurcharge, double price) {
+        this.time = time;
+        this.interventionId = interventionId;
+        this.interventionTypeId = interventionTypeId;
+        this.interventionName = interventionName;
+        this.vehicleId = vehicleId;
+        this.vehicleTypeId = vehicleTypeId;
+        this.vehicleBrand = vehicleBrand;
+        this.vehicleModel = vehicleModel;
+        this.source = source;
+        this.level = level;
+        this.basePrice = basePrice;
+        this.powerSurcharge = powerSurcharge;
+        this.fuelSurcharge = fuelSurcharge;
+        this.price = price;
+    }
+
+    /**
+     * Copies the decision for the intervention saved with its price.
+     */
+    public PriceDecision withInterventionId(Long interventionId) {
+        return new PriceDecision(time, interventionId, interventionTypeId, interventionName, vehicleId,
+                vehicleTypeId, vehicleBrand, vehicleModel, source, level, basePrice, powerSurcharge, fuelSurcharge, price);
+    }
+
+    /**
+     * Gets the time of the computation.
+     *
+     * @return A copy of the date
+     */
+    public Date getDate() {
+        return new Date(time);
+    }
+
+    /**
+     * @return Milliseconds since 1970-01-01, as Date#getTime
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return The intervention, or null if it was not saved yet
+     */
+    public Long getInterventionId() {
+        return interventionId;
+    }
+
+    public Long getInterventionTypeId() {
+        return interventionTypeId;
+    }
+
+    public String getInterventionName() {
+        return interventionName;
+    }
+
+    public Long getVehicleId() {
+        return vehicleId;
+    }
+
+    public Long getVehicleTypeId() {
+        return vehicleTypeId;
+    }
+
+    public String getVehicleBrand() {
+        return vehicleBrand;
+    }
+
+    public String getVehicleModel() {
+        return vehicleModel;
+    }
+
+    /**
+     * @return Brand and model of the vehicle type, or null if the vehicle
+     *         has none
+     */
+    public String getVehicleType() {
+        return vehicleTypeId != null ? vehicleBrand + " " + vehicleModel : null;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    /**
+     * @return The level of the pricing rule, or null if the price does not
+     *         come from a pricing rule
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    public double getBasePrice() {
+        return basePrice;
+    }
+
+    public double getPowerSurcharge() {
+        return powerSurcharge;
+    }
+
+    public double getFuelSurcharge() {
+        return fuelSurcharge;
+    }
+
+    /**
+     * @return The multiplier applied to the base price by the fallback
+     *         calculation
+     */
+    public double getMultiplier() {
+        return 1.0 + powerSurcharge + fuelSurcharge;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    @Override
+    public String toString() {
+        return "PriceDecision{" +
+                "interventionId=" + interventionId +
+                ", interventionType='" + interventionName + '\'' +
+                ", vehicleType='" + getVehicleType() + '\'' +
+                ", source=" + source +
+                (source == Source.RULE ? ", level=" + level : "") +
+                (source == Source.FALLBACK ? ", basePrice=" + basePrice + ", multiplier=" + getMultiplier() : "") +
+                ", price=" + price +
+                '}';
+    }
+}
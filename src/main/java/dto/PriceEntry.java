@@ -0,0 +1,30 @@
+package dto;
+
+/**
+ * Read-only price of an intervention type on a vehicle type. Built directly
+ * by JPQL constructor expressions.
+ */
+public final class PriceEntry {
+
+    private final Long interventionTypeId;
+    private final Long vehicleTypeId;
+    private final double price;
+
+    public PriceEntry(Long interventionTypeId, Long vehicleTypeId, double price) {
+        this.interventionTypeId = interventionTypeId;
+        this.vehicleTypeId = vehicleTypeId;
+        this.price = price;
+    }
+
+    public Long getInterventionTypeId() {
+        return interventionTypeId;
+    }
+
+    public Long getVehicleTypeId() {
+        return vehicleTypeId;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+}
@@ -0,0 +1,101 @@
+package dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable price quote for several interventions: one priced line per
+ * intervention, in the requested order, and their total.
+ */
+public final class PriceQuote {
+
+    /**
+     * Price of one intervention type on one vehicle.
+     */
+    public static final class Line {
+
+        private final Long interventionTypeId;
+        private final String interventionName;
+        private final Long vehicleId;
+        private final Long vehicleTypeId;
+        private final double price;
+        private final PriceDecision.Level level;
+
+        /**
+         * @param level Level of the pricing rule giving the price, null if
+         *              it was estimated by the fallback calculation
+         */
+        public Line(Long interventionTypeId, String interventionName, Long vehicleId, Long vehicleTypeId,
+                double price, PriceDecision.Level level) {
+            this.interventionTypeId = interventionTypeId;
+            this.interventionName = interventionName;
+            this.vehicleId = vehicleId;
+            this.vehicleTypeId = vehicleTypeId;
+            this.price = price;
+            this.level = level;
+        }
+
+        public Long getInterventionTypeId() {
+            return interventionTypeId;
+        }
+
+        public String getInterventionName() {
+            return interventionName;
+        }
+
+        /**
+         * @return The vehicle, or null if it has no id yet
+         */
+        public Long getVehicleId() {
+            return vehicleId;
+        }
+
+        /**
+         * @return The vehicle type, or null if the vehicle has none
+         */
+        public Long getVehicleTypeId() {
+            return vehicleTypeId;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        /**
+         * @return true if the price comes from a pricing rule, false if it
+         *         was estimated by the fallback calculation
+         */
+        public boolean isExact() {
+            return level != null;
+        }
+
+        /**
+         * @return The level of the pricing rule giving the price, or null if
+         *         it was estimated by the fallback calculation
+         */
+        public PriceDecision.Level getLevel() {
+            return level;
+        }
+    }
+
+    private final List<Line> lines;
+    private final double total;
+
+    public PriceQuote(List<Line> lines) {
+        this.lines = Collections.unmodifiableList(new ArrayList<>(lines));
+        double sum = 0;
+        for (Line line : lines) {
+            sum += line.getPrice();
+        }
+        this.total = sum;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+}
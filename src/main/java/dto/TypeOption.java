@@ -0,0 +1,48 @@
+package dto;
+
+import java.util.Objects;
+
+/**
+ * Read-only id + label pair for type pickers.
+ * Built directly by JPQL constructor expressions, outside the persistence
+ * context.
+ */
+public final class TypeOption {
+
+    private final Long id;
+    private final String label;
+
+    public TypeOption(Long id, String label) {
+        this.id = id;
+        this.label = label;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TypeOption)) {
+            return false;
+        }
+        return Objects.equals(id, ((TypeOption) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
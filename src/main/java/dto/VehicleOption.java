@@ -0,0 +1,84 @@
+package dto;
+
+import java.util.Objects;
+
+/**
+ * Read-only vehicle entry for pickers: plate, brand/model and owner name.
+ * Built directly by a JPQL constructor expression, so no vehicle, owner or
+ * registration entity is loaded.
+ */
+public final class VehicleOption {
+
+    private final Long id;
+    private final String plate;
+    private final String brand;
+    private final String model;
+    private final String ownerName;
+
+    public VehicleOption(Long id, String plate, String brand, String model, String ownerName) {
+        this.id = id;
+        this.plate = plate;
+        this.brand = brand;
+        this.model = model;
+        this.ownerName = ownerName;
+    }
+
+    /**
+     * Constructor used by the JPQL projection.
+     */
+    public VehicleOption(Long id, String part1, int part2, String part3,
+            String brand, String model, String ownerFirstName, String ownerLastName) {
+        this(id, part1 + "-" + part2 + "-" + part3, brand, model, ownerFirstName + " " + ownerLastName);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the plate as displayed (e.g. AB-123-CD).
+     */
+    public String getPlate() {
+        return plate;
+    }
+
+    public String getBrand() {
+        return brand;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public String getOwnerName() {
+        return ownerName;
+    }
+
+    /**
+     * Gets the display label, e.g. "AB-123-CD | Renault Clio - Jean Dupont".
+     */
+    public String getLabel() {
+        return plate + " | " + brand + " " + model + " - " + ownerName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof VehicleOption)) {
+            return false;
+        }
+        return Objects.equals(id, ((VehicleOption) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return getLabel();
+    }
+}
@@ -0,0 +1,36 @@
+package dto;
+
+/**
+ * Read-only attributes of a vehicle type that group pricing rules match
+ * on. Built directly by JPQL constructor expressions.
+ */
+public final class VehicleTypeTraits {
+
+    private final Long id;
+    private final String brand;
+    private final String fuelType;
+    private final int power;
+
+    public VehicleTypeTraits(Long id, String brand, String fuelType, Integer power) {
+        this.id = id;
+        this.brand = brand;
+        this.fuelType = fuelType;
+        this.power = power != null ? power : 0;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getBrand() {
+        return brand;
+    }
+
+    public String getFuelType() {
+        return fuelType;
+    }
+
+    public int getPower() {
+        return power;
+    }
+}
@@ -0,0 +1,133 @@
+package entities;
+
+import jakarta.persistence.*;
+
+/**
+ * Surcharge of the fallback price calculation, applied to vehicle types
+ * without pricing rule for an intervention type.
+ * A rule matches either a range of power or a fuel type; the surcharges of
+ * all matching rules are added to 1 to give the multiplier of the base
+ * price.
+ */
+@Entity
+@Table(name = "FallbackPricingRule")
+public class FallbackPricingRule {
+
+    /**
+     * Vehicle type attribute a rule applies to.
+     */
+    public enum Attribute {
+        /** Power in a range [lowerBound, upperBound). */
+        POWER,
+        /** Fuel type equal to matchValue, ignoring case. */
+        FUEL_TYPE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "fallbackPricingRuleIdGenerator")
+    @TableGenerator(name = "fallbackPricingRuleIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "FallbackPricingRule", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "attribute", nullable = false, length = 20)
+    private Attribute attribute;
+
+    /** Lowest matching power, inclusive; null for no lower bound. */
+    @Column(name = "lowerBound")
+    private Integer lowerBound;
+
+    /** Highest matching power, exclusive; null for no upper bound. */
+    @Column(name = "upperBound")
+    private Integer upperBound;
+
+    /** Matching fuel type. */
+    @Column(name = "matchValue", length = 50)
+    private String matchValue;
+
+    /** Added to the multiplier of the base price, 0.1 for +10 %. */
+    @Column(name = "surcharge", nullable = false)
+    private double surcharge;
+
+    public FallbackPricingRule() {
+    }
+
+    /**
+     * Creates a rule on a range of power.
+     */
+    public static FallbackPricingRule power(Integer lowerBound, Integer upperBound, double surcharge) {
+        FallbackPricingRule rule = new FallbackPricingRule();
+        rule.attribute = Attribute.POWER;
+        rule.lowerBound = lowerBound;
+        rule.upperBound = upperBound;
+        rule.surcharge = surcharge;
+        return rule;
+    }
+
+    /**
+     * Creates a rule on a fuel type.
+     */
+    public static FallbackPricingRule fuelType(String fuelType, double surcharge) {
+        FallbackPricingRule rule = new FallbackPricingRule();
+        rule.attribute = Attribute.FUEL_TYPE;
+        rule.matchValue = fuelType;
+        rule.surcharge = surcharge;
+        return rule;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Attribute getAttribute() {
+        return attribute;
+    }
+
+    public void setAttribute(Attribute attribute) {
+        this.attribute = attribute;
+    }
+
+    public Integer getLowerBound() {
+        return lowerBound;
+    }
+
+    public void setLowerBound(Integer lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    public Integer getUpperBound() {
+        return upperBound;
+    }
+
+    public void setUpperBound(Integer upperBound) {
+        this.upperBound = upperBound;
+    }
+
+    public String getMatchValue() {
+        return matchValue;
+    }
+
+    public void setMatchValue(String matchValue) {
+        this.matchValue = matchValue;
+    }
+
+    public double getSurcharge() {
+        return surcharge;
+    }
+
+    public void setSurcharge(double surcharge) {
+        this.surcharge = surcharge;
+    }
+
+    @Override
+    public String toString() {
+        return "FallbackPricingRule{" +
+                "id=" + id +
+                ", attribute=" + attribute +
+                (attribute == Attribute.FUEL_TYPE
+                        ? ", matchValue='" + matchValue + '\''
+                        : ", lowerBound=" + lowerBound + ", upperBound=" + upperBound) +
+                ", surcharge=" + surcharge +
+                '}';
+    }
+}
@@ -0,0 +1,177 @@
+package entities;
+
+import jakarta.persistence.*;
+
+/**
+ * Price of an intervention type shared by a group of vehicle types: those
+ * of a brand, those of a fuel type within a range of power, or all of them.
+ * A Pricing rule of the exact vehicle type takes precedence, then the
+ * brand, then the fuel type and power, then the intervention type default.
+ */
+@Entity
+@Table(name = "GroupPricing",
+        indexes = @Index(name = "idx_group_pricing_type", columnList = "intervention_type_id"))
+public class GroupPricing {
+
+    /**
+     * Vehicle types a group price applies to.
+     */
+    public enum Scope {
+        /** Vehicle types of the brand, ignoring case. */
+        BRAND,
+        /**
+         * Vehicle types of the fuel type, ignoring case, with a power in
+         * [lowerPower, upperPower); a null fuel type matches any fuel type.
+         */
+        FUEL_TYPE_POWER,
+        /** All vehicle types. */
+        INTERVENTION_TYPE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "groupPricingIdGenerator")
+    @TableGenerator(name = "groupPricingIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "GroupPricing", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope", nullable = false, length = 20)
+    private Scope scope;
+
+    @ManyToOne
+    @JoinColumn(name = "intervention_type_id", nullable = false)
+    private InterventionType interventionType;
+
+    @Column(name = "brand", length = 100)
+    private String brand;
+
+    @Column(name = "fuelType", length = 100)
+    private String fuelType;
+
+    /** Lowest matching power, inclusive; null for no lower bound. */
+    @Column(name = "lowerPower")
+    private Integer lowerPower;
+
+    /** Highest matching power, exclusive; null for no upper bound. */
+    @Column(name = "upperPower")
+    private Integer upperPower;
+
+    @Column(name = "price", nullable = false)
+    private double price;
+
+    public GroupPricing() {
+    }
+
+    /**
+     * Creates the price of an intervention type on the vehicle types of a
+     * brand.
+     */
+    public static GroupPricing forBrand(InterventionType interventionType, String brand, double price) {
+        GroupPricing pricing = new GroupPricing(Scope.BRAND, interventionType, price);
+        pricing.brand = brand;
+        return pricing;
+    }
+
+    /**
+     * Creates the price of an intervention type on the vehicle types of a
+     * fuel type within a range of power.
+     *
+     * @param fuelType   The fuel type, or null for any
+     * @param lowerPower Lowest power, inclusive, or null
+     * @param upperPower Highest power, exclusive, or null
+     */
+    public static GroupPricing forFuelTypeAndPower(InterventionType interventionType, String fuelType,
+            Integer lowerPower, Integer upperPower, double price) {
+        GroupPricing pricing = new GroupPricing(Scope.FUEL_TYPE_POWER, interventionType, price);
+        pricing.fuelType = fuelType;
+        pricing.lowerPower = lowerPower;
+        pricing.upperPower = upperPower;
+        return pricing;
+    }
+
+    /**
+     * Creates the default price of an intervention type.
+     */
+    public static GroupPricing forInterventionType(InterventionType interventionType, double price) {
+        return new GroupPricing(Scope.INTERVENTION_TYPE, interventionType, price);
+    }
+
+    private GroupPricing(Scope scope, InterventionType interventionType, double price) {
+        this.scope = scope;
+        this.interventionType = interventionType;
+        this.price = price;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public void setScope(Scope scope) {
+        this.scope = scope;
+    }
+
+    public InterventionType getInterventionType() {
+        return interventionType;
+    }
+
+    public void setInterventionType(InterventionType interventionType) {
+        this.interventionType = interventionType;
+    }
+
+    public String getBrand() {
+        return brand;
+    }
+
+    public void setBrand(String brand) {
+        this.brand = brand;
+    }
+
+    public String getFuelType() {
+        return fuelType;
+    }
+
+    public void setFuelType(String fuelType) {
+        this.fuelType = fuelType;
+    }
+
+    public Integer getLowerPower() {
+        return lowerPower;
+    }
+
+    public void setLowerPower(Integer lowerPower) {
+        this.lowerPower = lowerPower;
+    }
+
+    public Integer getUpperPower() {
+        return upperPower;
+    }
+
+    public void setUpperPower(Integer upperPower) {
+        this.upperPower = upperPower;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public void setPrice(double price) {
+        this.price = price;
+    }
+
+    @Override
+    public String toString() {
+        return "GroupPricing{" +
+                "id=" + id +
+                ", scope=" + scope +
+                (scope == Scope.BRAND ? ", brand='" + brand + '\'' : "") +
+                (scope == Scope.FUEL_TYPE_POWER
+                        ? ", fuelType='" + fuelType + '\'' + ", lowerPower=" + lowerPower + ", upperPower=" + upperPower
+                        : "") +
+                ", price=" + price +
+                '}';
+    }
+}
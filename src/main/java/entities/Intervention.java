@@ -4,11 +4,21 @@ import jakarta.persistence.*;
 import java.util.*;
 
 @Entity
-@Table(name = "Intervention")
+@Table(name = "Intervention", uniqueConstraints = {
+        // One intervention of a type per vehicle and day (date is a DATE column)
+        @UniqueConstraint(name = "uk_intervention_vehicle_type_date",
+                columnNames = {"vehicleId", "interventionTypeId", "date"})
+}, indexes = {
+        // Vehicle history ordered by date
+        @Index(name = "idx_intervention_vehicle_date", columnList = "vehicleId, date"),
+        @Index(name = "idx_intervention_type", columnList = "interventionTypeId")
+})
 public class Intervention {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "interventionIdGenerator")
+    @TableGenerator(name = "interventionIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "Intervention", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -1,16 +1,22 @@
 package entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Inheritance(strategy = InheritanceType.JOINED)
 @Table(name = "InterventionType")
 public class InterventionType {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "interventionTypeIdGenerator")
+    @TableGenerator(name = "interventionTypeIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "InterventionType", allocationSize = 50)
     private Long id;
 
     @Column(name = "name", nullable = false, length = 100)
@@ -23,6 +29,8 @@ public class InterventionType {
     private List<Part> parts = new ArrayList<>();
     @OneToMany(mappedBy = "interventionType", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Pricing> pricing = new ArrayList<>();
+    @OneToMany(mappedBy = "interventionType", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    private List<GroupPricing> groupPricing = new ArrayList<>();
 
     public InterventionType() {
     }
@@ -0,0 +1,172 @@
+package entities;
+
+import jakarta.persistence.*;
+import java.util.*;
+
+/**
+ * Due state of a maintenance type on a vehicle: the last service and the
+ * next one, with its current priority.
+ * Derived from interventions, vehicle mileage and maintenance type limits,
+ * and kept up to date by services.MaintenanceDueService.
+ */
+@Entity
+@Table(name = "MaintenanceDue",
+        uniqueConstraints = @UniqueConstraint(name = "uk_maintenance_due_vehicle_type",
+                columnNames = {"vehicleId", "maintenanceTypeId"}),
+        indexes = {
+                // Dashboard: most urgent first, ties by vehicle then type
+                @Index(name = "idx_maintenance_due_priority",
+                        columnList = "priority DESC, vehicleId, maintenanceTypeId"),
+                // Window queries: due between two dates / within N km of the threshold
+                @Index(name = "idx_maintenance_due_next_date",
+                        columnList = "nextDueDate, vehicleId, maintenanceTypeId"),
+                @Index(name = "idx_maintenance_due_remaining",
+                        columnList = "remainingMileage, vehicleId, maintenanceTypeId"),
+                @Index(name = "idx_maintenance_due_type", columnList = "maintenanceTypeId")
+        })
+public class MaintenanceDue {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "maintenanceDueIdGenerator")
+    @TableGenerator(name = "maintenanceDueIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "MaintenanceDue", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "vehicleId", nullable = false)
+    private Vehicle vehicle;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "maintenanceTypeId", nullable = false)
+    private MaintenanceType maintenanceType;
+
+    /** Date of the last intervention of this type, null if never serviced. */
+    @Temporal(TemporalType.DATE)
+    @Column(name = "lastServiceDate")
+    private Date lastServiceDate;
+
+    /** Mileage at the last intervention of this type, null if never serviced. */
+    @Column(name = "lastServiceMileage")
+    private Integer lastServiceMileage;
+
+    @Temporal(TemporalType.DATE)
+    @Column(name = "nextDueDate", nullable = false)
+    private Date nextDueDate;
+
+    @Column(name = "nextDueMileage", nullable = false)
+    private int nextDueMileage;
+
+    /**
+     * Kilometres left before nextDueMileage, negative once exceeded.
+     * Null on rows written before the column existed, until re-evaluated.
+     */
+    @Column(name = "remainingMileage")
+    private Integer remainingMileage;
+
+    @Column(name = "priority", nullable = false)
+    private int priority;
+
+    @Column(name = "reason", length = 255)
+    private String reason;
+
+    /** Day the priority and reason were computed for. */
+    @Temporal(TemporalType.DATE)
+    @Column(name = "evaluatedOn", nullable = false)
+    private Date evaluatedOn;
+
+    public MaintenanceDue() {
+    }
+
+    public MaintenanceDue(Vehicle vehicle, MaintenanceType maintenanceType) {
+        this.vehicle = vehicle;
+        this.maintenanceType = maintenanceType;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Vehicle getVehicle() {
+        return vehicle;
+    }
+
+    public MaintenanceType getMaintenanceType() {
+        return maintenanceType;
+    }
+
+    public Date getLastServiceDate() {
+        return lastServiceDate;
+    }
+
+    public void setLastServiceDate(Date lastServiceDate) {
+        this.lastServiceDate = lastServiceDate;
+    }
+
+    public Integer getLastServiceMileage() {
+        return lastServiceMileage;
+    }
+
+    public void setLastServiceMileage(Integer lastServiceMileage) {
+        this.lastServiceMileage = lastServiceMileage;
+    }
+
+    public Date getNextDueDate() {
+        return nextDueDate;
+    }
+
+    public void setNextDueDate(Date nextDueDate) {
+        this.nextDueDate = nextDueDate;
+    }
+
+    public int getNextDueMileage() {
+        return nextDueMileage;
+    }
+
+    public void setNextDueMileage(int nextDueMileage) {
+        this.nextDueMileage = nextDueMileage;
+    }
+
+    public Integer getRemainingMileage() {
+        return remainingMileage;
+    }
+
+    public void setRemainingMileage(Integer remainingMileage) {
+        this.remainingMileage = remainingMileage;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public Date getEvaluatedOn() {
+        return evaluatedOn;
+    }
+
+    public void setEvaluatedOn(Date evaluatedOn) {
+        this.evaluatedOn = evaluatedOn;
+    }
+
+    @Override
+    public String toString() {
+        return "MaintenanceDue{" +
+                "id=" + id +
+                ", nextDueDate=" + nextDueDate +
+                ", nextDueMileage=" + nextDueMileage +
+                ", remainingMileage=" + remainingMileage +
+                ", priority=" + priority +
+                ", reason='" + reason + '\'' +
+                '}';
+    }
+}
@@ -1,6 +1,7 @@
 package entities;
 
 import jakarta.persistence.*;
+import java.util.*;
 
 /**
  * Represents a type of maintenance intervention.
@@ -17,6 +18,9 @@ public class MaintenanceType extends InterventionType {
     @Column(name = "maxDuration", nullable = false)
     private int maxDuration;
 
+    @OneToMany(mappedBy = "maintenanceType", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    private List<MaintenanceDue> maintenanceDue = new ArrayList<>();
+
     public MaintenanceType() {
         super();
     }
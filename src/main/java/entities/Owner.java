@@ -4,11 +4,15 @@ import jakarta.persistence.*;
 import java.util.*;
 
 @Entity
-@Table(name = "Owner")
+@Table(name = "Owner",
+        uniqueConstraints = @UniqueConstraint(name = "uk_owner_identity", columnNames = "ownerKey"),
+        indexes = @Index(name = "idx_owner_phone", columnList = "phoneNumber"))
 public class Owner {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "ownerIdGenerator")
+    @TableGenerator(name = "ownerIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "Owner", allocationSize = 50)
     private Long id;
 
     @Column(name = "firstName", nullable = false, length = 100)
@@ -23,6 +27,10 @@ public class Owner {
     @Column(name = "email", length = 100)
     private String email;
 
+    /** Normalized name + phone (see {@link #identityKey(String, String, String)}), kept in sync with them. */
+    @Column(name = "ownerKey", length = 220)
+    private String ownerKey;
+
     @OneToMany(mappedBy = "owner", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Vehicle> vehicles = new ArrayList<>();
 
@@ -35,6 +43,7 @@ public class Owner {
         this.lastName = lastName;
         this.phoneNumber = phoneNumber;
         this.email = email;
+        updateOwnerKey();
     }
 
     public Owner(String firstName, String lastName, String phoneNumber, String email, List<Vehicle> vehicles) {
@@ -43,9 +52,34 @@ public class Owner {
         this.phoneNumber = phoneNumber;
         this.email = email;
         this.vehicles = vehicles;
+        updateOwnerKey();
+    }
+
+    /**
+     * Builds the normalized identity of an owner used for uniqueness:
+     * trimmed lower-case names and trimmed phone number joined with "|".
+     * Owners without a phone number have no identity key and are never
+     * considered duplicates.
+     *
+     * @return The key, or null if phoneNumber is null
+     */
+    public static String identityKey(String firstName, String lastName, String phoneNumber) {
+        if (phoneNumber == null) {
+            return null;
+        }
+        return normalize(firstName) + "|" + normalize(lastName) + "|" + phoneNumber.trim();
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void updateOwnerKey() {
+        ownerKey = identityKey(firstName, lastName, phoneNumber);
     }
 
-    
     public Long getId() {
         return id;
     }
@@ -60,6 +94,7 @@ public class Owner {
 
     public void setFirstName(String firstName) {
         this.firstName = firstName;
+        updateOwnerKey();
     }
 
     public String getLastName() {
@@ -68,6 +103,7 @@ public class Owner {
 
     public void setLastName(String lastName) {
         this.lastName = lastName;
+        updateOwnerKey();
     }
 
     public String getPhoneNumber() {
@@ -76,6 +112,11 @@ public class Owner {
 
     public void setPhoneNumber(String phoneNumber) {
         this.phoneNumber = phoneNumber;
+        updateOwnerKey();
+    }
+
+    public String getOwnerKey() {
+        return ownerKey;
     }
 
     public String getEmail() {
@@ -1,13 +1,19 @@
 package entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "Part")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "Part", indexes = @Index(name = "idx_part_intervention_type", columnList = "interventionTypeId"))
 public class Part {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "partIdGenerator")
+    @TableGenerator(name = "partIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "Part", allocationSize = 50)
     private Long id;
 
     @ManyToOne
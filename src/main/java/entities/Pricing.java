@@ -1,13 +1,22 @@
 package entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "pricing")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "pricing",
+        uniqueConstraints = @UniqueConstraint(name = "uk_pricing_type_vehicle",
+                columnNames = {"intervention_type_id", "vehicle_type_id"}),
+        indexes = @Index(name = "idx_pricing_vehicle_type", columnList = "vehicle_type_id"))
 public class Pricing {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "pricingIdGenerator")
+    @TableGenerator(name = "pricingIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "Pricing", allocationSize = 50)
     private Long id;
 
     @Column(name = "price", nullable = false)
@@ -1,13 +1,17 @@
 package entities;
 
 import jakarta.persistence.*;
+import java.util.Locale;
 
 @Entity
-@Table(name = "Registration")
+@Table(name = "Registration",
+        uniqueConstraints = @UniqueConstraint(name = "uk_registration_plate", columnNames = "plateKey"))
 public class Registration {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "registrationIdGenerator")
+    @TableGenerator(name = "registrationIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "Registration", allocationSize = 50)
     private Long id;
 
     @Column(name = "part1", nullable = false, length = 2)
@@ -19,6 +23,10 @@ public class Registration {
     @Column(name = "part3", length = 2)
     private String part3;
 
+    /** Normalized plate (see {@link #plateKey(String, int, String)}), kept in sync with the parts. */
+    @Column(name = "plateKey", length = 16)
+    private String plateKey;
+
     @OneToOne(mappedBy = "registration")
     private Vehicle vehicle;
 
@@ -28,9 +36,31 @@ public class Registration {
         this.part1 = part1;
         this.part2 = part2;
         this.part3 = part3;
+        updatePlateKey();
+    }
+
+    /**
+     * Builds the normalized form of a plate used for lookups and uniqueness:
+     * upper-case letters and parts joined with dashes (e.g. "AB-123-CD").
+     *
+     * @param part1 First part (letters)
+     * @param part2 Middle part (digits)
+     * @param part3 Third part (letters), may be null
+     * @return The normalized plate
+     */
+    public static String plateKey(String part1, int part2, String part3) {
+        return normalize(part1) + "-" + part2 + "-" + normalize(part3);
+    }
 
+    private static String normalize(String part) {
+        return part == null ? "" : part.trim().toUpperCase(Locale.ROOT);
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void updatePlateKey() {
+        plateKey = plateKey(part1, part2, part3);
     }
-    
 
     public Long getId() {
         return id;
@@ -46,6 +76,7 @@ public class Registration {
 
     public void setPart1(String part1) {
         this.part1 = part1;
+        updatePlateKey();
     }
 
     public int getPart2() {
@@ -54,6 +85,11 @@ public class Registration {
 
     public void setPart2(int part2) {
         this.part2 = part2;
+        updatePlateKey();
+    }
+
+    public String getPlateKey() {
+        return plateKey;
     }
 
     public String getPart3() {
@@ -62,6 +98,7 @@ public class Registration {
 
     public void setPart3(String part3) {
         this.part3 = part3;
+        updatePlateKey();
     }
 
     @Override
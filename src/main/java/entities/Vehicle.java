@@ -4,11 +4,16 @@ import jakarta.persistence.*;
 import java.util.*;
 
 @Entity
-@Table(name = "Vehicle")
+@Table(name = "Vehicle", indexes = {
+        @Index(name = "idx_vehicle_type", columnList = "vehicleTypeId"),
+        @Index(name = "idx_vehicle_owner", columnList = "ownerId")
+})
 
 public class Vehicle {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "vehicleIdGenerator")
+    @TableGenerator(name = "vehicleIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "Vehicle", allocationSize = 50)
     private Long id;
 
     
@@ -35,6 +40,12 @@ public class Vehicle {
     @OneToMany(mappedBy = "vehicle", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Intervention> interventions = new ArrayList<>();
 
+    @OneToMany(mappedBy = "vehicle", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    private List<MaintenanceDue> maintenanceDue = new ArrayList<>();
+
+    @OneToMany(mappedBy = "vehicle", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    private List<VehicleMileageStats> mileageStats = new ArrayList<>();
+
     public Vehicle() {
     }
 
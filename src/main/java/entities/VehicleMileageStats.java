@@ -0,0 +1,113 @@
+package entities;
+
+import jakarta.persistence.*;
+
+/**
+ * Running sums of the (day, mileage) points recorded by the interventions of
+ * a vehicle, from which a least-squares mileage rate is fitted
+ * (see dto.MileageRate).
+ * Adding or removing a point updates the sums in constant time, so the rate
+ * never needs the full history. Days are counted from 1970-01-01; all sums
+ * are integers and stay exact through any number of updates.
+ */
+@Entity
+@Table(name = "VehicleMileageStats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_vehicle_mileage_stats_vehicle",
+                columnNames = "vehicleId"))
+public class VehicleMileageStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "vehicleMileageStatsIdGenerator")
+    @TableGenerator(name = "vehicleMileageStatsIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "VehicleMileageStats", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "vehicleId", nullable = false)
+    private Vehicle vehicle;
+
+    @Column(name = "points", nullable = false)
+    private int points;
+
+    @Column(name = "sumDays", nullable = false)
+    private long sumDays;
+
+    @Column(name = "sumMileage", nullable = false)
+    private long sumMileage;
+
+    @Column(name = "sumDaysSquared", nullable = false)
+    private long sumDaysSquared;
+
+    @Column(name = "sumDaysMileage", nullable = false)
+    private long sumDaysMileage;
+
+    public VehicleMileageStats() {
+    }
+
+    public VehicleMileageStats(Vehicle vehicle) {
+        this.vehicle = vehicle;
+    }
+
+    /**
+     * Adds a recorded mileage.
+     *
+     * @param day     Day of the reading, counted from 1970-01-01
+     * @param mileage The odometer reading
+     */
+    public void add(long day, int mileage) {
+        points++;
+        sumDays += day;
+        sumMileage += mileage;
+        sumDaysSquared += day * day;
+        sumDaysMileage += day * mileage;
+    }
+
+    /**
+     * Removes a mileage added before with the same values.
+     */
+    public void remove(long day, int mileage) {
+        points--;
+        sumDays -= day;
+        sumMileage -= mileage;
+        sumDaysSquared -= day * day;
+        sumDaysMileage -= day * mileage;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Vehicle getVehicle() {
+        return vehicle;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public long getSumDays() {
+        return sumDays;
+    }
+
+    public long getSumMileage() {
+        return sumMileage;
+    }
+
+    public long getSumDaysSquared() {
+        return sumDaysSquared;
+    }
+
+    public long getSumDaysMileage() {
+        return sumDaysMileage;
+    }
+
+    @Override
+    public String toString() {
+        return "VehicleMileageStats{" +
+                "id=" + id +
+                ", points=" + points +
+                ", sumDays=" + sumDays +
+                ", sumMileage=" + sumMileage +
+                '}';
+    }
+}
@@ -8,6 +8,7 @@ import utils.JPAUtil;
 import javax.swing.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Auto2i Application launcher.
@@ -26,8 +27,18 @@ public class Auto2iApplication {
         }
 
         
-        InterventionService interventionService = new InterventionService();
+        // -Dauto2i.urgency.parallelism=N evaluates the fleet on N threads; 0 keeps it sequential
+        int parallelism = Integer.getInteger("auto2i.urgency.parallelism", 0);
+        ForkJoinPool urgencyPool = parallelism > 0 ? new ForkJoinPool(parallelism) : null;
+        InterventionService interventionService = new InterventionService(urgencyPool);
         PriceService priceService = new PriceService();
+        priceService.start();
+        MaintenanceDueService maintenanceDueService = new MaintenanceDueService(urgencyPool);
+        maintenanceDueService.start();
+        DashboardSnapshotService dashboardSnapshotService = new DashboardSnapshotService(
+                interventionService, maintenanceDueService, 10,
+                Long.getLong("auto2i.dashboard.refreshSeconds", 60));
+        dashboardSnapshotService.start();
 
         
         SwingUtilities.invokeLater(() -> {
@@ -40,7 +51,7 @@ public class Auto2iApplication {
                 
                 DashboardController dashboardController = new DashboardController(
                         frame.getDashboardView(),
-                        interventionService);
+                        dashboardSnapshotService);
                 dashboardController.loadData();
 
                 
@@ -71,6 +82,9 @@ public class Auto2iApplication {
 
                         if (result == JOptionPane.YES_OPTION) {
                             
+                            dashboardSnapshotService.stop();
+                            maintenanceDueService.stop();
+                            priceService.stop();
                             JPAUtil.close();
                             System.exit(0);
                         }
@@ -91,6 +105,9 @@ public class Auto2iApplication {
                 e.printStackTrace();
 
                 
+                dashboardSnapshotService.stop();
+                maintenanceDueService.stop();
+                priceService.stop();
                 JPAUtil.close();
                 System.exit(1);
             }
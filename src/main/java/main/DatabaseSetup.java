@@ -4,8 +4,10 @@ import dao.*;
 import entities.*;
 import utils.JPAUtil;
 
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Database setup script.
@@ -107,23 +109,24 @@ public class DatabaseSetup {
         
         System.out.println("Creating vehicle parts...");
 
-        createPartIfNotExists(partDAO, mt1, "Engine");
-        createPartIfNotExists(partDAO, mt1, "Oil Filter");
-        createPartIfNotExists(partDAO, mt2, "Front Left Brake");
-        createPartIfNotExists(partDAO, mt2, "Front Right Brake");
-        createPartIfNotExists(partDAO, mt2, "Rear Left Brake");
-        createPartIfNotExists(partDAO, mt2, "Rear Right Brake");
-        createPartIfNotExists(partDAO, mt3, "Front Left Tire");
-        createPartIfNotExists(partDAO, mt3, "Front Right Tire");
-        createPartIfNotExists(partDAO, mt3, "Rear Left Tire");
-        createPartIfNotExists(partDAO, mt3, "Rear Right Tire");
-        createPartIfNotExists(partDAO, mt4, "Cooling System");
-        createPartIfNotExists(partDAO, mt5, "Air Filter");
-        createPartIfNotExists(partDAO, mt6, "Timing Belt");
-        createPartIfNotExists(partDAO, rt1, "Door Panel");
-        createPartIfNotExists(partDAO, rt2, "Side Mirror");
-        createPartIfNotExists(partDAO, rt4, "Windshield");
-        createPartIfNotExists(partDAO, rt5, "Battery");
+        createParts(partDAO, Arrays.asList(
+                new Part(mt1, "Engine"),
+                new Part(mt1, "Oil Filter"),
+                new Part(mt2, "Front Left Brake"),
+                new Part(mt2, "Front Right Brake"),
+                new Part(mt2, "Rear Left Brake"),
+                new Part(mt2, "Rear Right Brake"),
+                new Part(mt3, "Front Left Tire"),
+                new Part(mt3, "Front Right Tire"),
+                new Part(mt3, "Rear Left Tire"),
+                new Part(mt3, "Rear Right Tire"),
+                new Part(mt4, "Cooling System"),
+                new Part(mt5, "Air Filter"),
+                new Part(mt6, "Timing Belt"),
+                new Part(rt1, "Door Panel"),
+                new Part(rt2, "Side Mirror"),
+                new Part(rt4, "Windshield"),
+                new Part(rt5, "Battery")));
 
         System.out.println("✓ Parts created: 17");
 
@@ -229,10 +232,9 @@ public class DatabaseSetup {
         }
     }
 
-    private static void createPartIfNotExists(PartDAO dao, InterventionType type, String name) {
+    private static void createParts(PartDAO dao, List<Part> parts) {
         try {
-            Part part = new Part(type, name);
-            dao.create(part);
+            dao.saveAll(parts);
         } catch (Exception e) {
             
         }
@@ -0,0 +1,135 @@
+package services;
+
+import dto.DashboardSnapshot;
+import dto.DueForecast;
+import dto.PlannedInterventionRow;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Computes the dashboard rows and due-volume forecast off the UI thread.
+ * They are recomputed on a background thread at a fixed interval, when
+ * requested and each time {@link MaintenanceDueService} has written
+ * changes to the due table, and published as an
+ * immutable {@link DashboardSnapshot}. Readers always get the latest
+ * snapshot at once, even while a new one is being computed.
+ *
+ * Refresh requests are coalesced: while a run is queued, further requests
+ * join it, and requests made during a run queue a single follow-up run.
+ */
+public class DashboardSnapshotService {
+
+    /** Weeks covered by the due-volume forecast. */
+    public static final int FORECAST_WEEKS = 26;
+
+    private final InterventionService interventionService;
+    private final MaintenanceDueService maintenanceDueService;
+    private final AtomicInteger limit;
+    private final long intervalSeconds;
+    private final AtomicReference<DashboardSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private final List<Consumer<DashboardSnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "dashboard-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param interventionService   Service computing the rows
+     * @param maintenanceDueService Service keeping the due table the rows
+     *                              are read from up to date
+     * @param limit                 Number of rows kept in a snapshot, until
+     *                              more are requested
+     * @param intervalSeconds       Seconds between two scheduled refreshes
+     */
+    public DashboardSnapshotService(InterventionService interventionService,
+            MaintenanceDueService maintenanceDueService, int limit, long intervalSeconds) {
+        this.interventionService = interventionService;
+        this.maintenanceDueService = maintenanceDueService;
+        this.limit = new AtomicInteger(limit);
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    /**
+     * Computes a first snapshot in the background, then refreshes it every
+     * interval, on request and after changes of the due table.
+     */
+    public void start() {
+        maintenanceDueService.addListener(this::requestRefresh);
+        scheduler.scheduleWithFixedDelay(this::requestRefresh, 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Gets the latest snapshot.
+     *
+     * @return The snapshot, or null if none was computed yet
+     */
+    public DashboardSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Registers a consumer called, on the background thread, with each new
+     * snapshot.
+     */
+    public void addListener(Consumer<DashboardSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Asks for a new snapshot holding at least a number of rows, without
+     * waiting for it. Later snapshots hold as many rows too.
+     *
+     * @param limit Minimum number of rows kept in a snapshot
+     */
+    public void requestRefresh(int limit) {
+        this.limit.accumulateAndGet(limit, Math::max);
+        requestRefresh();
+    }
+
+    /**
+     * Asks for a new snapshot without waiting for it.
+     */
+    public void requestRefresh() {
+        if (queued.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::recompute);
+            } catch (RuntimeException re) {
+                // Stopped
+                queued.set(false);
+            }
+        }
+    }
+
+    private void recompute() {
+        // Requests from now on need a run that starts after this one
+        queued.set(false);
+        try {
+            // Read first: if the due table catches up meanwhile, its listener queues another run
+            boolean upToDate = maintenanceDueService.isUpToDate();
+            List<PlannedInterventionRow> rows = interventionService.getTopUrgentRows(limit.get());
+            DueForecast forecast = interventionService.getDueForecast(FORECAST_WEEKS, true);
+            DashboardSnapshot next = new DashboardSnapshot(rows, forecast, System.currentTimeMillis(), upToDate);
+            snapshot.set(next);
+            for (Consumer<DashboardSnapshot> listener : listeners) {
+                listener.accept(next);
+            }
+        } catch (RuntimeException re) {
+            // The previous snapshot stays published and only gets older
+            System.err.println("Could not refresh the dashboard: " + re.getMessage());
+        }
+    }
+}
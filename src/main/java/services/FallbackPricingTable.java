@@ -0,0 +1,117 @@
+package services;
+
+import entities.FallbackPricingRule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable decision table compiled from the fallback pricing rules.
+ * Power rules are flattened into sorted bounds splitting the power axis
+ * into brackets, each holding the sum of the surcharges of the rules
+ * covering it, and a power is resolved to its bracket by binary search.
+ * Fuel types are interned to ordinals, compared ignoring case, indexing
+ * their summed surcharges. A lookup allocates nothing.
+ */
+final class FallbackPricingTable {
+
+    // Lower bound of each bracket, the first one being Integer.MIN_VALUE
+    private final int[] powerBounds;
+    private final double[] powerSurcharges;
+    private final TreeMap<String, Integer> fuelOrdinals;
+    private final double[] fuelSurcharges;
+
+    private FallbackPricingTable(int[] powerBounds, double[] powerSurcharges,
+            TreeMap<String, Integer> fuelOrdinals, double[] fuelSurcharges) {
+        this.powerBounds = powerBounds;
+        this.powerSurcharges = powerSurcharges;
+        this.fuelOrdinals = fuelOrdinals;
+        this.fuelSurcharges = fuelSurcharges;
+    }
+
+    /**
+     * Gets the rules used until the FallbackPricingRule table is filled:
+     * +10 % above 100 hp, +30 % above 150 hp and +50 % above 200 hp; +20 %
+     * for electric, +15 % for hybrid and +5 % for diesel vehicles.
+     */
+    static List<FallbackPricingRule> defaultRules() {
+        List<FallbackPricingRule> rules = new ArrayList<>();
+        rules.add(FallbackPricingRule.power(101, 151, 0.1));
+        rules.add(FallbackPricingRule.power(151, 201, 0.3));
+        rules.add(FallbackPricingRule.power(201, null, 0.5));
+        rules.add(FallbackPricingRule.fuelType("Electric", 0.2));
+        rules.add(FallbackPricingRule.fuelType("Hybrid", 0.15));
+        rules.add(FallbackPricingRule.fuelType("Diesel", 0.05));
+        return rules;
+    }
+
+    /**
+     * Compiles rules into a table. Surcharges of rules matching the same
+     * power or fuel type add up.
+     */
+    static FallbackPricingTable compile(List<FallbackPricingRule> rules) {
+        TreeSet<Integer> bounds = new TreeSet<>();
+        bounds.add(Integer.MIN_VALUE);
+        TreeMap<String, Integer> fuelOrdinals = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (FallbackPricingRule rule : rules) {
+            if (rule.getAttribute() == FallbackPricingRule.Attribute.POWER) {
+                if (rule.getLowerBound() != null) {
+                    bounds.add(rule.getLowerBound());
+                }
+                if (rule.getUpperBound() != null) {
+                    bounds.add(rule.getUpperBound());
+                }
+            } else if (rule.getAttribute() == FallbackPricingRule.Attribute.FUEL_TYPE
+                    && rule.getMatchValue() != null) {
+                fuelOrdinals.putIfAbsent(rule.getMatchValue().trim(), fuelOrdinals.size());
+            }
+        }
+
+        int[] powerBounds = new int[bounds.size()];
+        int index = 0;
+        for (int bound : bounds) {
+            powerBounds[index++] = bound;
+        }
+        double[] powerSurcharges = new double[powerBounds.length];
+        double[] fuelSurcharges = new double[fuelOrdinals.size()];
+        for (FallbackPricingRule rule : rules) {
+            if (rule.getAttribute() == FallbackPricingRule.Attribute.POWER) {
+                // Brackets start at rule bounds, so a rule covers whole brackets
+                int from = rule.getLowerBound() != null ? Arrays.binarySearch(powerBounds, rule.getLowerBound()) : 0;
+                int to = rule.getUpperBound() != null
+                        ? Arrays.binarySearch(powerBounds, rule.getUpperBound())
+                        : powerBounds.length;
+                for (int bracket = from; bracket < to; bracket++) {
+                    powerSurcharges[bracket] += rule.getSurcharge();
+                }
+            } else if (rule.getAttribute() == FallbackPricingRule.Attribute.FUEL_TYPE
+                    && rule.getMatchValue() != null) {
+                fuelSurcharges[fuelOrdinals.get(rule.getMatchValue().trim())] += rule.getSurcharge();
+            }
+        }
+        return new FallbackPricingTable(powerBounds, powerSurcharges, fuelOrdinals, fuelSurcharges);
+    }
+
+    /**
+     * @return The surcharge for a power, as a fraction of the base price
+     */
+    double powerSurcharge(int power) {
+        int bracket = Arrays.binarySearch(powerBounds, power);
+        return powerSurcharges[bracket >= 0 ? bracket : -bracket - 2];
+    }
+
+    /**
+     * @param fuelType The fuel type, or null
+     * @return The surcharge for a fuel type, as a fraction of the base price
+     */
+    double fuelSurcharge(String fuelType) {
+        if (fuelType == null) {
+            return 0;
+        }
+        Integer ordinal = fuelOrdinals.get(fuelType);
+        return ordinal != null ? fuelSurcharges[ordinal] : 0;
+    }
+}
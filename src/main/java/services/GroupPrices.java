@@ -0,0 +1,163 @@
+package services;
+
+import dto.PriceDecision;
+import entities.GroupPricing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable group pricing rules, compiled per intervention type in order
+ * of precedence: brand rules, then fuel type and power rules, then the
+ * intervention type default, rules of the same level in the order they
+ * were saved. Intervention types are found by binary search in a sorted id
+ * array, and matching allocates nothing.
+ *
+ * Changes never modify the rules: they return a copy.
+ */
+final class GroupPrices {
+
+    static final GroupPrices EMPTY = new GroupPrices(new long[0], new Rule[0][]);
+
+    private static final class Rule {
+
+        final GroupPricing.Scope scope;
+        final String brand;
+        final String fuelType;
+        final long lowerPower;
+        final long upperPower;
+        final RulePrice price;
+
+        Rule(GroupPricing pricing) {
+            scope = pricing.getScope();
+            brand = pricing.getBrand();
+            fuelType = pricing.getFuelType();
+            lowerPower = pricing.getLowerPower() != null ? pricing.getLowerPower() : Long.MIN_VALUE;
+            upperPower = pricing.getUpperPower() != null ? pricing.getUpperPower() : Long.MAX_VALUE;
+            price = new RulePrice(pricing.getPrice(), level(scope));
+        }
+
+        boolean matches(String brand, String fuelType, int power) {
+            switch (scope) {
+                case BRAND:
+                    return this.brand != null && this.brand.equalsIgnoreCase(brand);
+                case FUEL_TYPE_POWER:
+                    return (this.fuelType == null || this.fuelType.equalsIgnoreCase(fuelType))
+                            && power >= lowerPower && power < upperPower;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    private final long[] interventionTypeIds;
+    private final Rule[][] rules;
+
+    private GroupPrices(long[] interventionTypeIds, Rule[][] rules) {
+        this.interventionTypeIds = interventionTypeIds;
+        this.rules = rules;
+    }
+
+    /**
+     * Compiles group pricing rules, given in id order.
+     */
+    static GroupPrices compile(List<GroupPricing> pricings) {
+        List<GroupPricing> sorted = new ArrayList<>(pricings);
+        sorted.sort(Comparator.comparingLong(pricing -> pricing.getInterventionType().getId()));
+        List<Long> ids = new ArrayList<>();
+        List<Rule[]> rules = new ArrayList<>();
+        int from = 0;
+        while (from < sorted.size()) {
+            long interventionTypeId = sorted.get(from).getInterventionType().getId();
+            int to = from + 1;
+            while (to < sorted.size() && sorted.get(to).getInterventionType().getId() == interventionTypeId) {
+                to++;
+            }
+            ids.add(interventionTypeId);
+            rules.add(rulesOf(sorted.subList(from, to)));
+            from = to;
+        }
+
+        long[] interventionTypeIds = new long[ids.size()];
+        for (int i = 0; i < interventionTypeIds.length; i++) {
+            interventionTypeIds[i] = ids.get(i);
+        }
+        return new GroupPrices(interventionTypeIds, rules.toArray(new Rule[0][]));
+    }
+
+    /**
+     * Copies the rules with those of one intervention type replaced.
+     *
+     * @param pricings All rules of the intervention type, in id order
+     */
+    GroupPrices with(long interventionTypeId, List<GroupPricing> pricings) {
+        int index = Arrays.binarySearch(interventionTypeIds, interventionTypeId);
+        if (index >= 0) {
+            Rule[][] changed = rules.clone();
+            changed[index] = rulesOf(pricings);
+            return new GroupPrices(interventionTypeIds, changed);
+        }
+        if (pricings.isEmpty()) {
+            return this;
+        }
+        int at = -index - 1;
+        long[] ids = new long[interventionTypeIds.length + 1];
+        Rule[][] changed = new Rule[rules.length + 1][];
+        System.arraycopy(interventionTypeIds, 0, ids, 0, at);
+        System.arraycopy(rules, 0, changed, 0, at);
+        ids[at] = interventionTypeId;
+        changed[at] = rulesOf(pricings);
+        System.arraycopy(interventionTypeIds, at, ids, at + 1, interventionTypeIds.length - at);
+        System.arraycopy(rules, at, changed, at + 1, rules.length - at);
+        return new GroupPrices(ids, changed);
+    }
+
+    /**
+     * Gets the group price of an intervention type on a vehicle type.
+     *
+     * @return The price of the first matching rule, or null if none matches
+     */
+    RulePrice resolve(long interventionTypeId, String brand, String fuelType, int power) {
+        int index = Arrays.binarySearch(interventionTypeIds, interventionTypeId);
+        if (index < 0) {
+            return null;
+        }
+        for (Rule rule : rules[index]) {
+            if (rule.matches(brand, fuelType, power)) {
+                return rule.price;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The intervention types having rules, sorted; not to be
+     *         modified
+     */
+    long[] interventionTypeIds() {
+        return interventionTypeIds;
+    }
+
+    private static Rule[] rulesOf(List<GroupPricing> pricings) {
+        Rule[] compiled = new Rule[pricings.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = new Rule(pricings.get(i));
+        }
+        // Stable: rules of the same level keep their order
+        Arrays.sort(compiled, Comparator.comparingInt(rule -> rule.scope.ordinal()));
+        return compiled;
+    }
+
+    private static PriceDecision.Level level(GroupPricing.Scope scope) {
+        switch (scope) {
+            case BRAND:
+                return PriceDecision.Level.BRAND;
+            case FUEL_TYPE_POWER:
+                return PriceDecision.Level.FUEL_TYPE_POWER;
+            default:
+                return PriceDecision.Level.INTERVENTION_TYPE;
+        }
+    }
+}
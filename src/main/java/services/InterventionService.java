@@ -1,14 +1,25 @@
 package services;
 
 import dao.InterventionDAO;
+import dao.MaintenanceDueDAO;
 import dao.MaintenanceTypeDAO;
 import dao.VehicleDAO;
-import entities.Intervention;
+import dao.VehicleMileageStatsDAO;
+import dao.VehicleTypeDAO;
+import dto.DueForecast;
+import dto.LastIntervention;
+import dto.MileageRate;
+import dto.PlannedInterventionRow;
+import entities.MaintenanceDue;
 import entities.MaintenanceType;
 import entities.Vehicle;
+import entities.VehicleType;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service for managing interventions and calculating future maintenance
@@ -21,6 +32,40 @@ public class InterventionService {
     private final InterventionDAO interventionDAO = new InterventionDAO();
     private final MaintenanceTypeDAO maintenanceTypeDAO = new MaintenanceTypeDAO();
     private final VehicleDAO vehicleDAO = new VehicleDAO();
+    private final MaintenanceDueDAO maintenanceDueDAO = new MaintenanceDueDAO();
+    private final VehicleMileageStatsDAO vehicleMileageStatsDAO = new VehicleMileageStatsDAO();
+    private final VehicleTypeDAO vehicleTypeDAO = new VehicleTypeDAO();
+    private final ForkJoinPool pool;
+
+    /** Vehicles loaded and scored together when looking for urgent interventions. */
+    static final int VEHICLE_CHUNK = 500;
+
+    /**
+     * Most urgent first: highest priority, then lowest vehicle id, then
+     * lowest maintenance type id.
+     */
+    public static final Comparator<PlannedIntervention> URGENCY_ORDER =
+            Comparator.comparingInt(PlannedIntervention::getPriority).reversed()
+                    .thenComparing(p -> p.getVehicle().getId())
+                    .thenComparing(p -> p.getMaintenanceType().getId());
+
+    /**
+     * Creates a service scoring the fleet sequentially on the calling thread.
+     */
+    public InterventionService() {
+        this(null);
+    }
+
+    /**
+     * Creates a service scoring fleet partitions on a pool.
+     * Each running partition holds a database connection, so the pool
+     * parallelism should stay below the connection pool size (pool.maxSize).
+     *
+     * @param pool The pool, or null to score sequentially on the calling thread
+     */
+    public InterventionService(ForkJoinPool pool) {
+        this.pool = pool;
+    }
 
     /**
      * Represents a planned future intervention with priority information.
@@ -126,6 +171,17 @@ public class InterventionService {
             }
             return sb.toString();
         }
+
+        /**
+         * Copies the displayed values into a read-only dashboard row.
+         */
+        public PlannedInterventionRow toRow() {
+            return new PlannedInterventionRow(
+                    vehicle != null ? vehicle.getId() : null,
+                    maintenanceType != null ? maintenanceType.getId() : null,
+                    priority, plannedDate, getInterventionName(), getOwnerName(),
+                    getOwnerPhone(), getOwnerEmail(), getVehicleLabel(), reason);
+        }
     }
 
     /**
@@ -134,178 +190,346 @@ public class InterventionService {
      * - Time elapsed since last intervention of the same type vs maxDuration
      * - Mileage driven since last intervention vs maxMileage
      *
+     * Sequentially, vehicles are streamed in chunks of {@link #VEHICLE_CHUNK},
+     * with one query per chunk for their latest interventions, and only the
+     * best candidates so far are kept: memory does not grow with the fleet.
+     * Pairs are scored by {@link UrgencyScan} without allocating; reasons
+     * are written for the returned interventions only.
+     * With a pool, id-range partitions are loaded and scored in parallel and
+     * their best candidates merged. The urgency order is total, so both
+     * modes return the same list.
+     * The dashboard reads the maintenance due table instead (see
+     * {@link #getTopUrgentRows}); this computes the same list from scratch.
+     *
      * @param limit Maximum number of interventions to return
-     * @return List of planned interventions sorted by priority (highest first)
+     * @return List of planned interventions sorted by {@link #URGENCY_ORDER}
      */
     public List<PlannedIntervention> getTopUrgentInterventions(int limit) {
-        List<PlannedIntervention> allPlanned = new ArrayList<>();
-
-        
-        List<Vehicle> vehicles = vehicleDAO.findAll();
-        List<MaintenanceType> maintenanceTypes = maintenanceTypeDAO.findAll();
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
 
+        List<MaintenanceType> maintenanceTypes = new ArrayList<>(maintenanceTypeDAO.findAll());
+        maintenanceTypes.sort(Comparator.comparing(MaintenanceType::getId));
         Date today = new Date();
 
-        for (Vehicle vehicle : vehicles) {
-            
-            List<Intervention> vehicleInterventions = interventionDAO.findByVehicle(vehicle);
+        if (pool == null) {
+            return topUrgentSequential(maintenanceTypes, today, limit);
+        }
+        long[] idRange = vehicleDAO.findIdRange();
+        if (idRange == null) {
+            return new ArrayList<>();
+        }
+        return pool.invoke(new PartitionTask(idRange[0], idRange[1], maintenanceTypes, today, limit)).top();
+    }
 
-            for (MaintenanceType mt : maintenanceTypes) {
-                PlannedIntervention planned = calculatePlannedIntervention(
-                        vehicle, mt, vehicleInterventions, today);
+    private List<PlannedIntervention> topUrgentSequential(List<MaintenanceType> maintenanceTypes, Date today,
+            int limit) {
+        UrgencyScan scan = new UrgencyScan(maintenanceTypes, today, limit);
+        List<Vehicle> chunk = new ArrayList<>(VEHICLE_CHUNK);
+        List<Long> vehicleIds = new ArrayList<>(VEHICLE_CHUNK);
+        try (Stream<Vehicle> vehicles = vehicleDAO.stream(VEHICLE_CHUNK, VEHICLE_CHUNK)) {
+            Iterator<Vehicle> it = vehicles.iterator();
+            while (it.hasNext()) {
+                chunk.add(it.next());
+                if (chunk.size() == VEHICLE_CHUNK || !it.hasNext()) {
+                    scoreChunk(scan, chunk, vehicleIds);
+                    chunk.clear();
+                }
+            }
+        }
+        return scan.top();
+    }
+
+    /**
+     * Scores the vehicles of an id range. Ranges wider than
+     * {@link #VEHICLE_CHUNK} ids are split in two. A leaf range is loaded
+     * with its associations; each of its queries uses its own
+     * EntityManager, so workers share none.
+     */
+    private class PartitionTask extends RecursiveTask<UrgencyScan> {
+
+        private final long fromId;
+        private final long toId;
+        private final List<MaintenanceType> maintenanceTypes;
+        private final Date today;
+        private final int limit;
+
+        PartitionTask(long fromId, long toId, List<MaintenanceType> maintenanceTypes, Date today, int limit) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.maintenanceTypes = maintenanceTypes;
+            this.today = today;
+            this.limit = limit;
+        }
 
-                if (planned != null && planned.getPriority() > 0) {
-                    allPlanned.add(planned);
+        @Override
+        protected UrgencyScan compute() {
+            if (toId - fromId < VEHICLE_CHUNK) {
+                UrgencyScan scan = new UrgencyScan(maintenanceTypes, today, limit);
+                List<Vehicle> vehicles = vehicleDAO.findByIdRange(fromId, toId);
+                if (!vehicles.isEmpty()) {
+                    scoreChunk(scan, vehicles, new ArrayList<>(vehicles.size()));
                 }
+                return scan;
             }
+
+            long middle = fromId + (toId - fromId) / 2;
+            PartitionTask lower = new PartitionTask(fromId, middle, maintenanceTypes, today, limit);
+            PartitionTask upper = new PartitionTask(middle + 1, toId, maintenanceTypes, today, limit);
+            lower.fork();
+            UrgencyScan upperScan = upper.compute();
+            UrgencyScan lowerScan = lower.join();
+            lowerScan.addAll(upperScan);
+            return lowerScan;
         }
+    }
 
-        
-        return allPlanned.stream()
-                .sorted((a, b) -> Integer.compare(b.getPriority(), a.getPriority()))
-                .limit(limit)
-                .collect(Collectors.toList());
+    /**
+     * Loads the latest interventions and mileage rates of a chunk of
+     * vehicles, in one query each, and scores all its pairs.
+     *
+     * @param vehicleIds Reused list receiving the ids of the chunk
+     */
+    private void scoreChunk(UrgencyScan scan, List<Vehicle> chunk, List<Long> vehicleIds) {
+        vehicleIds.clear();
+        for (int i = 0; i < chunk.size(); i++) {
+            vehicleIds.add(chunk.get(i).getId());
+        }
+        scan.scoreChunk(chunk, interventionDAO.findLastByVehicleAndType(vehicleIds),
+                vehicleMileageStatsDAO.findRates(vehicleIds));
     }
 
     /**
-     * Calculates if a planned intervention is needed for a specific vehicle and
-     * maintenance type.
+     * Gets the most urgent planned interventions as dashboard rows.
+     * Read from the maintenance due table kept up to date by
+     * {@link MaintenanceDueService}, with one indexed query.
+     *
+     * @param limit Maximum number of rows to return
+     * @return Rows sorted by {@link #URGENCY_ORDER}
      */
-    private PlannedIntervention calculatePlannedIntervention(Vehicle vehicle,
-            MaintenanceType maintenanceType,
-            List<Intervention> interventions,
-            Date today) {
-        
-        Intervention lastIntervention = interventions.stream()
-                .filter(i -> i.getInterventionType() != null
-                        && i.getInterventionType().getId().equals(maintenanceType.getId()))
-                .max(Comparator.comparing(Intervention::getDate))
-                .orElse(null);
-
-        int currentMileage = vehicle.getLastMileage();
-        int maxMileage = maintenanceType.getMaxMileage();
-        int maxDurationMonths = maintenanceType.getMaxDuration();
-
-        int priority = 0;
-        StringBuilder reason = new StringBuilder();
-        Date plannedDate = today;
+    public List<PlannedInterventionRow> getTopUrgentRows(int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        return toRows(maintenanceDueDAO.findMostUrgent(limit));
+    }
 
-        if (lastIntervention == null) {
-            
-            Date baseDate = vehicle.getDateOfFirstRegistration();
-            if (baseDate == null) {
-                baseDate = today;
-            }
+    /**
+     * Gets the maintenance coming due between two days, from the
+     * maintenance due table.
+     *
+     * @param from  First day, inclusive
+     * @param to    Last day, inclusive
+     * @param limit Maximum number of rows
+     * @return Rows by next due date, earliest first
+     */
+    public List<PlannedInterventionRow> getDueBetween(Date from, Date to, int limit) {
+        if (limit <= 0 || from.after(to)) {
+            return new ArrayList<>();
+        }
+        return toRows(maintenanceDueDAO.findDueBetween(from, to, limit));
+    }
 
-            
-            Calendar cal = Calendar.getInstance();
-            cal.setTime(baseDate);
-            cal.add(Calendar.MONTH, maxDurationMonths);
-            plannedDate = cal.getTime();
-
-            
-            if (plannedDate.before(today)) {
-                long daysOverdue = (today.getTime() - plannedDate.getTime()) / (1000 * 60 * 60 * 24);
-                priority += Math.min(5, (int) (daysOverdue / 30)); 
-                reason.append("Overdue by ").append(daysOverdue).append(" days. ");
-            } else {
-                
-                long daysUntil = (plannedDate.getTime() - today.getTime()) / (1000 * 60 * 60 * 24);
-                if (daysUntil <= 30) {
-                    priority += 2; 
-                    reason.append("Due in ").append(daysUntil).append(" days. ");
-                } else if (daysUntil <= 90) {
-                    priority += 1; 
-                    reason.append("Due in ").append(daysUntil).append(" days. ");
-                }
-            }
+    /**
+     * Gets the maintenance within a distance of its mileage threshold,
+     * including the maintenance whose threshold is already exceeded.
+     *
+     * @param km    Remaining kilometres at most
+     * @param limit Maximum number of rows
+     * @return Rows by remaining kilometres, closest (or most exceeded) first
+     */
+    public List<PlannedInterventionRow> getNearMileageLimit(int km, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        return toRows(maintenanceDueDAO.findByRemainingMileage(Integer.MIN_VALUE, km, limit));
+    }
 
-            
-            
-            if (currentMileage >= maxMileage) {
-                priority += 3; 
-                reason.append("Mileage exceeded (").append(currentMileage).append("/").append(maxMileage)
-                        .append(" km). ");
-            } else if (currentMileage >= maxMileage * 0.9) {
-                priority += 2; 
-                reason.append("Near mileage limit (").append(currentMileage).append("/").append(maxMileage)
-                        .append(" km). ");
-            }
+    /**
+     * Counts the maintenance jobs falling due per week and maintenance type
+     * over the coming weeks, in one streaming pass over the maintenance due
+     * table with primitive counters.
+     *
+     * Besides the next due date of each vehicle and maintenance type, the
+     * following services falling in the period are projected, assuming each
+     * job is done on its due date (late jobs today): the next one is due
+     * after the duration limit or, sooner, after the mileage limit at the
+     * vehicle's mileage rate.
+     *
+     * @param weeks         Number of weeks, the current one first
+     * @param byVehicleType true to break the counts down by vehicle type
+     * @return The counts
+     */
+    public DueForecast getDueForecast(int weeks, boolean byVehicleType) {
+        if (weeks <= 0) {
+            throw new IllegalArgumentException("Number of weeks must be positive: " + weeks);
+        }
+        TimeZone zone = TimeZone.getDefault();
+        long now = System.currentTimeMillis();
+        long today = UrgencyScan.epochDay(zone, now);
+        // 1970-01-01 was a Thursday
+        long firstDay = today - Math.floorMod(today + 3, 7);
+        long endDay = firstDay + 7L * weeks;
+
+        List<MaintenanceType> maintenanceTypes = new ArrayList<>(maintenanceTypeDAO.findAll());
+        maintenanceTypes.sort(Comparator.comparing(MaintenanceType::getId));
+        int types = maintenanceTypes.size();
+        long[] typeIds = new long[types];
+        int[] maxMileage = new int[types];
+        int[] maxDuration = new int[types];
+        List<Long> maintenanceTypeIds = new ArrayList<>();
+        List<String> maintenanceTypeNames = new ArrayList<>();
+        for (int i = 0; i < types; i++) {
+            MaintenanceType mt = maintenanceTypes.get(i);
+            typeIds[i] = mt.getId();
+            maxMileage[i] = mt.getMaxMileage();
+            maxDuration[i] = mt.getMaxDuration();
+            maintenanceTypeIds.add(mt.getId());
+            maintenanceTypeNames.add(mt.getName());
+        }
 
+        // Vehicles without a type go to a spare last group, dropped if unused
+        List<Long> vehicleTypeIds = new ArrayList<>();
+        List<String> vehicleTypeLabels = new ArrayList<>();
+        long[] groupIds;
+        if (byVehicleType) {
+            List<VehicleType> vehicleTypes = new ArrayList<>(vehicleTypeDAO.findAll());
+            vehicleTypes.sort(Comparator.comparing(VehicleType::getId));
+            groupIds = new long[vehicleTypes.size()];
+            for (int i = 0; i < groupIds.length; i++) {
+                VehicleType vt = vehicleTypes.get(i);
+                groupIds[i] = vt.getId();
+                vehicleTypeIds.add(vt.getId());
+                vehicleTypeLabels.add(vt.getBrand() + " " + vt.getModel());
+            }
         } else {
-            
-            Date lastDate = lastIntervention.getDate();
-            int lastMileage = lastIntervention.getVehicleMileage();
-
-            
-            Calendar cal = Calendar.getInstance();
-            cal.setTime(lastDate);
-            cal.add(Calendar.MONTH, maxDurationMonths);
-            plannedDate = cal.getTime();
-
-            
-            if (plannedDate.before(today)) {
-                long daysOverdue = (today.getTime() - plannedDate.getTime()) / (1000 * 60 * 60 * 24);
-                priority += Math.min(5, (int) (daysOverdue / 30) + 2); 
-                reason.append("Overdue by ").append(daysOverdue).append(" days. ");
-            } else {
-                long daysUntil = (plannedDate.getTime() - today.getTime()) / (1000 * 60 * 60 * 24);
-                if (daysUntil <= 30) {
-                    priority += 2;
-                    reason.append("Due in ").append(daysUntil).append(" days. ");
-                } else if (daysUntil <= 90) {
-                    priority += 1;
-                    reason.append("Due in ").append(daysUntil).append(" days. ");
-                }
+            groupIds = new long[0];
+        }
+        int spare = groupIds.length;
+        int[] counts = new int[(spare + 1) * weeks * types];
+        int[] overdue = new int[(spare + 1) * types];
+
+        maintenanceDueDAO.forEachDueBefore(UrgencyScan.toDate(endDay), slot -> {
+            int type = Arrays.binarySearch(typeIds, slot.getMaintenanceTypeId());
+            if (type < 0) {
+                // Maintenance type created after findAll
+                return;
             }
-
-            
-            int mileageSinceLast = currentMileage - lastMileage;
-            if (mileageSinceLast >= maxMileage) {
-                priority += 3; 
-                reason.append("Mileage interval exceeded (").append(mileageSinceLast)
-                        .append("/").append(maxMileage).append(" km since last). ");
-            } else if (mileageSinceLast >= maxMileage * 0.9) {
-                priority += 2; 
-                reason.append("Near mileage interval (").append(mileageSinceLast)
-                        .append("/").append(maxMileage).append(" km since last). ");
-            } else if (mileageSinceLast >= maxMileage * 0.75) {
-                priority += 1;
-                reason.append("Approaching mileage interval (").append(mileageSinceLast)
-                        .append("/").append(maxMileage).append(" km since last). ");
+            int group = spare;
+            if (slot.getVehicleTypeId() != null) {
+                int found = Arrays.binarySearch(groupIds, slot.getVehicleTypeId());
+                group = found >= 0 ? found : spare;
             }
+            long day = UrgencyScan.epochDay(zone, slot.getNextDueTime());
+            if (day < today) {
+                overdue[group * types + type]++;
+                day = nextService(today, maxDuration[type], maxMileage[type], slot.getKmPerDay());
+            }
+            while (day < endDay) {
+                counts[(group * weeks + (int) ((day - firstDay) / 7)) * types + type]++;
+                day = nextService(day, maxDuration[type], maxMileage[type], slot.getKmPerDay());
+            }
+        });
+
+        int groups = spare + 1;
+        if (byVehicleType && isZero(counts, spare * weeks * types) && isZero(overdue, spare * types)) {
+            groups = spare;
+        } else {
+            vehicleTypeIds.add(null);
+            vehicleTypeLabels.add(byVehicleType ? "No vehicle type" : "All vehicles");
         }
+        return new DueForecast(UrgencyScan.toDate(firstDay), weeks, maintenanceTypeIds, maintenanceTypeNames,
+                vehicleTypeIds, vehicleTypeLabels, Arrays.copyOf(counts, groups * weeks * types),
+                Arrays.copyOf(overdue, groups * types), now);
+    }
 
-        
-        if (priority > 0) {
-            return new PlannedIntervention(vehicle, maintenanceType, plannedDate,
-                    priority, reason.toString().trim());
+    /**
+     * Projects the day a maintenance done on a day falls due again.
+     *
+     * @return The day, always after the given one, or Long.MAX_VALUE if
+     *         neither limit applies
+     */
+    private static long nextService(long day, int maxDurationMonths, int maxMileage, double kmPerDay) {
+        long next = maxDurationMonths > 0 ? UrgencyScan.plusMonths(day, maxDurationMonths) : Long.MAX_VALUE;
+        if (kmPerDay > 0 && maxMileage > 0) {
+            next = Math.min(next, day + Math.max(1, (long) Math.ceil(maxMileage / kmPerDay)));
+        }
+        return next;
+    }
+
+    private static boolean isZero(int[] values, int from) {
+        for (int i = from; i < values.length; i++) {
+            if (values[i] != 0) {
+                return false;
+            }
         }
+        return true;
+    }
+
+    private static List<PlannedInterventionRow> toRows(List<MaintenanceDue> dues) {
+        return dues.stream()
+                .map(due -> new PlannedIntervention(due.getVehicle(), due.getMaintenanceType(),
+                        due.getNextDueDate(), due.getPriority(), due.getReason()).toRow())
+                .collect(Collectors.toList());
+    }
 
-        return null;
+    /**
+     * Calculates the next intervention of a maintenance type on a vehicle
+     * and how urgent it is.
+     *
+     * The planned date is the earlier of the time limit and the day the
+     * mileage limit is projected to be reached at the vehicle's mileage rate.
+     *
+     * @param lastIntervention The latest intervention of that type on the
+     *                         vehicle, or null if there is none
+     * @param mileageRate      The mileage rate of the vehicle, or null if it
+     *                         has no recorded mileage
+     * @return The planned intervention; a priority of 0 means it is not due yet
+     */
+    static PlannedIntervention calculatePlannedIntervention(Vehicle vehicle,
+            MaintenanceType maintenanceType,
+            LastIntervention lastIntervention,
+            MileageRate mileageRate,
+            Date today) {
+        TimeZone zone = TimeZone.getDefault();
+        Date registration = vehicle.getDateOfFirstRegistration();
+        long todayDay = UrgencyScan.epochDay(zone, today.getTime());
+        StringBuilder reason = new StringBuilder();
+        long scored = UrgencyScan.score(todayDay, vehicle.getLastMileage(),
+                registration != null ? UrgencyScan.epochDay(zone, registration.getTime()) : todayDay,
+                lastIntervention != null ? UrgencyScan.epochDay(zone, lastIntervention.getTime()) : UrgencyScan.NONE,
+                lastIntervention != null ? lastIntervention.getVehicleMileage() : 0,
+                maintenanceType.getMaxMileage(), maintenanceType.getMaxDuration(), mileageRate, reason);
+        return new PlannedIntervention(vehicle, maintenanceType, UrgencyScan.toDate(UrgencyScan.plannedDay(scored)),
+                UrgencyScan.priority(scored), reason.toString().trim());
     }
 
     /**
-     * Gets all planned interventions for a specific vehicle.
+     * Gets all planned interventions for a specific vehicle, one per
+     * maintenance type, including those not due yet (priority 0).
+     * Reads the latest interventions of the vehicle in one query; the
+     * maintenance types come from the query cache.
      *
      * @param vehicle The vehicle to check
-     * @return List of planned interventions for the vehicle
+     * @return List of planned interventions for the vehicle, sorted by
+     *         {@link #URGENCY_ORDER}
      */
-    /*public List<PlannedIntervention> getPlannedInterventionsForVehicle(Vehicle vehicle) {
-        List<PlannedIntervention> planned = new ArrayList<>();
-        List<MaintenanceType> maintenanceTypes = maintenanceTypeDAO.findAll();
-        List<Intervention> vehicleInterventions = interventionDAO.findByVehicle(vehicle);
+    public List<PlannedIntervention> getPlannedInterventionsForVehicle(Vehicle vehicle) {
+        List<Long> vehicleIds = Collections.singletonList(vehicle.getId());
+        Map<Long, LastIntervention> lastByType = new HashMap<>();
+        for (LastIntervention last : interventionDAO.findLastByVehicleAndType(vehicleIds)) {
+            lastByType.put(last.getInterventionTypeId(), last);
+        }
+        List<MileageRate> rates = vehicleMileageStatsDAO.findRates(vehicleIds);
+        MileageRate rate = rates.isEmpty() ? null : rates.get(0);
         Date today = new Date();
 
-        for (MaintenanceType mt : maintenanceTypes) {
-            PlannedIntervention pi = calculatePlannedIntervention(vehicle, mt, vehicleInterventions, today);
-            if (pi != null) {
-                planned.add(pi);
-            }
+        List<PlannedIntervention> planned = new ArrayList<>();
+        for (MaintenanceType mt : maintenanceTypeDAO.findAll()) {
+            planned.add(calculatePlannedIntervention(vehicle, mt, lastByType.get(mt.getId()), rate, today));
         }
-
-        return planned.stream()
-                .sorted((a, b) -> Integer.compare(b.getPriority(), a.getPriority()))
-                .collect(Collectors.toList());
-    }*/
+        planned.sort(URGENCY_ORDER);
+        return planned;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,475 @@
+package services;
+
+import dao.InterventionDAO;
+import dao.MaintenanceDueDAO;
+import dao.MaintenanceInputs;
+import dao.MaintenanceTypeDAO;
+import dao.VehicleDAO;
+import dao.VehicleMileageStatsDAO;
+import dto.LastIntervention;
+import dto.MileageRate;
+import entities.MaintenanceDue;
+import entities.MaintenanceType;
+import entities.Vehicle;
+import services.InterventionService.PlannedIntervention;
+import utils.UnitOfWork;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the maintenance due table up to date.
+ * Rows are recomputed incrementally when interventions, vehicles or
+ * maintenance types change (see {@link MaintenanceInputs}), and all of them
+ * once a day so that time-based priorities follow the calendar. Mileage
+ * stats missing after an upgrade are rebuilt by the first pass after start.
+ * Scoring follows the same rules as {@link InterventionService}.
+ * Given a pool, whole-fleet passes evaluate vehicle id ranges in parallel.
+ *
+ * Nothing is evaluated on the thread that starts the service or publishes
+ * a change: the first pass runs on the service's own background thread,
+ * and changed vehicle and maintenance type ids are queued and drained
+ * there. Changes made while a drain is queued join it, and changes made
+ * during a drain queue a single follow-up drain.
+ */
+public class MaintenanceDueService implements MaintenanceInputs.Listener {
+
+    /** Vehicles evaluated per transaction. */
+    static final int VEHICLE_CHUNK = 500;
+
+    private final MaintenanceDueDAO maintenanceDueDAO = new MaintenanceDueDAO();
+    private final InterventionDAO interventionDAO = new InterventionDAO();
+    private final MaintenanceTypeDAO maintenanceTypeDAO = new MaintenanceTypeDAO();
+    private final VehicleDAO vehicleDAO = new VehicleDAO();
+    private final VehicleMileageStatsDAO vehicleMileageStatsDAO = new VehicleMileageStatsDAO();
+
+    private final ForkJoinPool pool;
+
+    private final Set<Long> pendingVehicleIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingMaintenanceTypeIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "maintenance-due");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean started;
+    private volatile boolean upToDate;
+
+    /**
+     * Creates a service evaluating the fleet sequentially.
+     */
+    public MaintenanceDueService() {
+        this(null);
+    }
+
+    /**
+     * Creates a service evaluating fleet partitions on a pool.
+     * Each running partition holds a database connection, so the pool
+     * parallelism should stay below the connection pool size (pool.maxSize).
+     *
+     * @param pool The pool, or null to evaluate sequentially
+     */
+    public MaintenanceDueService(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Starts listening to changes, then brings the table up to date in the
+     * background and checks every hour whether the day has changed.
+     * Returns at once; {@link #isUpToDate()} tells when the first pass is
+     * over. Call once, from the thread that starts the application.
+     */
+    public void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        MaintenanceInputs.addListener(this);
+        scheduler.execute(this::firstPass);
+        scheduler.scheduleAtFixedRate(this::dailyPass, 1, 1, TimeUnit.HOURS);
+    }
+
+    /**
+     * Stops listening to changes, drops the queued ones and cancels the
+     * daily pass.
+     */
+    public void stop() {
+        MaintenanceInputs.removeListener(this);
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Tells whether the table was brought up to date since
+     * {@link #start()}. Until then its rows may be missing or date from an
+     * earlier day.
+     */
+    public boolean isUpToDate() {
+        return upToDate;
+    }
+
+    /**
+     * Registers a task run on the background thread each time the first
+     * pass, queued changes or a daily pass have been written to the table,
+     * for readers of the table that must follow it.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Recomputes every row if some were computed on an earlier day, or if
+     * rows are missing (data written while no service was listening).
+     *
+     * @return true if the table was refreshed
+     */
+    public synchronized boolean refreshIfStale() {
+        long expected = vehicleDAO.count() * maintenanceTypeDAO.findAll().size();
+        if (maintenanceDueDAO.count() == expected
+                && maintenanceDueDAO.countEvaluatedBefore(startOfDay(new Date())) == 0) {
+            return false;
+        }
+        refreshAll();
+        return true;
+    }
+
+    /**
+     * Recomputes the rows of every vehicle and maintenance type.
+     */
+    public synchronized void refreshAll() {
+        evaluateFleet(maintenanceTypes());
+    }
+
+    /**
+     * Re-evaluates every maintenance type of the vehicle: besides the type
+     * of the intervention, its mileage changes the mileage rate of the vehicle.
+     */
+    @Override
+    public void interventionChanged(Long vehicleId, Long interventionTypeId) {
+        pendingVehicleIds.add(vehicleId);
+        requestDrain();
+    }
+
+    @Override
+    public void vehiclesChanged(Collection<Long> vehicleIds) {
+        pendingVehicleIds.addAll(vehicleIds);
+        requestDrain();
+    }
+
+    @Override
+    public void maintenanceTypeChanged(Long maintenanceTypeId) {
+        pendingMaintenanceTypeIds.add(maintenanceTypeId);
+        requestDrain();
+    }
+
+    private void requestDrain() {
+        if (queued.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::drain);
+            } catch (RuntimeException re) {
+                // Stopped
+                queued.set(false);
+            }
+        }
+    }
+
+    /**
+     * Evaluates the queued changes: the changed maintenance types on the
+     * whole fleet in one pass, then every maintenance type of the changed
+     * vehicles, one chunk per transaction.
+     */
+    private synchronized void drain() {
+        // Changes from now on need a drain that starts after this one
+        queued.set(false);
+        try {
+            List<MaintenanceType> changedTypes = new ArrayList<>();
+            for (Long maintenanceTypeId : take(pendingMaintenanceTypeIds)) {
+                MaintenanceType maintenanceType = findMaintenanceType(maintenanceTypeId);
+                if (maintenanceType != null) {
+                    changedTypes.add(maintenanceType);
+                }
+            }
+            if (!changedTypes.isEmpty()) {
+                evaluateFleet(changedTypes);
+            }
+
+            List<Long> vehicleIds = take(pendingVehicleIds);
+            if (!vehicleIds.isEmpty()) {
+                List<MaintenanceType> maintenanceTypes = maintenanceTypes();
+                for (int from = 0; from < vehicleIds.size(); from += VEHICLE_CHUNK) {
+                    evaluateVehicles(vehicleIds.subList(from, Math.min(vehicleIds.size(), from + VEHICLE_CHUNK)),
+                            maintenanceTypes);
+                }
+            }
+        } catch (RuntimeException re) {
+            // The changes are committed; the next daily pass catches up
+            System.err.println("Could not apply maintenance input changes: " + re.getMessage());
+        }
+        notifyListeners();
+    }
+
+    /**
+     * Removes and returns the ids queued so far, in id order.
+     */
+    private static List<Long> take(Set<Long> pending) {
+        List<Long> ids = new ArrayList<>();
+        for (Iterator<Long> it = pending.iterator(); it.hasNext(); ) {
+            ids.add(it.next());
+            it.remove();
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Rebuilds the mileage stats missing after an upgrade, then brings the
+     * table up to date.
+     */
+    private void firstPass() {
+        try {
+            if (vehicleMileageStatsDAO.rebuildIfIncomplete()) {
+                refreshAll();
+            } else {
+                refreshIfStale();
+            }
+            upToDate = true;
+        } catch (RuntimeException re) {
+            // The daily pass retries
+            System.err.println("Could not refresh maintenance due table: " + re.getMessage());
+        }
+        notifyListeners();
+    }
+
+    private void dailyPass() {
+        try {
+            boolean refreshed = refreshIfStale();
+            if (refreshed || !upToDate) {
+                upToDate = true;
+                notifyListeners();
+            }
+        } catch (RuntimeException re) {
+            // Keeps the schedule alive; the next pass retries
+            System.err.println("Could not refresh maintenance due table: " + re.getMessage());
+        }
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    private void evaluateVehicles(List<Long> vehicleIds, List<MaintenanceType> maintenanceTypes) {
+        try (UnitOfWork uow = UnitOfWork.begin()) {
+            evaluate(vehicleDAO.findByIds(vehicleIds), maintenanceTypes, new Date());
+            uow.commit();
+        }
+    }
+
+    /**
+     * Evaluates all vehicles, one chunk per transaction, on the pool if
+     * there is one.
+     */
+    private void evaluateFleet(List<MaintenanceType> maintenanceTypes) {
+        Date now = new Date();
+        if (pool != null) {
+            long[] idRange = vehicleDAO.findIdRange();
+            if (idRange != null) {
+                pool.invoke(new FleetPartition(idRange[0], idRange[1], maintenanceTypes, now));
+            }
+            return;
+        }
+        Long afterId = null;
+        while (true) {
+            List<Vehicle> vehicles;
+            try (UnitOfWork uow = UnitOfWork.begin()) {
+                vehicles = vehicleDAO.page(afterId, VEHICLE_CHUNK);
+                evaluate(vehicles, maintenanceTypes, now);
+                uow.commit();
+            }
+            if (vehicles.size() < VEHICLE_CHUNK) {
+                return;
+            }
+            afterId = vehicles.get(vehicles.size() - 1).getId();
+        }
+    }
+
+    /**
+     * Evaluates the vehicles of an id range. Ranges wider than
+     * {@link #VEHICLE_CHUNK} ids are split in two; a leaf range is loaded
+     * and written in its own unit of work, so each worker uses its own
+     * EntityManager and transaction.
+     */
+    private class FleetPartition extends RecursiveAction {
+
+        private final long fromId;
+        private final long toId;
+        private final List<MaintenanceType> maintenanceTypes;
+        private final Date now;
+
+        FleetPartition(long fromId, long toId, List<MaintenanceType> maintenanceTypes, Date now) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.maintenanceTypes = maintenanceTypes;
+            this.now = now;
+        }
+
+        @Override
+        protected void compute() {
+            if (toId - fromId < VEHICLE_CHUNK) {
+                try (UnitOfWork uow = UnitOfWork.begin()) {
+                    evaluate(vehicleDAO.findByIdRange(fromId, toId), maintenanceTypes, now);
+                    uow.commit();
+                }
+                return;
+            }
+            long middle = fromId + (toId - fromId) / 2;
+            invokeAll(new FleetPartition(fromId, middle, maintenanceTypes, now),
+                    new FleetPartition(middle + 1, toId, maintenanceTypes, now));
+        }
+    }
+
+    /**
+     * Updates or creates the rows of the given vehicles and maintenance
+     * types. Runs in the current unit of work; the vehicles must be managed
+     * by it.
+     *
+     * Each pair is scored on primitives by {@link UrgencyScan#score}. The
+     * reason is written, with the planned intervention, only for new rows
+     * and rows whose priority or due day changed; rows left as they were
+     * are only marked evaluated, with one statement for the whole chunk.
+     */
+    private void evaluate(List<Vehicle> vehicles, List<MaintenanceType> maintenanceTypes, Date now) {
+        if (vehicles.isEmpty() || maintenanceTypes.isEmpty()) {
+            return;
+        }
+        List<Long> vehicleIds = new ArrayList<>(vehicles.size());
+        for (Vehicle vehicle : vehicles) {
+            vehicleIds.add(vehicle.getId());
+        }
+        List<Long> maintenanceTypeIds = new ArrayList<>(maintenanceTypes.size());
+        for (MaintenanceType mt : maintenanceTypes) {
+            maintenanceTypeIds.add(mt.getId());
+        }
+
+        // vehicle id -> maintenance type id -> latest intervention / current row
+        Map<Long, Map<Long, LastIntervention>> lastByVehicle = new HashMap<>();
+        for (LastIntervention last : interventionDAO.findLastByVehicleAndType(vehicleIds)) {
+            lastByVehicle.computeIfAbsent(last.getVehicleId(), id -> new HashMap<>())
+                    .put(last.getInterventionTypeId(), last);
+        }
+        Map<Long, Map<Long, MaintenanceDue>> rowsByVehicle = new HashMap<>();
+        for (MaintenanceDue due : maintenanceDueDAO.findByVehicles(vehicleIds)) {
+            rowsByVehicle.computeIfAbsent(due.getVehicle().getId(), id -> new HashMap<>())
+                    .put(due.getMaintenanceType().getId(), due);
+        }
+        Map<Long, MileageRate> rates = new HashMap<>();
+        for (MileageRate rate : vehicleMileageStatsDAO.findRates(vehicleIds)) {
+            rates.put(rate.getVehicleId(), rate);
+        }
+
+        TimeZone zone = TimeZone.getDefault();
+        long today = UrgencyScan.epochDay(zone, now.getTime());
+        Date evaluatedOn = startOfDay(now);
+        UnitOfWork.execute(em -> {
+            // Before the changed rows are flushed with the same day
+            maintenanceDueDAO.setEvaluatedOn(vehicleIds, maintenanceTypeIds, evaluatedOn);
+            for (Vehicle vehicle : vehicles) {
+                Map<Long, LastIntervention> vehicleLast =
+                        lastByVehicle.getOrDefault(vehicle.getId(), Collections.emptyMap());
+                Map<Long, MaintenanceDue> vehicleRows =
+                        rowsByVehicle.getOrDefault(vehicle.getId(), Collections.emptyMap());
+                MileageRate rate = rates.get(vehicle.getId());
+                int currentMileage = vehicle.getLastMileage();
+                Date registration = vehicle.getDateOfFirstRegistration();
+                long registrationDay = registration != null ? UrgencyScan.epochDay(zone, registration.getTime()) : today;
+
+                for (MaintenanceType mt : maintenanceTypes) {
+                    LastIntervention last = vehicleLast.get(mt.getId());
+                    long lastDay = last != null ? UrgencyScan.epochDay(zone, last.getTime()) : UrgencyScan.NONE;
+                    int lastMileage = last != null ? last.getVehicleMileage() : 0;
+                    long scored = UrgencyScan.score(today, currentMileage, registrationDay, lastDay, lastMileage,
+                            mt.getMaxMileage(), mt.getMaxDuration(), rate, null);
+                    int nextDueMileage = lastMileage + mt.getMaxMileage();
+                    int remainingMileage = nextDueMileage - currentMileage;
+
+                    MaintenanceDue due = vehicleRows.get(mt.getId());
+                    boolean created = due == null;
+                    if (created) {
+                        due = new MaintenanceDue(vehicle, em.find(MaintenanceType.class, mt.getId()));
+                    }
+                    if (created || due.getPriority() != UrgencyScan.priority(scored)
+                            || UrgencyScan.epochDay(zone, due.getNextDueDate().getTime())
+                                    != UrgencyScan.plannedDay(scored)) {
+                        PlannedIntervention planned =
+                                InterventionService.calculatePlannedIntervention(vehicle, mt, last, rate, now);
+                        due.setNextDueDate(planned.getPlannedDate());
+                        due.setPriority(planned.getPriority());
+                        due.setReason(planned.getReason());
+                        due.setEvaluatedOn(evaluatedOn);
+                    }
+                    if (created || !sameDay(zone, due.getLastServiceDate(), lastDay)) {
+                        due.setLastServiceDate(last != null ? last.getDate() : null);
+                        due.setEvaluatedOn(evaluatedOn);
+                    }
+                    if (created || !sameMileage(due.getLastServiceMileage(), last != null, lastMileage)
+                            || due.getNextDueMileage() != nextDueMileage
+                            || !sameMileage(due.getRemainingMileage(), true, remainingMileage)) {
+                        due.setLastServiceMileage(last != null ? lastMileage : null);
+                        due.setNextDueMileage(nextDueMileage);
+                        due.setRemainingMileage(remainingMileage);
+                        due.setEvaluatedOn(evaluatedOn);
+                    }
+                    if (created) {
+                        maintenanceDueDAO.create(due);
+                    }
+                }
+            }
+        });
+    }
+
+    private static boolean sameDay(TimeZone zone, Date stored, long day) {
+        return stored == null ? day == UrgencyScan.NONE : UrgencyScan.epochDay(zone, stored.getTime()) == day;
+    }
+
+    private static boolean sameMileage(Integer stored, boolean present, int mileage) {
+        return stored == null ? !present : present && stored == mileage;
+    }
+
+    private List<MaintenanceType> maintenanceTypes() {
+        List<MaintenanceType> maintenanceTypes = new ArrayList<>(maintenanceTypeDAO.findAll());
+        maintenanceTypes.sort(Comparator.comparing(MaintenanceType::getId));
+        return maintenanceTypes;
+    }
+
+    /**
+     * @return The maintenance type, or null if the id belongs to another
+     *         kind of intervention type
+     */
+    private MaintenanceType findMaintenanceType(Long id) {
+        for (MaintenanceType maintenanceType : maintenanceTypeDAO.findAll()) {
+            if (maintenanceType.getId().equals(id)) {
+                return maintenanceType;
+            }
+        }
+        return null;
+    }
+
+    private static Date startOfDay(Date date) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(date);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        return cal.getTime();
+    }
+}
@@ -0,0 +1,259 @@
+package services;
+
+import dto.PriceDecision;
+import dto.PriceEntry;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable table of the prices of intervention types on vehicle types,
+ * each resolved once from the pricing rule of the exact vehicle type or
+ * else from the group pricing rules (see {@link GroupPrices}). Ids are
+ * mapped to dense row and column indices by binary search in sorted id
+ * arrays. Prices are held in one flat array where NaN means that no rule
+ * applies, and the level of the rule each price comes from in a parallel
+ * array of level ordinals. A lookup allocates nothing.
+ *
+ * Changes never modify a matrix: they return a copy, so readers keep using
+ * the matrix they hold while a new one is published. A change of group
+ * rules or of a vehicle type only resolves its row or column again.
+ */
+final class PriceMatrix {
+
+    /**
+     * Resolves the group price of a pair.
+     */
+    interface Resolver {
+
+        /**
+         * @return The price, or null if no group rule applies
+         */
+        RulePrice resolve(long interventionTypeId, long vehicleTypeId);
+    }
+
+    /** Price of a pair without rule. */
+    static final double NO_RULE = Double.NaN;
+
+    static final PriceMatrix EMPTY = new PriceMatrix(new long[0], new long[0], new double[0], new byte[0]);
+
+    private static final PriceDecision.Level[] LEVELS = PriceDecision.Level.values();
+    private static final byte EXACT = (byte) PriceDecision.Level.VEHICLE_TYPE.ordinal();
+
+    private final long[] interventionTypeIds;
+    private final long[] vehicleTypeIds;
+    // [intervention type][vehicle type], flattened
+    private final double[] prices;
+    // Level ordinal of each price, meaningless where there is no rule
+    private final byte[] levels;
+
+    private PriceMatrix(long[] interventionTypeIds, long[] vehicleTypeIds, double[] prices, byte[] levels) {
+        this.interventionTypeIds = interventionTypeIds;
+        this.vehicleTypeIds = vehicleTypeIds;
+        this.prices = prices;
+        this.levels = levels;
+    }
+
+    /**
+     * Builds a matrix holding the given prices of exact vehicle types.
+     */
+    static PriceMatrix of(List<PriceEntry> entries) {
+        return of(entries, new long[0], new long[0], (interventionTypeId, vehicleTypeId) -> null);
+    }
+
+    /**
+     * Builds a matrix holding the given prices of exact vehicle types and
+     * the group prices of every other pair.
+     *
+     * @param interventionTypeIds Intervention types to hold besides those
+     *                            of the entries
+     * @param vehicleTypeIds      Vehicle types to hold besides those of the
+     *                            entries
+     * @param groups              Resolves the pairs without exact price
+     */
+    static PriceMatrix of(List<PriceEntry> entries, long[] interventionTypeIds, long[] vehicleTypeIds,
+            Resolver groups) {
+        long[] rows = Arrays.copyOf(interventionTypeIds, interventionTypeIds.length + entries.size());
+        long[] columns = Arrays.copyOf(vehicleTypeIds, vehicleTypeIds.length + entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            rows[interventionTypeIds.length + i] = entries.get(i).getInterventionTypeId();
+            columns[vehicleTypeIds.length + i] = entries.get(i).getVehicleTypeId();
+        }
+        rows = distinctSorted(rows);
+        columns = distinctSorted(columns);
+
+        PriceMatrix matrix = new PriceMatrix(rows, columns, new double[rows.length * columns.length],
+                new byte[rows.length * columns.length]);
+        Arrays.fill(matrix.prices, NO_RULE);
+        for (PriceEntry entry : entries) {
+            int cell = matrix.cell(entry.getInterventionTypeId(), entry.getVehicleTypeId());
+            matrix.prices[cell] = entry.getPrice();
+            matrix.levels[cell] = EXACT;
+        }
+        for (int row = 0; row < rows.length; row++) {
+            for (int column = 0; column < columns.length; column++) {
+                matrix.resolve(row, column, groups);
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Gets the price of an intervention type on a vehicle type.
+     *
+     * @return The price, or {@link #NO_RULE} if no rule applies or the pair
+     *         is not held
+     */
+    double price(long interventionTypeId, long vehicleTypeId) {
+        int cell = find(interventionTypeId, vehicleTypeId);
+        return cell >= 0 ? prices[cell] : NO_RULE;
+    }
+
+    /**
+     * Gets the level of the rule giving the price of a pair.
+     *
+     * @return The level, or null if no rule applies or the pair is not held
+     */
+    PriceDecision.Level level(long interventionTypeId, long vehicleTypeId) {
+        int cell = find(interventionTypeId, vehicleTypeId);
+        return cell >= 0 && !Double.isNaN(prices[cell]) ? LEVELS[levels[cell]] : null;
+    }
+
+    /**
+     * Tells whether the prices of a vehicle type are held, in which case
+     * a pair missing from the matrix has no rule at any level.
+     */
+    boolean hasVehicleType(long vehicleTypeId) {
+        return Arrays.binarySearch(vehicleTypeIds, vehicleTypeId) >= 0;
+    }
+
+    /**
+     * Copies the matrix with one price changed.
+     *
+     * @param price The new price, or null if no rule applies
+     * @return The new matrix
+     */
+    PriceMatrix with(long interventionTypeId, long vehicleTypeId, RulePrice price) {
+        PriceMatrix changed = withRowAndColumn(interventionTypeId, vehicleTypeId);
+        changed.set(changed.cell(interventionTypeId, vehicleTypeId), price);
+        return changed;
+    }
+
+    /**
+     * Copies the matrix with the group prices of an intervention type
+     * resolved again; prices of exact vehicle types are kept.
+     */
+    PriceMatrix withInterventionType(long interventionTypeId, Resolver groups) {
+        PriceMatrix changed = withRowAndColumn(interventionTypeId, null);
+        int row = Arrays.binarySearch(changed.interventionTypeIds, interventionTypeId);
+        for (int column = 0; column < changed.vehicleTypeIds.length; column++) {
+            changed.resolve(row, column, groups);
+        }
+        return changed;
+    }
+
+    /**
+     * Copies the matrix with the group prices on a vehicle type resolved
+     * again; prices of the exact vehicle type are kept.
+     */
+    PriceMatrix withVehicleType(long vehicleTypeId, Resolver groups) {
+        PriceMatrix changed = withRowAndColumn(null, vehicleTypeId);
+        int column = Arrays.binarySearch(changed.vehicleTypeIds, vehicleTypeId);
+        for (int row = 0; row < changed.interventionTypeIds.length; row++) {
+            changed.resolve(row, column, groups);
+        }
+        return changed;
+    }
+
+    /**
+     * Counts the pairs having a price.
+     */
+    int size() {
+        int size = 0;
+        for (double price : prices) {
+            if (!Double.isNaN(price)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return The cell of a pair, or -1 if the pair is not held
+     */
+    private int find(long interventionTypeId, long vehicleTypeId) {
+        int row = Arrays.binarySearch(interventionTypeIds, interventionTypeId);
+        int column = Arrays.binarySearch(vehicleTypeIds, vehicleTypeId);
+        return row >= 0 && column >= 0 ? row * vehicleTypeIds.length + column : -1;
+    }
+
+    private int cell(long interventionTypeId, long vehicleTypeId) {
+        return Arrays.binarySearch(interventionTypeIds, interventionTypeId) * vehicleTypeIds.length +
+                Arrays.binarySearch(vehicleTypeIds, vehicleTypeId);
+    }
+
+    private void set(int cell, RulePrice price) {
+        prices[cell] = price != null ? price.price : NO_RULE;
+        levels[cell] = price != null ? (byte) price.level.ordinal() : 0;
+    }
+
+    private void resolve(int row, int column, Resolver groups) {
+        int cell = row * vehicleTypeIds.length + column;
+        if (Double.isNaN(prices[cell]) || levels[cell] != EXACT) {
+            set(cell, groups.resolve(interventionTypeIds[row], vehicleTypeIds[column]));
+        }
+    }
+
+    /**
+     * Copies the matrix, inserting a row or a column if needed.
+     *
+     * @param interventionTypeId Row to hold, or null
+     * @param vehicleTypeId      Column to hold, or null
+     * @return A copy free to modify before it is published
+     */
+    private PriceMatrix withRowAndColumn(Long interventionTypeId, Long vehicleTypeId) {
+        int row = interventionTypeId != null ? Arrays.binarySearch(interventionTypeIds, interventionTypeId) : 0;
+        int column = vehicleTypeId != null ? Arrays.binarySearch(vehicleTypeIds, vehicleTypeId) : 0;
+        if (row >= 0 && column >= 0) {
+            return new PriceMatrix(interventionTypeIds, vehicleTypeIds, prices.clone(), levels.clone());
+        }
+
+        // New intervention type or vehicle type: insert a row or column
+        long[] rows = row >= 0 ? interventionTypeIds : inserted(interventionTypeIds, -row - 1, interventionTypeId);
+        long[] columns = column >= 0 ? vehicleTypeIds : inserted(vehicleTypeIds, -column - 1, vehicleTypeId);
+        double[] changedPrices = new double[rows.length * columns.length];
+        byte[] changedLevels = new byte[rows.length * columns.length];
+        Arrays.fill(changedPrices, NO_RULE);
+        for (int r = 0; r < interventionTypeIds.length; r++) {
+            int newRow = row >= 0 || r < -row - 1 ? r : r + 1;
+            for (int c = 0; c < vehicleTypeIds.length; c++) {
+                int newColumn = column >= 0 || c < -column - 1 ? c : c + 1;
+                changedPrices[newRow * columns.length + newColumn] = prices[r * vehicleTypeIds.length + c];
+                changedLevels[newRow * columns.length + newColumn] = levels[r * vehicleTypeIds.length + c];
+            }
+        }
+        return new PriceMatrix(rows, columns, changedPrices, changedLevels);
+    }
+
+    private static long[] distinctSorted(long[] ids) {
+        if (ids.length == 0) {
+            return ids;
+        }
+        Arrays.sort(ids);
+        int distinct = 1;
+        for (int i = 1; i < ids.length; i++) {
+            if (ids[i] != ids[distinct - 1]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, distinct);
+    }
+
+    private static long[] inserted(long[] ids, int at, long id) {
+        long[] result = new long[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, at);
+        result[at] = id;
+        System.arraycopy(ids, at, result, at + 1, ids.length - at);
+        return result;
+    }
+}
@@ -1,11 +1,37 @@
 package services;
 
+import dao.FallbackPricingRuleDAO;
+import dao.GroupPricingDAO;
 import dao.PricingDAO;
+import dao.PricingInputs;
+import dao.VehicleTypeDAO;
+import dto.PriceDecision;
+import dto.PriceEntry;
+import dto.PriceQuote;
+import dto.VehicleTypeTraits;
+import entities.GroupPricing;
 import entities.Intervention;
 import entities.InterventionType;
 import entities.Pricing;
+import entities.Vehicle;
 import entities.VehicleType;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Service for calculating intervention prices.
  * 
@@ -14,107 +40,514 @@ import entities.VehicleType;
  * 2. The type of vehicle (Renault Clio, Tesla Model 3, etc.)
  * 
  * Prices are stored in the Pricing table which links InterventionType +
- * VehicleType to a price.
+ * VehicleType to a price. Without such a rule, the price comes from the
+ * GroupPricing table: the rule of the brand, else of the fuel type and
+ * power, else the default of the intervention type; the decision reports
+ * the level of the rule used.
+ *
+ * Once started, the service reads prices from an in-memory
+ * {@link PriceMatrix} where each pair is resolved once through those
+ * levels. After committed changes (see {@link PricingInputs}) it is
+ * replaced by a copy where only the affected pairs, intervention types or
+ * vehicle types are resolved again, so a lookup never queries the database.
+ * Changes are queued and applied on the service's own background thread,
+ * never on the thread that committed them; changes made while a drain is
+ * queued join it, and changes made during a drain queue a single follow-up
+ * drain. A lookup made right after a commit may see the previous price
+ * until the drain has run.
+ *
+ * Without pricing rule, the price is a base price increased by surcharges
+ * for the power and fuel type of the vehicle type, read from the
+ * FallbackPricingRule table and compiled into a {@link FallbackPricingTable}
+ * that is recompiled whenever those rules change.
  */
-public class PriceService {
+public class PriceService implements PricingInputs.Listener {
+
+    /**
+     * An intervention type and vehicle type whose price changed.
+     */
+    private static final class PricePair {
+
+        final long interventionTypeId;
+        final long vehicleTypeId;
+
+        PricePair(long interventionTypeId, long vehicleTypeId) {
+            this.interventionTypeId = interventionTypeId;
+            this.vehicleTypeId = vehicleTypeId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PricePair)) {
+                return false;
+            }
+            PricePair other = (PricePair) o;
+            return interventionTypeId == other.interventionTypeId && vehicleTypeId == other.vehicleTypeId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(interventionTypeId, vehicleTypeId);
+        }
+    }
 
     private final PricingDAO pricingDAO = new PricingDAO();
+    private final GroupPricingDAO groupPricingDAO = new GroupPricingDAO();
+    private final VehicleTypeDAO vehicleTypeDAO = new VehicleTypeDAO();
+    private final FallbackPricingRuleDAO fallbackPricingRuleDAO = new FallbackPricingRuleDAO();
+    private final AtomicReference<PriceMatrix> matrix = new AtomicReference<>();
+    private volatile GroupPrices groups = GroupPrices.EMPTY;
+    // Guarded by this; vehicle types the matrix was resolved with
+    private final Map<Long, VehicleTypeTraits> vehicleTypes = new HashMap<>();
+    private final AtomicReference<FallbackPricingTable> fallbackTable =
+            new AtomicReference<>(FallbackPricingTable.compile(FallbackPricingTable.defaultRules()));
+    private final PriceTrace trace;
+
+    private final Set<PricePair> pendingPrices = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingInterventionTypeIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingVehicleTypeIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pendingFallbackRules = new AtomicBoolean();
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "price-changes");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     
     private static final double DEFAULT_BASE_PRICE = 50.00;
 
+    /**
+     * Creates a service tracing its decisions to the directory named by
+     * -Dauto2i.priceTrace.dir (logs by default), in files of up to 5 MB, the
+     * last 10 of which are kept.
+     */
+    public PriceService() {
+        this(new PriceTrace(Paths.get(System.getProperty("auto2i.priceTrace.dir", "logs")),
+                5L * 1024 * 1024, 10));
+    }
+
+    /**
+     * @param trace The trace receiving the price decisions
+     */
+    public PriceService(PriceTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Loads the prices, group pricing rules and fallback pricing rules,
+     * starts listening to their changes and starts writing the price trace. The default fallback
+     * rules are saved first if the FallbackPricingRule table is empty.
+     * Until then, and after {@link #stop()}, each lookup queries the
+     * Pricing and GroupPricing tables, the last fallback rules loaded (the defaults at first)
+     * apply and decisions stay in memory only.
+     */
+    public void start() {
+        PricingInputs.addListener(this);
+        loadPrices();
+        fallbackPricingRuleDAO.saveAllIfEmpty(FallbackPricingTable.defaultRules());
+        reloadFallbackRules();
+        trace.start();
+    }
+
+    public void stop() {
+        PricingInputs.removeListener(this);
+        executor.shutdownNow();
+        synchronized (this) {
+            matrix.set(null);
+            groups = GroupPrices.EMPTY;
+            vehicleTypes.clear();
+        }
+        trace.stop();
+    }
+
+    private synchronized void loadPrices() {
+        groups = GroupPrices.compile(groupPricingDAO.findAll());
+        vehicleTypes.clear();
+        for (VehicleTypeTraits traits : vehicleTypeDAO.findTraits()) {
+            vehicleTypes.put(traits.getId(), traits);
+        }
+        long[] vehicleTypeIds = new long[vehicleTypes.size()];
+        int index = 0;
+        for (Long vehicleTypeId : vehicleTypes.keySet()) {
+            vehicleTypeIds[index++] = vehicleTypeId;
+        }
+        matrix.set(PriceMatrix.of(pricingDAO.findPrices(), groups.interventionTypeIds(), vehicleTypeIds,
+                this::groupPrice));
+    }
+
+    /**
+     * Resolves the group price of a pair with the vehicle types loaded.
+     * Called with the lock held.
+     */
+    private RulePrice groupPrice(long interventionTypeId, long vehicleTypeId) {
+        VehicleTypeTraits traits = vehicleTypes.get(vehicleTypeId);
+        return traits != null
+                ? groups.resolve(interventionTypeId, traits.getBrand(), traits.getFuelType(), traits.getPower())
+                : null;
+    }
+
+    @Override
+    public void pricingChanged(Long interventionTypeId, Long vehicleTypeId) {
+        pendingPrices.add(new PricePair(interventionTypeId, vehicleTypeId));
+        requestDrain();
+    }
+
+    @Override
+    public void groupPricingChanged(Long interventionTypeId) {
+        pendingInterventionTypeIds.add(interventionTypeId);
+        requestDrain();
+    }
+
+    @Override
+    public void vehicleTypeChanged(Long vehicleTypeId) {
+        pendingVehicleTypeIds.add(vehicleTypeId);
+        requestDrain();
+    }
+
+    @Override
+    public void fallbackRulesChanged() {
+        pendingFallbackRules.set(true);
+        requestDrain();
+    }
+
+    private void requestDrain() {
+        if (queued.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RuntimeException re) {
+                // Stopped
+                queued.set(false);
+            }
+        }
+    }
+
+    /**
+     * Applies the queued changes and publishes one new matrix: vehicle
+     * types are resolved again with their committed brand, fuel type and
+     * power, intervention types with their committed group rules, and
+     * pairs with their committed price, each kind read in one query.
+     * Synchronized so that the state read last is the one published.
+     */
+    private synchronized void drain() {
+        // Changes from now on need a drain that starts after this one
+        queued.set(false);
+        try {
+            if (pendingFallbackRules.getAndSet(false)) {
+                reloadFallbackRules();
+            }
+            PriceMatrix current = matrix.get();
+            if (current == null) {
+                return;
+            }
+            for (Long vehicleTypeId : take(pendingVehicleTypeIds)) {
+                current = withVehicleType(current, vehicleTypeId);
+            }
+
+            List<Long> interventionTypeIds = take(pendingInterventionTypeIds);
+            if (!interventionTypeIds.isEmpty()) {
+                Map<Long, List<GroupPricing>> rules = new HashMap<>();
+                for (Long interventionTypeId : interventionTypeIds) {
+                    rules.put(interventionTypeId, new ArrayList<>());
+                }
+                for (GroupPricing rule : groupPricingDAO.findByInterventionTypes(interventionTypeIds)) {
+                    rules.get(rule.getInterventionType().getId()).add(rule);
+                }
+                for (Long interventionTypeId : interventionTypeIds) {
+                    groups = groups.with(interventionTypeId, rules.get(interventionTypeId));
+                    current = current.withInterventionType(interventionTypeId, this::groupPrice);
+                }
+            }
+
+            List<PricePair> pairs = take(pendingPrices);
+            if (!pairs.isEmpty()) {
+                Set<Long> pairInterventionTypeIds = new HashSet<>();
+                Set<Long> pairVehicleTypeIds = new HashSet<>();
+                for (PricePair pair : pairs) {
+                    pairInterventionTypeIds.add(pair.interventionTypeId);
+                    pairVehicleTypeIds.add(pair.vehicleTypeId);
+                }
+                Map<PricePair, Double> prices = new HashMap<>();
+                for (PriceEntry entry : pricingDAO.findPrices(pairInterventionTypeIds, pairVehicleTypeIds)) {
+                    prices.put(new PricePair(entry.getInterventionTypeId(), entry.getVehicleTypeId()),
+                            entry.getPrice());
+                }
+                for (PricePair pair : pairs) {
+                    if (!current.hasVehicleType(pair.vehicleTypeId)) {
+                        current = withVehicleType(current, pair.vehicleTypeId);
+                    }
+                    Double price = prices.get(pair);
+                    current = current.with(pair.interventionTypeId, pair.vehicleTypeId, price != null
+                            ? RulePrice.exact(price)
+                            : groupPrice(pair.interventionTypeId, pair.vehicleTypeId));
+                }
+            }
+            matrix.set(current);
+        } catch (RuntimeException re) {
+            // The changes are committed; the next start loads them
+            System.err.println("Could not apply pricing changes: " + re.getMessage());
+        }
+    }
+
+    /**
+     * Removes and returns the changes queued so far.
+     */
+    private static <T> List<T> take(Set<T> pending) {
+        List<T> taken = new ArrayList<>();
+        for (Iterator<T> it = pending.iterator(); it.hasNext(); ) {
+            taken.add(it.next());
+            it.remove();
+        }
+        return taken;
+    }
+
+    private PriceMatrix withVehicleType(PriceMatrix current, Long vehicleTypeId) {
+        VehicleTypeTraits traits = vehicleTypeDAO.findTraits(vehicleTypeId);
+        if (traits != null) {
+            vehicleTypes.put(vehicleTypeId, traits);
+        } else {
+            vehicleTypes.remove(vehicleTypeId);
+        }
+        return current.withVehicleType(vehicleTypeId, this::groupPrice);
+    }
+
+    /**
+     * Reads the fallback pricing rules again and compiles them, for
+     * instance after they were changed outside this application. Prices
+     * calculated meanwhile use the previous rules.
+     */
+    public synchronized void reloadFallbackRules() {
+        fallbackTable.set(FallbackPricingTable.compile(fallbackPricingRuleDAO.findAll()));
+    }
+
+    /**
+     * Gets the price of a pair from the matrix, or from the Pricing and
+     * GroupPricing tables if the service is not started.
+     *
+     * @return The price, or null if no rule applies
+     */
+    private RulePrice lookup(InterventionType interventionType, VehicleType vehicleType) {
+        if (interventionType == null || vehicleType == null) {
+            return null;
+        }
+        PriceMatrix prices = matrix.get();
+        if (prices != null) {
+            return resolve(prices, groups, interventionType, vehicleType);
+        }
+        Pricing pricing = pricingDAO.findByInterventionTypeAndVehicleType(interventionType, vehicleType);
+        if (pricing != null) {
+            return RulePrice.exact(pricing.getPrice());
+        }
+        return GroupPrices.compile(groupPricingDAO.findByInterventionTypes(
+                        Collections.singleton(interventionType.getId())))
+                .resolve(interventionType.getId(), vehicleType.getBrand(), vehicleType.getFuelType(),
+                        vehicleType.getPower());
+    }
+
+    /**
+     * Gets the price of a pair from a matrix, or from group rules if the
+     * matrix does not hold the vehicle type (not saved or not notified
+     * yet).
+     *
+     * @return The price, or null if no rule applies
+     */
+    private static RulePrice resolve(PriceMatrix prices, GroupPrices groups, InterventionType interventionType,
+            VehicleType vehicleType) {
+        if (interventionType == null || vehicleType == null) {
+            return null;
+        }
+        if (vehicleType.getId() != null && prices.hasVehicleType(vehicleType.getId())) {
+            double price = prices.price(interventionType.getId(), vehicleType.getId());
+            // The matrix holds primitives; the price becomes an object only for the decision
+            return Double.isNaN(price) ? null
+                    : new RulePrice(price, prices.level(interventionType.getId(), vehicleType.getId()));
+        }
+        return groups.resolve(interventionType.getId(), vehicleType.getBrand(), vehicleType.getFuelType(),
+                vehicleType.getPower());
+    }
+
     /**
      * Calculates the final price for an intervention based on the vehicle type
-     * and intervention type using the Pricing table.
+     * and intervention type using the Pricing and GroupPricing tables.
      * 
      * @param intervention The intervention to calculate price for
      * @return The calculated price
+     * @see #decide(Intervention)
      */
     public double calculatePrice(Intervention intervention) {
         if (intervention == null) {
             return DEFAULT_BASE_PRICE;
         }
+        return decide(intervention).getPrice();
+    }
 
+    /**
+     * Calculates the price of an intervention and records how it was
+     * obtained in the price trace.
+     *
+     * @param intervention The intervention to calculate price for; its
+     *                     price, if positive, is the fallback base price
+     * @return The decision, holding the price
+     */
+    public PriceDecision decide(Intervention intervention) {
         InterventionType interventionType = intervention.getInterventionType();
-        VehicleType vehicleType = null;
-
-        
-        if (intervention.getVehicle() != null && intervention.getVehicle().getVehicleType() != null) {
-            vehicleType = intervention.getVehicle().getVehicleType();
-        }
-
-        
-        Pricing pricing = pricingDAO.findByInterventionTypeAndVehicleType(interventionType, vehicleType);
+        VehicleType vehicleType = vehicleTypeOf(intervention);
 
-        if (pricing != null) {
-            System.out.println("--- Price Calculation ---");
-            System.out.println("Intervention: " + (interventionType != null ? interventionType.getName() : "N/A"));
-            System.out.println("Vehicle: "
-                    + (vehicleType != null ? vehicleType.getBrand() + " " + vehicleType.getModel() : "N/A"));
-            System.out.println("Price from database: " + pricing.getPrice() + " €");
-            System.out.println("-------------------------");
-            return pricing.getPrice();
-        }
-
-        
-        return calculateFallbackPrice(intervention, interventionType, vehicleType);
+        RulePrice price = lookup(interventionType, vehicleType);
+        PriceDecision decision = price != null
+                ? decision(intervention, vehicleType, PriceDecision.Source.RULE, price.level, 0, 0, 0, price.price)
+                : calculateFallbackPrice(intervention, vehicleType, fallbackTable.get());
+        trace.record(decision);
+        return decision;
     }
 
     /**
      * Fallback price calculation when no specific pricing rule exists.
      * Uses a base price with multipliers based on vehicle characteristics.
      */
-    private double calculateFallbackPrice(Intervention intervention,
-            InterventionType interventionType,
-            VehicleType vehicleType) {
+    private static PriceDecision calculateFallbackPrice(Intervention intervention, VehicleType vehicleType,
+            FallbackPricingTable surcharges) {
         
         double basePrice = intervention.getPrice() > 0 ? intervention.getPrice() : DEFAULT_BASE_PRICE;
 
-        
-        double multiplier = 1.0;
-
-        if (vehicleType != null) {
-            
-            int power = vehicleType.getPower();
-            if (power > 200) {
-                multiplier += 0.5; 
-            } else if (power > 150) {
-                multiplier += 0.3; 
-            } else if (power > 100) {
-                multiplier += 0.1; 
-            }
-            
-
-            
-            String fuelType = vehicleType.getFuelType();
-            if (fuelType != null) {
-                switch (fuelType.toLowerCase()) {
-                    case "electric":
-                        multiplier += 0.2; 
-                        break;
-                    case "hybrid":
-                        multiplier += 0.15; 
-                        break;
-                    case "diesel":
-                        multiplier += 0.05; 
-                        break;
-                    
+        double powerSurcharge = vehicleType != null ? surcharges.powerSurcharge(vehicleType.getPower()) : 0;
+        double fuelSurcharge = vehicleType != null ? surcharges.fuelSurcharge(vehicleType.getFuelType()) : 0;
+        double finalPrice = basePrice * (1.0 + powerSurcharge + fuelSurcharge);
+
+        return decision(intervention, vehicleType, PriceDecision.Source.FALLBACK, null,
+                basePrice, powerSurcharge, fuelSurcharge, finalPrice);
+    }
+
+    private static PriceDecision decision(Intervention intervention, VehicleType vehicleType,
+            PriceDecision.Source source, PriceDecision.Level level, double basePrice, double powerSurcharge, double fuelSurcharge,
+            double price) {
+        InterventionType interventionType = intervention.getInterventionType();
+        return new PriceDecision(System.currentTimeMillis(), intervention.getId(),
+                interventionType != null ? interventionType.getId() : null,
+                interventionType != null ? interventionType.getName() : null,
+                intervention.getVehicle() != null ? intervention.getVehicle().getId() : null,
+                vehicleType != null ? vehicleType.getId() : null,
+                vehicleType != null ? vehicleType.getBrand() : null,
+                vehicleType != null ? vehicleType.getModel() : null,
+                source, level, basePrice, powerSurcharge, fuelSurcharge, price);
+    }
+
+    /**
+     * Records the price an intervention was saved with, for later disputes.
+     * The decision it was quoted with is kept if the price matches to the
+     * cent; otherwise the price is recorded as entered by hand.
+     *
+     * @param saved  The saved intervention, with its id
+     * @param quoted The decision shown when the price was calculated, or null
+     */
+    public void recordSaved(Intervention saved, PriceDecision quoted) {
+        VehicleType vehicleType = vehicleTypeOf(saved);
+        boolean matches = quoted != null && saved.getInterventionType() != null
+                && saved.getInterventionType().getId().equals(quoted.getInterventionTypeId())
+                && (vehicleType != null ? vehicleType.getId().equals(quoted.getVehicleTypeId())
+                        : quoted.getVehicleTypeId() == null)
+                && Math.abs(saved.getPrice() - quoted.getPrice()) < 0.00501;
+        trace.record(matches
+                ? quoted.withInterventionId(saved.getId())
+                : decision(saved, vehicleType, PriceDecision.Source.MANUAL, null, 0, 0, 0, saved.getPrice()));
+    }
+
+    /**
+     * Gets the recorded price decisions of a saved intervention.
+     *
+     * @param interventionId The intervention
+     * @return Its decisions still in the trace, oldest first
+     */
+    public List<PriceDecision> findDecisions(Long interventionId) {
+        return trace.findByInterventionId(interventionId);
+    }
+
+    /**
+     * Prices many interventions at once, each as {@link #calculatePrice}
+     * would, recording a decision per line.
+     * Pricing rules come from the matrix, or from one query per table if
+     * the service is not started.
+     *
+     * @param interventions The interventions to quote, with their
+     *                      intervention type and vehicle; their price, if
+     *                      positive, is the fallback base price
+     * @return One line per intervention, in the same order, and the total
+     */
+    public PriceQuote quote(List<Intervention> interventions) {
+        PriceMatrix prices = matrix.get();
+        GroupPrices groupPrices = groups;
+        if (prices == null) {
+            Set<Long> interventionTypeIds = new HashSet<>();
+            Map<Long, VehicleType> vehicleTypesById = new HashMap<>();
+            for (Intervention intervention : interventions) {
+                if (intervention.getInterventionType() != null) {
+                    interventionTypeIds.add(intervention.getInterventionType().getId());
+                }
+                VehicleType vehicleType = vehicleTypeOf(intervention);
+                if (vehicleType != null && vehicleType.getId() != null) {
+                    vehicleTypesById.put(vehicleType.getId(), vehicleType);
                 }
             }
+            long[] vehicleTypeIds = new long[vehicleTypesById.size()];
+            int index = 0;
+            for (Long vehicleTypeId : vehicleTypesById.keySet()) {
+                vehicleTypeIds[index++] = vehicleTypeId;
+            }
+            GroupPrices loaded = GroupPrices.compile(groupPricingDAO.findByInterventionTypes(interventionTypeIds));
+            prices = PriceMatrix.of(pricingDAO.findPrices(interventionTypeIds, vehicleTypesById.keySet()),
+                    loaded.interventionTypeIds(), vehicleTypeIds, (interventionTypeId, vehicleTypeId) -> {
+                        VehicleType vehicleType = vehicleTypesById.get(vehicleTypeId);
+                        return loaded.resolve(interventionTypeId, vehicleType.getBrand(),
+                                vehicleType.getFuelType(), vehicleType.getPower());
+                    });
+            groupPrices = loaded;
         }
 
-        double finalPrice = basePrice * multiplier;
+        FallbackPricingTable surcharges = fallbackTable.get();
+        List<PriceQuote.Line> lines = new ArrayList<>(interventions.size());
+        for (Intervention intervention : interventions) {
+            InterventionType interventionType = intervention.getInterventionType();
+            VehicleType vehicleType = vehicleTypeOf(intervention);
+            RulePrice price = resolve(prices, groupPrices, interventionType, vehicleType);
+            PriceDecision decision = price != null
+                    ? decision(intervention, vehicleType, PriceDecision.Source.RULE, price.level, 0, 0, 0, price.price)
+                    : calculateFallbackPrice(intervention, vehicleType, surcharges);
+            trace.record(decision);
+            lines.add(new PriceQuote.Line(
+                    interventionType != null ? interventionType.getId() : null,
+                    interventionType != null ? interventionType.getName() : null,
+                    intervention.getVehicle() != null ? intervention.getVehicle().getId() : null,
+                    vehicleType != null ? vehicleType.getId() : null,
+                    decision.getPrice(), decision.getLevel()));
+        }
+        return new PriceQuote(lines);
+    }
 
-        System.out.println("--- Fallback Price Calculation ---");
-        System.out.println("Intervention: " + (interventionType != null ? interventionType.getName() : "N/A"));
-        System.out.println(
-                "Vehicle: " + (vehicleType != null ? vehicleType.getBrand() + " " + vehicleType.getModel() : "N/A"));
-        System.out.println("Base Price: " + basePrice + " €");
-        System.out.println("Multiplier: x" + String.format("%.2f", multiplier));
-        System.out.println("FINAL PRICE: " + String.format("%.2f", finalPrice) + " €");
-        System.out.println("---------------------------------");
+    /**
+     * Prices every intervention type on every vehicle, for instance for a
+     * fleet contract.
+     *
+     * @param interventionTypes The intervention types
+     * @param vehicles          The vehicles, with their vehicle type
+     * @return One line per vehicle and intervention type, vehicle by
+     *         vehicle, and the total
+     * @see #quote(List)
+     */
+    public PriceQuote quoteFleet(List<? extends InterventionType> interventionTypes, List<Vehicle> vehicles) {
+        List<Intervention> interventions = new ArrayList<>(interventionTypes.size() * vehicles.size());
+        for (Vehicle vehicle : vehicles) {
+            for (InterventionType interventionType : interventionTypes) {
+                Intervention intervention = new Intervention();
+                intervention.setVehicle(vehicle);
+                intervention.setInterventionType(interventionType);
+                interventions.add(intervention);
+            }
+        }
+        return quote(interventions);
+    }
 
-        return finalPrice;
+    private static VehicleType vehicleTypeOf(Intervention intervention) {
+        return intervention.getVehicle() != null ? intervention.getVehicle().getVehicleType() : null;
     }
 
     /**
@@ -126,8 +559,15 @@ public class PriceService {
      * @return The price or null if not found
      */
     public Double getExactPrice(InterventionType interventionType, VehicleType vehicleType) {
-        Pricing pricing = pricingDAO.findByInterventionTypeAndVehicleType(interventionType, vehicleType);
-        return pricing != null ? pricing.getPrice() : null;
+        PriceMatrix prices = matrix.get();
+        if (prices != null && interventionType != null && vehicleType != null && vehicleType.getId() != null
+                && prices.hasVehicleType(vehicleType.getId())) {
+            return prices.level(interventionType.getId(), vehicleType.getId()) == PriceDecision.Level.VEHICLE_TYPE
+                    ? prices.price(interventionType.getId(), vehicleType.getId())
+                    : null;
+        }
+        RulePrice price = lookup(interventionType, vehicleType);
+        return price != null && price.isExact() ? price.price : null;
     }
 
     /**
@@ -0,0 +1,358 @@
+package services;
+
+import dto.PriceDecision;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a trail of price decisions in rotating local files.
+ *
+ * Recording never blocks: decisions go into a lock-free ring buffer of
+ * {@value #CAPACITY} slots, and a background thread appends them to the
+ * current file every {@value #DRAIN_INTERVAL_MS} ms. When the writer falls
+ * a whole ring behind, the oldest decisions are dropped and counted. The
+ * current file is renamed with suffix .1 once it exceeds its size limit,
+ * older files shifting to .2, .3 and so on up to the number of files kept.
+ *
+ * Files hold one tab-separated decision per line, oldest first. Lines
+ * written before the level of pricing rules was traced have no level field;
+ * their rule decisions are read back as vehicle type rules.
+ */
+public class PriceTrace {
+
+    /** Slots of the ring buffer, a power of two. */
+    static final int CAPACITY = 8192;
+
+    /** Interval between two drains of the ring buffer to the file. */
+    static final long DRAIN_INTERVAL_MS = 200;
+
+    private static final String FILE_NAME = "price-decisions.log";
+    private static final String NONE = "-";
+
+    private final AtomicReferenceArray<PriceDecision> slots = new AtomicReferenceArray<>(CAPACITY);
+    // Sequence + 1 of the decision in each slot, 0 while empty
+    private final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private final AtomicLong next = new AtomicLong();
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final int maxFiles;
+
+    // Writer thread only
+    private long drained;
+    private long dropped;
+    private BufferedWriter out;
+    private long fileBytes;
+
+    private ScheduledExecutorService writer;
+
+    /**
+     * @param directory    Directory of the files, created if needed
+     * @param maxFileBytes Size after which the current file is rotated
+     * @param maxFiles     Number of rotated files kept besides the current one
+     */
+    public PriceTrace(Path directory, long maxFileBytes, int maxFiles) {
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * Starts writing recorded decisions to the files.
+     */
+    public synchronized void start() {
+        if (writer != null) {
+            return;
+        }
+        writer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "price-trace");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::drainToFile, DRAIN_INTERVAL_MS, DRAIN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the pending decisions and closes the file.
+     */
+    public synchronized void stop() {
+        if (writer == null) {
+            return;
+        }
+        writer.execute(() -> {
+            drainToFile();
+            closeFile();
+        });
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    /**
+     * Records a decision. Lock-free and safe from any thread.
+     */
+    public void record(PriceDecision decision) {
+        long sequence = next.getAndIncrement();
+        int slot = (int) (sequence & (CAPACITY - 1));
+        slots.set(slot, decision);
+        // Publishes the slot to the writer
+        sequences.set(slot, sequence + 1);
+    }
+
+    /**
+     * Gets the decisions recorded for an intervention, oldest first.
+     * Pending decisions are written first, then the files are read; when
+     * the trace is not started, only the ring buffer is searched.
+     *
+     * @param interventionId The intervention
+     * @return Its decisions still in the files or the ring buffer
+     */
+    public List<PriceDecision> findByInterventionId(Long interventionId) {
+        List<PriceDecision> found = new ArrayList<>();
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = writer;
+        }
+        if (current == null) {
+            long head = next.get();
+            for (long sequence = Math.max(0, head - CAPACITY); sequence < head; sequence++) {
+                int slot = (int) (sequence & (CAPACITY - 1));
+                PriceDecision decision = slots.get(slot);
+                if (sequences.get(slot) == sequence + 1 && decision != null
+                        && interventionId.equals(decision.getInterventionId())) {
+                    found.add(decision);
+                }
+            }
+            return found;
+        }
+
+        try {
+            current.submit(this::drainToFile).get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return found;
+        } catch (ExecutionException | RuntimeException e) {
+            // Stopped meanwhile: the files hold what was written
+        }
+        String id = interventionId.toString();
+        for (int index = maxFiles; index >= 0; index--) {
+            Path file = file(index);
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    int start = line.indexOf('\t') + 1;
+                    if (line.startsWith(id, start) && line.length() > start + id.length()
+                            && line.charAt(start + id.length()) == '\t') {
+                        found.add(parse(line));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not read price trace " + file + ": " + e.getMessage());
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Counts the decisions dropped because the writer fell behind.
+     */
+    public synchronized long getDropped() {
+        ScheduledExecutorService current = writer;
+        if (current == null) {
+            return dropped;
+        }
+        try {
+            return current.submit(() -> dropped).get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RuntimeException e) {
+            // Stopped meanwhile
+        }
+        return dropped;
+    }
+
+    /**
+     * Passes the recorded decisions not drained yet to a sink, oldest first.
+     * Called by one thread at a time.
+     *
+     * @return The number of decisions passed
+     */
+    int drain(Consumer<PriceDecision> sink) {
+        long head = next.get();
+        if (head - drained > CAPACITY) {
+            dropped += head - CAPACITY - drained;
+            drained = head - CAPACITY;
+        }
+        int count = 0;
+        while (drained < head) {
+            int slot = (int) (drained & (CAPACITY - 1));
+            long published = sequences.get(slot);
+            if (published < drained + 1) {
+                // Sequence taken but slot not written yet
+                break;
+            }
+            PriceDecision decision = slots.get(slot);
+            if (published != drained + 1 || sequences.get(slot) != drained + 1) {
+                // Overwritten by a decision recorded a whole ring later
+                dropped++;
+            } else {
+                sink.accept(decision);
+                count++;
+            }
+            drained++;
+        }
+        return count;
+    }
+
+    private void drainToFile() {
+        try {
+            IOException[] failure = new IOException[1];
+            int written = drain(decision -> {
+                if (failure[0] != null) {
+                    return;
+                }
+                try {
+                    write(format(decision));
+                } catch (IOException ioe) {
+                    failure[0] = ioe;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            if (written > 0) {
+                out.flush();
+            }
+        } catch (IOException ioe) {
+            // Decisions of this drain are lost; the next drain reopens the file
+            System.err.println("Could not write price trace: " + ioe.getMessage());
+            closeFile();
+        }
+    }
+
+    private void write(String line) throws IOException {
+        if (out == null) {
+            Files.createDirectories(directory);
+            Path current = file(0);
+            fileBytes = Files.exists(current) ? Files.size(current) : 0;
+            out = Files.newBufferedWriter(current, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        int bytes = line.getBytes(StandardCharsets.UTF_8).length + 1;
+        if (fileBytes > 0 && fileBytes + bytes > maxFileBytes) {
+            rotate();
+        }
+        out.write(line);
+        out.newLine();
+        fileBytes += bytes;
+    }
+
+    private void rotate() throws IOException {
+        out.close();
+        out = null;
+        Files.deleteIfExists(file(maxFiles));
+        for (int index = maxFiles - 1; index >= 0; index--) {
+            if (Files.exists(file(index))) {
+                Files.move(file(index), file(index + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        out = Files.newBufferedWriter(file(0), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        fileBytes = 0;
+    }
+
+    private void closeFile() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException ioe) {
+            System.err.println("Could not close price trace: " + ioe.getMessage());
+        }
+        out = null;
+    }
+
+    private Path file(int index) {
+        return directory.resolve(index == 0 ? FILE_NAME : FILE_NAME + "." + index);
+    }
+
+    /**
+     * Formats a decision as one line; the intervention id is the second
+     * field.
+     */
+    static String format(PriceDecision decision) {
+        return new StringBuilder(160)
+                .append(decision.getTime()).append('\t')
+                .append(id(decision.getInterventionId())).append('\t')
+                .append(id(decision.getInterventionTypeId())).append('\t')
+                .append(text(decision.getInterventionName())).append('\t')
+                .append(id(decision.getVehicleId())).append('\t')
+                .append(id(decision.getVehicleTypeId())).append('\t')
+                .append(text(decision.getVehicleBrand())).append('\t')
+                .append(text(decision.getVehicleModel())).append('\t')
+                .append(decision.getSource()).append('\t')
+                .append(decision.getBasePrice()).append('\t')
+                .append(decision.getPowerSurcharge()).append('\t')
+                .append(decision.getFuelSurcharge()).append('\t')
+                .append(decision.getPrice()).append('\t')
+                .append(decision.getLevel() != null ? decision.getLevel().name() : NONE)
+                .toString();
+    }
+
+    static PriceDecision parse(String line) {
+        String[] fields = line.split("\t", -1);
+        PriceDecision.Source source = PriceDecision.Source.valueOf(fields[8]);
+        PriceDecision.Level level;
+        if (fields.length > 13) {
+            level = fields[13].equals(NONE) ? null : PriceDecision.Level.valueOf(fields[13]);
+        } else {
+            level = source == PriceDecision.Source.RULE ? PriceDecision.Level.VEHICLE_TYPE : null;
+        }
+        return new PriceDecision(Long.parseLong(fields[0]), parseId(fields[1]), parseId(fields[2]),
+                parseText(fields[3]), parseId(fields[4]), parseId(fields[5]), parseText(fields[6]),
+                parseText(fields[7]), source, level, Double.parseDouble(fields[9]),
+                Double.parseDouble(fields[10]), Double.parseDouble(fields[11]), Double.parseDouble(fields[12]));
+    }
+
+    private static String id(Long id) {
+        return id != null ? id.toString() : NONE;
+    }
+
+    private static Long parseId(String field) {
+        return field.equals(NONE) ? null : Long.valueOf(field);
+    }
+
+    // Names never contain tabs or line breaks once written; null is written as an empty field
+    private static String text(String value) {
+        return value != null ? value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ') : "";
+    }
+
+    private static String parseText(String field) {
+        return field.isEmpty() ? null : field;
+    }
+}
@@ -0,0 +1,28 @@
+package services;
+
+import dto.PriceDecision;
+
+/**
+ * Price given by a pricing rule, with the level of the rule.
+ */
+final class RulePrice {
+
+    final double price;
+    final PriceDecision.Level level;
+
+    RulePrice(double price, PriceDecision.Level level) {
+        this.price = price;
+        this.level = level;
+    }
+
+    /**
+     * @return A price of the pricing rule of the exact vehicle type
+     */
+    static RulePrice exact(double price) {
+        return new RulePrice(price, PriceDecision.Level.VEHICLE_TYPE);
+    }
+
+    boolean isExact() {
+        return level == PriceDecision.Level.VEHICLE_TYPE;
+    }
+}
@@ -0,0 +1,462 @@
+package services;
+
+import dto.LastIntervention;
+import dto.MileageRate;
+import entities.MaintenanceType;
+import entities.Vehicle;
+import services.InterventionService.PlannedIntervention;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Urgency scoring of (vehicle, maintenance type) pairs without allocation.
+ * Dates are local epoch days and mileages ints, held in arrays reused from
+ * one chunk of vehicles to the next. The most urgent pairs are kept in a
+ * bounded heap of primitives; their reasons and PlannedIntervention objects
+ * are only built by {@link #top()}, for the pairs left at the end.
+ * Ordered like {@link InterventionService#URGENCY_ORDER}.
+ *
+ * Not thread-safe: use one scan per thread and {@link #addAll} to merge
+ * them.
+ */
+final class UrgencyScan {
+
+    /** Last service day of a pair never serviced, or projected day of an unknown rate. */
+    static final long NONE = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    /** Kept pairs allocated up front; the arrays grow up to the limit. */
+    private static final int INITIAL_KEPT = 64;
+
+    private final TimeZone zone = TimeZone.getDefault();
+    private final long today;
+    private final List<MaintenanceType> maintenanceTypes;
+    private final long[] typeIds;
+    private final int[] maxMileage;
+    private final int[] maxDuration;
+    private final int limit;
+
+    // Current chunk; pair arrays are indexed by vehicle index * type count + type index
+    private long[] vehicleIds = new long[0];
+    private MileageRate[] rates = new MileageRate[0];
+    private long[] lastDays = new long[0];
+    private int[] lastMileages = new int[0];
+
+    // Kept pairs as a min-heap: the least urgent one is at index 0
+    private int size;
+    private int[] keptPriority;
+    private long[] keptVehicleId;
+    private int[] keptType;
+    private Vehicle[] keptVehicle;
+    private MileageRate[] keptRate;
+    private long[] keptLastDay;
+    private int[] keptLastMileage;
+
+    /**
+     * @param maintenanceTypes The maintenance types, sorted by id
+     * @param today            The current time
+     * @param limit            Number of pairs kept
+     */
+    UrgencyScan(List<MaintenanceType> maintenanceTypes, Date today, int limit) {
+        this.today = epochDay(zone, today.getTime());
+        this.maintenanceTypes = maintenanceTypes;
+        this.limit = limit;
+        int types = maintenanceTypes.size();
+        typeIds = new long[types];
+        maxMileage = new int[types];
+        maxDuration = new int[types];
+        for (int t = 0; t < types; t++) {
+            MaintenanceType mt = maintenanceTypes.get(t);
+            typeIds[t] = mt.getId();
+            maxMileage[t] = mt.getMaxMileage();
+            maxDuration[t] = mt.getMaxDuration();
+        }
+        int kept = Math.min(limit, INITIAL_KEPT);
+        keptPriority = new int[kept];
+        keptVehicleId = new long[kept];
+        keptType = new int[kept];
+        keptVehicle = new Vehicle[kept];
+        keptRate = new MileageRate[kept];
+        keptLastDay = new long[kept];
+        keptLastMileage = new int[kept];
+    }
+
+    /**
+     * Scores every pair of a chunk of vehicles and keeps the due ones that
+     * are among the most urgent so far.
+     *
+     * @param vehicles          The vehicles, in id order
+     * @param lastInterventions Their latest intervention of each type
+     * @param mileageRates      Their mileage rates
+     */
+    void scoreChunk(List<Vehicle> vehicles, List<LastIntervention> lastInterventions,
+            List<MileageRate> mileageRates) {
+        int count = vehicles.size();
+        int types = typeIds.length;
+        if (vehicleIds.length < count) {
+            vehicleIds = new long[count];
+            rates = new MileageRate[count];
+            lastDays = new long[count * types];
+            lastMileages = new int[count * types];
+        }
+        for (int v = 0; v < count; v++) {
+            vehicleIds[v] = vehicles.get(v).getId();
+        }
+        Arrays.fill(rates, 0, count, null);
+        Arrays.fill(lastDays, 0, count * types, NONE);
+
+        for (int i = 0; i < lastInterventions.size(); i++) {
+            LastIntervention last = lastInterventions.get(i);
+            int v = Arrays.binarySearch(vehicleIds, 0, count, last.getVehicleId());
+            int t = Arrays.binarySearch(typeIds, last.getInterventionTypeId());
+            if (v >= 0 && t >= 0) {
+                lastDays[v * types + t] = epochDay(zone, last.getTime());
+                lastMileages[v * types + t] = last.getVehicleMileage();
+            }
+        }
+        for (int i = 0; i < mileageRates.size(); i++) {
+            MileageRate rate = mileageRates.get(i);
+            int v = Arrays.binarySearch(vehicleIds, 0, count, rate.getVehicleId());
+            if (v >= 0) {
+                rates[v] = rate;
+            }
+        }
+
+        for (int v = 0; v < count; v++) {
+            Vehicle vehicle = vehicles.get(v);
+            int currentMileage = vehicle.getLastMileage();
+            long registrationDay = vehicle.getDateOfFirstRegistration() != null
+                    ? epochDay(zone, vehicle.getDateOfFirstRegistration().getTime())
+                    : today;
+            for (int t = 0; t < types; t++) {
+                int pair = v * types + t;
+                long scored = score(today, currentMileage, registrationDay, lastDays[pair], lastMileages[pair],
+                        maxMileage[t], maxDuration[t], rates[v], null);
+                int priority = priority(scored);
+                if (priority > 0) {
+                    offer(priority, vehicleIds[v], t, vehicle, rates[v], lastDays[pair], lastMileages[pair]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps the pairs kept by another scan of the same maintenance types.
+     * Ties are broken on vehicle id then maintenance type id, so merged
+     * scans keep the same pairs whatever the order of the merges.
+     */
+    void addAll(UrgencyScan other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.keptPriority[i], other.keptVehicleId[i], other.keptType[i], other.keptVehicle[i],
+                    other.keptRate[i], other.keptLastDay[i], other.keptLastMileage[i]);
+        }
+    }
+
+    /**
+     * Builds the kept pairs, with their reasons.
+     *
+     * @return The kept pairs, most urgent first
+     */
+    List<PlannedIntervention> top() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> lessUrgent(a, b) ? 1 : lessUrgent(b, a) ? -1 : 0);
+
+        List<PlannedIntervention> top = new ArrayList<>(size);
+        StringBuilder reason = new StringBuilder();
+        for (int i : order) {
+            Vehicle vehicle = keptVehicle[i];
+            int t = keptType[i];
+            long registrationDay = vehicle.getDateOfFirstRegistration() != null
+                    ? epochDay(zone, vehicle.getDateOfFirstRegistration().getTime())
+                    : today;
+            reason.setLength(0);
+            long scored = score(today, vehicle.getLastMileage(), registrationDay, keptLastDay[i],
+                    keptLastMileage[i], maxMileage[t], maxDuration[t], keptRate[i], reason);
+            top.add(new PlannedIntervention(vehicle, maintenanceTypes.get(t), toDate(plannedDay(scored)),
+                    priority(scored), reason.toString().trim()));
+        }
+        return top;
+    }
+
+    private void offer(int priority, long vehicleId, int type, Vehicle vehicle, MileageRate rate,
+            long lastDay, int lastMileage) {
+        int at;
+        if (size < limit) {
+            if (size == keptPriority.length) {
+                grow();
+            }
+            at = size++;
+        } else if (size > 0 && lessUrgent(keptPriority[0], keptVehicleId[0], keptType[0], priority, vehicleId, type)) {
+            // Replaces the least urgent pair
+            at = 0;
+        } else {
+            return;
+        }
+        keptPriority[at] = priority;
+        keptVehicleId[at] = vehicleId;
+        keptType[at] = type;
+        keptVehicle[at] = vehicle;
+        keptRate[at] = rate;
+        keptLastDay[at] = lastDay;
+        keptLastMileage[at] = lastMileage;
+        if (at == 0) {
+            siftDown(0);
+        } else {
+            siftUp(at);
+        }
+    }
+
+    private void grow() {
+        int kept = (int) Math.min(limit, 2L * keptPriority.length);
+        keptPriority = Arrays.copyOf(keptPriority, kept);
+        keptVehicleId = Arrays.copyOf(keptVehicleId, kept);
+        keptType = Arrays.copyOf(keptType, kept);
+        keptVehicle = Arrays.copyOf(keptVehicle, kept);
+        keptRate = Arrays.copyOf(keptRate, kept);
+        keptLastDay = Arrays.copyOf(keptLastDay, kept);
+        keptLastMileage = Arrays.copyOf(keptLastMileage, kept);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!lessUrgent(i, parent)) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int least = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && lessUrgent(left, least)) {
+                least = left;
+            }
+            if (right < size && lessUrgent(right, least)) {
+                least = right;
+            }
+            if (least == i) {
+                return;
+            }
+            swap(i, least);
+            i = least;
+        }
+    }
+
+    private boolean lessUrgent(int a, int b) {
+        return lessUrgent(keptPriority[a], keptVehicleId[a], keptType[a],
+                keptPriority[b], keptVehicleId[b], keptType[b]);
+    }
+
+    /**
+     * Lower priority, or same priority and higher vehicle id, or same
+     * vehicle and higher maintenance type id (types are sorted by id).
+     */
+    private static boolean lessUrgent(int priorityA, long vehicleA, int typeA,
+            int priorityB, long vehicleB, int typeB) {
+        if (priorityA != priorityB) {
+            return priorityA < priorityB;
+        }
+        if (vehicleA != vehicleB) {
+            return vehicleA > vehicleB;
+        }
+        return typeA > typeB;
+    }
+
+    private void swap(int a, int b) {
+        int priority = keptPriority[a];
+        keptPriority[a] = keptPriority[b];
+        keptPriority[b] = priority;
+        long vehicleId = keptVehicleId[a];
+        keptVehicleId[a] = keptVehicleId[b];
+        keptVehicleId[b] = vehicleId;
+        int type = keptType[a];
+        keptType[a] = keptType[b];
+        keptType[b] = type;
+        Vehicle vehicle = keptVehicle[a];
+        keptVehicle[a] = keptVehicle[b];
+        keptVehicle[b] = vehicle;
+        MileageRate rate = keptRate[a];
+        keptRate[a] = keptRate[b];
+        keptRate[b] = rate;
+        long lastDay = keptLastDay[a];
+        keptLastDay[a] = keptLastDay[b];
+        keptLastDay[b] = lastDay;
+        int lastMileage = keptLastMileage[a];
+        keptLastMileage[a] = keptLastMileage[b];
+        keptLastMileage[b] = lastMileage;
+    }
+
+    /**
+     * Scores one pair. Days are local epoch days; today is taken as some
+     * time after midnight.
+     *
+     * @param lastDay     Day of the last service of that type, or {@link #NONE}
+     * @param lastMileage Mileage at the last service, ignored if never serviced
+     * @param rate        Mileage rate of the vehicle, or null
+     * @param reason      Receives the reason, or null to skip it
+     * @return The planned day and priority, read with {@link #plannedDay}
+     *         and {@link #priority}
+     */
+    static long score(long today, int currentMileage, long registrationDay, long lastDay, int lastMileage,
+            int maxMileage, int maxDurationMonths, MileageRate rate, StringBuilder reason) {
+        boolean serviced = lastDay != NONE;
+        long plannedDay = plusMonths(serviced ? lastDay : registrationDay, maxDurationMonths);
+        int priority = 0;
+
+        if (plannedDay <= today) {
+            long daysOverdue = today - plannedDay;
+            priority += serviced ? Math.min(5, (int) (daysOverdue / 30) + 2) : Math.min(5, (int) (daysOverdue / 30));
+            if (reason != null) {
+                reason.append("Overdue by ").append(daysOverdue).append(" days. ");
+            }
+        } else {
+            long daysUntil = plannedDay - today - 1;
+            if (daysUntil <= 90) {
+                priority += daysUntil <= 30 ? 2 : 1;
+                if (reason != null) {
+                    reason.append("Due in ").append(daysUntil).append(" days. ");
+                }
+            }
+        }
+
+        int priorityBeforeMileage = priority;
+        if (!serviced) {
+            if (currentMileage >= maxMileage) {
+                priority += 3;
+                if (reason != null) {
+                    reason.append("Mileage exceeded (").append(currentMileage).append("/").append(maxMileage)
+                            .append(" km). ");
+                }
+            } else if (currentMileage >= maxMileage * 0.9) {
+                priority += 2;
+                if (reason != null) {
+                    reason.append("Near mileage limit (").append(currentMileage).append("/").append(maxMileage)
+                            .append(" km). ");
+                }
+            }
+        } else {
+            int mileageSinceLast = currentMileage - lastMileage;
+            if (mileageSinceLast >= maxMileage) {
+                priority += 3;
+                if (reason != null) {
+                    reason.append("Mileage interval exceeded (").append(mileageSinceLast)
+                            .append("/").append(maxMileage).append(" km since last). ");
+                }
+            } else if (mileageSinceLast >= maxMileage * 0.9) {
+                priority += 2;
+                if (reason != null) {
+                    reason.append("Near mileage interval (").append(mileageSinceLast)
+                            .append("/").append(maxMileage).append(" km since last). ");
+                }
+            } else if (mileageSinceLast >= maxMileage * 0.75) {
+                priority += 1;
+                if (reason != null) {
+                    reason.append("Approaching mileage interval (").append(mileageSinceLast)
+                            .append("/").append(maxMileage).append(" km since last). ");
+                }
+            }
+        }
+
+        // Recorded mileage lags behind; project when the limit is reached
+        long mileageDay = rate != null ? rate.dayReaching((serviced ? lastMileage : 0) + maxMileage) : NONE;
+        if (mileageDay != NONE && mileageDay < plannedDay) {
+            plannedDay = mileageDay;
+            // Only when the recorded mileage did not already raise the priority
+            if (priority == priorityBeforeMileage) {
+                if (mileageDay < today) {
+                    priority += 2;
+                    if (reason != null) {
+                        reason.append("Mileage limit probably reached ").append(today - mileageDay)
+                                .append(" days ago. ");
+                    }
+                } else if (mileageDay - today <= 31) {
+                    long daysUntil = Math.max(0, mileageDay - today - 1);
+                    priority += 1;
+                    if (reason != null) {
+                        reason.append("Mileage limit expected in ").append(daysUntil).append(" days. ");
+                    }
+                }
+            }
+        }
+        return plannedDay << 8 | priority;
+    }
+
+    static long plannedDay(long scored) {
+        return scored >> 8;
+    }
+
+    static int priority(long scored) {
+        return (int) (scored & 0xFF);
+    }
+
+    /**
+     * Counts the days from 1970-01-01 to the local day of an instant.
+     */
+    static long epochDay(TimeZone zone, long millis) {
+        return Math.floorDiv(millis + zone.getOffset(millis), MILLIS_PER_DAY);
+    }
+
+    /**
+     * Local midnight of an epoch day.
+     */
+    static Date toDate(long epochDay) {
+        LocalDate day = LocalDate.ofEpochDay(epochDay);
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(day.getYear(), day.getMonthValue() - 1, day.getDayOfMonth());
+        return cal.getTime();
+    }
+
+    /**
+     * Adds months to an epoch day, moving to the last day of the month when
+     * the day does not exist in it (like Calendar and LocalDate do).
+     */
+    static long plusMonths(long epochDay, int months) {
+        // Civil date from day count, years starting in March (H. Hinnant)
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        long monthIndex = year * 12 + month - 1 + months;
+        year = Math.floorDiv(monthIndex, 12);
+        month = Math.floorMod(monthIndex, 12) + 1;
+        day = Math.min(day, lengthOfMonth(year, month));
+
+        // Back to a day count
+        year -= month <= 2 ? 1 : 0;
+        era = Math.floorDiv(year, 400);
+        yearOfEra = year - era * 400;
+        dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static long lengthOfMonth(long year, long month) {
+        if (month == 2) {
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+}
@@ -1,30 +1,38 @@
 package ui.controller;
 
-import services.InterventionService;
-import services.InterventionService.PlannedIntervention;
+import dto.DashboardSnapshot;
+import services.DashboardSnapshotService;
 import ui.views.DashboardView;
 
 import javax.swing.*;
-import java.util.List;
 
 /**
  * Dashboard controller.
- * Handles loading and displaying urgent maintenance interventions.
+ * Displays the latest snapshot of urgent maintenance interventions, the
+ * due-volume forecast and their age. Snapshots are computed in the background, so the window never waits
+ * for them.
  */
 public class DashboardController {
 
+    /** Interval between two updates of the displayed age. */
+    private static final int AGE_TICK_MS = 1000;
+
     private DashboardView view;
-    private InterventionService interventionService;
+    private DashboardSnapshotService snapshotService;
+    private int limit = 10;
 
     /**
      * Controller constructor.
-     * 
-     * @param view                The dashboard view
-     * @param interventionService The intervention service
+     *
+     * @param view            The dashboard view
+     * @param snapshotService The service publishing dashboard snapshots
      */
-    public DashboardController(DashboardView view, InterventionService interventionService) {
+    public DashboardController(DashboardView view, DashboardSnapshotService snapshotService) {
         this.view = view;
-        this.interventionService = interventionService;
+        this.snapshotService = snapshotService;
+
+        snapshotService.addListener(snapshot -> SwingUtilities.invokeLater(() -> render(snapshot)));
+        new Timer(AGE_TICK_MS, e -> showAge(snapshotService.getSnapshot())).start();
     }
 
     /**
@@ -36,27 +44,39 @@ public class DashboardController {
     }
 
     /**
-     * Loads dashboard data with a custom limit.
-     * 
+     * Displays the latest snapshot at once and asks for a newer one
+     * holding at least limit rows.
+     *
      * @param limit Maximum number of interventions to display
      */
     public void loadData(int limit) {
-        try {
-            List<PlannedIntervention> urgentInterventions = interventionService.getTopUrgentInterventions(limit);
-            view.updateData(urgentInterventions);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(view,
-                    "Error loading data: " + e.getMessage(),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+        this.limit = limit;
+        render(snapshotService.getSnapshot());
+        snapshotService.requestRefresh(limit);
     }
 
     /**
      * Refreshes the dashboard data.
      */
     public void refresh() {
-        loadData();
+        loadData(limit);
+    }
+
+    private void render(DashboardSnapshot snapshot) {
+        if (snapshot == null) {
+            showAge(null);
+            return;
+        }
+        view.updateData(snapshot.getRows().subList(0, Math.min(limit, snapshot.getRows().size())));
+        view.updateForecast(snapshot.getForecast());
+        showAge(snapshot);
+    }
+
+    private void showAge(DashboardSnapshot snapshot) {
+        if (snapshot == null) {
+            view.updateAge(-1, false);
+        } else {
+            view.updateAge(snapshot.getAgeMillis(), !snapshot.isUpToDate());
+        }
     }
 }
@@ -1,9 +1,15 @@
 package ui.controller;
 
 import dao.*;
+import dto.MaintenanceTypeOption;
+import dto.PriceDecision;
+import dto.TypeOption;
+import dto.VehicleOption;
 import entities.*;
+import services.InterventionService;
 import services.PriceService;
 import ui.views.InterventionFormView;
+import utils.UnitOfWork;
 
 import javax.swing.*;
 import java.text.ParseException;
@@ -23,6 +29,10 @@ public class InterventionController {
     private VehicleDAO vehicleDAO;
     private InterventionTypeDAO interventionTypeDAO;
     private MaintenanceTypeDAO maintenanceTypeDAO;
+    private PartDAO partDAO;
+    private InterventionService interventionService;
+    /** Decision behind the displayed price, recorded with the intervention when saved. */
+    private PriceDecision shownDecision;
 
     private SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
 
@@ -39,6 +49,8 @@ public class InterventionController {
         this.vehicleDAO = new VehicleDAO();
         this.interventionTypeDAO = new InterventionTypeDAO();
         this.maintenanceTypeDAO = new MaintenanceTypeDAO();
+        this.partDAO = new PartDAO();
+        this.interventionService = new InterventionService();
 
         initData();
         initEventHandlers();
@@ -50,9 +62,9 @@ public class InterventionController {
     private void initData() {
 
         try {
-            List<Vehicle> vehicles = vehicleDAO.findAll();
+            List<VehicleOption> vehicles = vehicleDAO.findOptions();
             view.comboVehicle.removeAllItems();
-            for (Vehicle vehicle : vehicles) {
+            for (VehicleOption vehicle : vehicles) {
                 view.comboVehicle.addItem(vehicle);
             }
         } catch (Exception e) {
@@ -60,9 +72,9 @@ public class InterventionController {
         }
 
         try {
-            List<InterventionType> types = interventionTypeDAO.findAll();
+            List<TypeOption> types = interventionTypeDAO.findOptions();
             view.comboInterventionType.removeAllItems();
-            for (InterventionType type : types) {
+            for (TypeOption type : types) {
                 view.comboInterventionType.addItem(type);
             }
         } catch (Exception e) {
@@ -70,14 +82,21 @@ public class InterventionController {
         }
 
         try {
-            List<MaintenanceType> maintenanceTypes = maintenanceTypeDAO.findAll();
+            List<MaintenanceTypeOption> maintenanceTypes = maintenanceTypeDAO.findOptions();
             view.comboMaintenanceType.removeAllItems();
-            for (MaintenanceType mt : maintenanceTypes) {
+            for (MaintenanceTypeOption mt : maintenanceTypes) {
                 view.comboMaintenanceType.addItem(mt);
             }
         } catch (Exception e) {
             System.err.println("Error loading maintenance types: " + e.getMessage());
         }
+
+        try {
+            view.getDiagramView().setParts(partDAO.findAll());
+        } catch (Exception e) {
+            System.err.println("Error loading parts: " + e.getMessage());
+        }
+        showVehiclePlan();
     }
 
     /**
@@ -90,6 +109,79 @@ public class InterventionController {
         view.btnSave.addActionListener(e -> saveIntervention());
 
         view.btnClear.addActionListener(e -> view.clearForm());
+
+        view.btnShowDiagram.addActionListener(e -> showVehicleDiagram());
+
+        view.comboVehicle.addActionListener(e -> showVehiclePlan());
+    }
+
+    /**
+     * Colours the diagram parts by the maintenance plan of the selected
+     * vehicle, as soon as it is selected.
+     */
+    private void showVehiclePlan() {
+        try {
+            Vehicle vehicle = loadSelectedVehicle();
+            view.getDiagramView().setVehicleData(vehicle,
+                    vehicle != null ? interventionService.getPlannedInterventionsForVehicle(vehicle) : null, null);
+        } catch (Exception e) {
+            System.err.println("Error loading maintenance plan: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the selected vehicle and shows its diagram.
+     */
+    private void showVehicleDiagram() {
+        if (view.comboVehicle.getSelectedItem() == null) {
+            JOptionPane.showMessageDialog(view,
+                    "Please select a vehicle first.",
+                    "No Vehicle Selected",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        try {
+            Vehicle vehicle = loadSelectedVehicle();
+            view.showVehicleDiagram(vehicle, interventionService.getPlannedInterventionsForVehicle(vehicle));
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(view,
+                    "Error loading vehicle: " + e.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Loads the full vehicle behind the selected picker entry.
+     * The combo box only holds lightweight options.
+     */
+    private Vehicle loadSelectedVehicle() {
+        VehicleOption option = (VehicleOption) view.comboVehicle.getSelectedItem();
+        if (option == null) {
+            return null;
+        }
+        Vehicle vehicle = vehicleDAO.findById(option.getId());
+        if (vehicle == null) {
+            throw new IllegalStateException("Vehicle " + option.getPlate() + " no longer exists.");
+        }
+        return vehicle;
+    }
+
+    /**
+     * Loads the intervention type behind the selected picker entry.
+     */
+    private InterventionType loadSelectedType() {
+        TypeOption option = (TypeOption) view.comboInterventionType.getSelectedItem();
+        if (option == null) {
+            return null;
+        }
+        InterventionType type = interventionTypeDAO.findById(option.getId());
+        if (type == null) {
+            throw new IllegalStateException("Intervention type " + option.getLabel() + " no longer exists.");
+        }
+        return type;
     }
 
     /**
@@ -104,8 +196,8 @@ public class InterventionController {
      */
     private void calculatePrice() {
         try {
-            Vehicle selectedVehicle = (Vehicle) view.comboVehicle.getSelectedItem();
-            InterventionType selectedType = (InterventionType) view.comboInterventionType.getSelectedItem();
+            Vehicle selectedVehicle = loadSelectedVehicle();
+            InterventionType selectedType = loadSelectedType();
 
             if (selectedVehicle == null) {
                 JOptionPane.showMessageDialog(view,
@@ -123,15 +215,6 @@ public class InterventionController {
                 return;
             }
 
-            // Log the selected values for debugging
-            VehicleType vehicleType = selectedVehicle.getVehicleType();
-            System.out.println("=== Price Calculation Request ===");
-            System.out.println("Selected Vehicle: " + selectedVehicle);
-            System.out.println("Vehicle Type: " + (vehicleType != null
-                    ? vehicleType.getBrand() + " " + vehicleType.getModel() + " (ID: " + vehicleType.getId() + ")"
-                    : "NULL"));
-            System.out.println("Intervention Type: " + selectedType.getName() + " (ID: " + selectedType.getId() + ")");
-
             // Parse base price if provided (used for fallback calculation)
             double basePrice = 0.0;
             String basePriceText = view.txtBasePrice.getText().trim();
@@ -149,17 +232,16 @@ public class InterventionController {
             tempIntervention.setInterventionType(selectedType);
             tempIntervention.setPrice(basePrice); // Base price for fallback only
 
-            // Use PriceService.calculatePrice() which:
+            // Use PriceService.decide() which:
             // 1. Checks the Pricing table for exact InterventionType + VehicleType match
-            // 2. If found, returns that price
-            // 3. If not found, calculates fallback price with multipliers
-            double finalPrice = priceService.calculatePrice(tempIntervention);
-
-            // Display the calculated price
-            view.displayPrice(finalPrice);
+            // 2. Else checks the GroupPricing rules of the brand, then of the
+            //    fuel type and power, then the intervention type default
+            // 3. If none applies, calculates fallback price with multipliers
+            // and records the decision in the price trace
+            shownDecision = priceService.decide(tempIntervention);
 
-            System.out.println("Final calculated price: " + finalPrice + " €");
-            System.out.println("=================================");
+            // Display the calculated price and the rule it comes from
+            view.displayPrice(shownDecision.getPrice(), describeOrigin(shownDecision));
 
         } catch (Exception e) {
             JOptionPane.showMessageDialog(view,
@@ -170,6 +252,22 @@ public class InterventionController {
         }
     }
 
+    private static String describeOrigin(PriceDecision decision) {
+        if (decision.getSource() != PriceDecision.Source.RULE) {
+            return "Estimated from the base price";
+        }
+        switch (decision.getLevel()) {
+            case VEHICLE_TYPE:
+                return "Price of the vehicle type";
+            case BRAND:
+                return "Price of the brand";
+            case FUEL_TYPE_POWER:
+                return "Price of the fuel type and power";
+            default:
+                return "Default price of the intervention type";
+        }
+    }
+
     /**
      * Saves a new intervention.
      */
@@ -180,8 +278,8 @@ public class InterventionController {
                 return;
             }
 
-            Vehicle selectedVehicle = (Vehicle) view.comboVehicle.getSelectedItem();
-            InterventionType selectedType = (InterventionType) view.comboInterventionType.getSelectedItem();
+            Vehicle selectedVehicle = loadSelectedVehicle();
+            InterventionType selectedType = loadSelectedType();
 
             Date interventionDate;
             String dateText = view.txtDate.getText().trim();
@@ -195,39 +293,33 @@ public class InterventionController {
 
             // Calculate the price using PriceService
             double price;
+            PriceDecision decision;
             String finalPriceText = view.txtFinalPrice.getText().trim();
 
             if (!finalPriceText.isEmpty()) {
-                // Use the already calculated final price if available
+                // Use the already calculated (or hand-entered) final price if available
                 price = Double.parseDouble(finalPriceText.replace(",", "."));
+                decision = shownDecision;
             } else {
-                // Calculate price automatically using PriceService
-                VehicleType vehicleType = selectedVehicle.getVehicleType();
-
-                // First try to get exact price from database
-                Double exactPrice = priceService.getExactPrice(selectedType, vehicleType);
-
-                if (exactPrice != null) {
-                    price = exactPrice;
-                } else {
-                    // Use fallback calculation with base price if provided
-                    double basePrice = 0.0;
-                    String basePriceText = view.txtBasePrice.getText().trim();
-                    if (!basePriceText.isEmpty()) {
-                        try {
-                            basePrice = Double.parseDouble(basePriceText);
-                        } catch (NumberFormatException e) {
-                            // Use default
-                        }
+                // Calculate price automatically using PriceService:
+                // exact price from the Pricing table, or fallback calculation with base price if provided
+                double basePrice = 0.0;
+                String basePriceText = view.txtBasePrice.getText().trim();
+                if (!basePriceText.isEmpty()) {
+                    try {
+                        basePrice = Double.parseDouble(basePriceText);
+                    } catch (NumberFormatException e) {
+                        // Use default
                     }
+                }
 
-                    Intervention tempIntervention = new Intervention();
-                    tempIntervention.setVehicle(selectedVehicle);
-                    tempIntervention.setInterventionType(selectedType);
-                    tempIntervention.setPrice(basePrice);
+                Intervention tempIntervention = new Intervention();
+                tempIntervention.setVehicle(selectedVehicle);
+                tempIntervention.setInterventionType(selectedType);
+                tempIntervention.setPrice(basePrice);
 
-                    price = priceService.calculatePrice(tempIntervention);
-                }
+                decision = priceService.decide(tempIntervention);
+                price = decision.getPrice();
             }
 
             Intervention intervention = new Intervention();
@@ -237,11 +329,17 @@ public class InterventionController {
             intervention.setVehicleMileage(mileage);
             intervention.setPrice(price);
 
-            interventionDAO.save(intervention);
+            // Save the intervention and the new mileage in a single transaction
+            try (UnitOfWork uow = UnitOfWork.begin()) {
+                interventionDAO.save(intervention);
 
-            if (mileage > selectedVehicle.getLastMileage()) {
-                vehicleDAO.setLastMileage(selectedVehicle.getId(), mileage);
+                if (mileage > selectedVehicle.getLastMileage()) {
+                    vehicleDAO.setLastMileage(selectedVehicle.getId(), mileage);
+                }
+                uow.commit();
             }
+            priceService.recordSaved(intervention, decision);
+            shownDecision = null;
 
             JOptionPane.showMessageDialog(view,
                     "Intervention registered successfully!\nPrice: " + String.format("%.2f", price) + " €",
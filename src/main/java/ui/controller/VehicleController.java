@@ -3,6 +3,7 @@ package ui.controller;
 import dao.*;
 import entities.*;
 import ui.views.VehicleFormView;
+import utils.UnitOfWork;
 
 import javax.swing.*;
 import java.text.ParseException;
@@ -124,19 +125,21 @@ public class VehicleController {
                 dateOfFirstReg = dateFormat.parse(dateText);
             }
 
-            
-            Registration registration = new Registration(part1, part2, part3);
-            registrationDAO.create(registration);
+            // Registration and vehicle are created together or not at all
+            try (UnitOfWork uow = UnitOfWork.begin()) {
+                Registration registration = new Registration(part1, part2, part3);
+                registrationDAO.create(registration);
 
-            
-            Vehicle vehicle = new Vehicle();
-            vehicle.setOwner(selectedOwner);
-            vehicle.setVehicleType(selectedType);
-            vehicle.setRegistration(registration);
-            vehicle.setLastMileage(mileage);
-            vehicle.setDateOfFirstRegistration(dateOfFirstReg);
-
-            vehicleDAO.create(vehicle);
+                Vehicle vehicle = new Vehicle();
+                vehicle.setOwner(selectedOwner);
+                vehicle.setVehicleType(selectedType);
+                vehicle.setRegistration(registration);
+                vehicle.setLastMileage(mileage);
+                vehicle.setDateOfFirstRegistration(dateOfFirstReg);
+
+                vehicleDAO.create(vehicle);
+                uow.commit();
+            }
 
             
             String plateNumber = part1 + "-" + part2 + "-" + part3;
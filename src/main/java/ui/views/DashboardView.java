@@ -6,11 +6,13 @@ import javax.swing.table.*;
 import java.awt.*;
 import java.text.SimpleDateFormat;
 import java.util.List;
-import services.InterventionService.PlannedIntervention;
+import dto.DueForecast;
+import dto.PlannedInterventionRow;
 
 /**
  * Dashboard view displaying scheduled maintenance interventions.
- * Shows a list of interventions sorted by urgency.
+ * Shows a list of interventions sorted by urgency and a chart of the
+ * maintenance jobs falling due per week.
  */
 public class DashboardView extends JPanel {
 
@@ -23,10 +25,23 @@ public class DashboardView extends JPanel {
     private static final Color SUCCESS_COLOR = new Color(34, 197, 94);
     private static final Color TEXT_PRIMARY = new Color(30, 41, 59);
     private static final Color TEXT_SECONDARY = new Color(100, 116, 139);
+    private static final Color GRID_COLOR = new Color(226, 232, 240);
+
+    /** Bar colors of the maintenance types, reused in order. */
+    private static final Color[] SERIES_COLORS = {
+            new Color(59, 130, 246), new Color(245, 158, 11), new Color(34, 197, 94),
+            new Color(168, 85, 247), new Color(239, 68, 68), new Color(20, 184, 166),
+            new Color(236, 72, 153), new Color(100, 116, 139)
+    };
 
     
     private DefaultTableModel tableModel;
     private JTable maintenanceTable;
+    private JLabel ageLabel;
+    private JLabel overdueLabel;
+    private JComboBox<String> vehicleTypeCombo;
+    private ForecastChart forecastChart;
+    private DueForecast forecast;
 
     private SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy");
 
@@ -40,6 +55,8 @@ public class DashboardView extends JPanel {
 
         
         add(createTablePanel(), BorderLayout.CENTER);
+
+        add(createForecastPanel(), BorderLayout.SOUTH);
     }
 
     /**
@@ -68,6 +85,12 @@ public class DashboardView extends JPanel {
 
         header.add(titlePanel, BorderLayout.WEST);
 
+        ageLabel = new JLabel();
+        ageLabel.setFont(new Font("SansSerif", Font.PLAIN, 12));
+        ageLabel.setForeground(TEXT_SECONDARY);
+        updateAge(-1, false);
+        header.add(ageLabel, BorderLayout.EAST);
+
         return header;
     }
 
@@ -146,13 +169,98 @@ public class DashboardView extends JPanel {
         return tablePanel;
     }
 
+    /**
+     * Creates the due-volume forecast panel.
+     */
+    private JPanel createForecastPanel() {
+        JPanel forecastPanel = new JPanel(new BorderLayout());
+        forecastPanel.setBackground(CARD_BACKGROUND);
+        forecastPanel.setBorder(new LineBorder(GRID_COLOR, 1, true));
+        forecastPanel.setPreferredSize(new Dimension(0, 280));
+
+        JPanel forecastHeader = new JPanel(new BorderLayout());
+        forecastHeader.setBackground(CARD_BACKGROUND);
+        forecastHeader.setBorder(new EmptyBorder(15, 25, 5, 25));
+
+        JLabel forecastTitle = new JLabel("📅 Due Volume Forecast");
+        forecastTitle.setFont(new Font("SansSerif", Font.BOLD, 18));
+        forecastTitle.setForeground(TEXT_PRIMARY);
+
+        overdueLabel = new JLabel("Maintenance jobs falling due per week");
+        overdueLabel.setFont(new Font("SansSerif", Font.PLAIN, 12));
+        overdueLabel.setForeground(TEXT_SECONDARY);
+
+        JPanel titleContainer = new JPanel();
+        titleContainer.setLayout(new BoxLayout(titleContainer, BoxLayout.Y_AXIS));
+        titleContainer.setOpaque(false);
+        titleContainer.add(forecastTitle);
+        titleContainer.add(overdueLabel);
+
+        vehicleTypeCombo = new JComboBox<>();
+        vehicleTypeCombo.setFont(new Font("SansSerif", Font.PLAIN, 12));
+        vehicleTypeCombo.addActionListener(e -> showForecast());
+
+        forecastHeader.add(titleContainer, BorderLayout.WEST);
+        forecastHeader.add(vehicleTypeCombo, BorderLayout.EAST);
+
+        forecastChart = new ForecastChart();
+
+        forecastPanel.add(forecastHeader, BorderLayout.NORTH);
+        forecastPanel.add(forecastChart, BorderLayout.CENTER);
+
+        return forecastPanel;
+    }
+
+    /**
+     * Updates the due-volume forecast chart.
+     * The vehicle type selection is kept when still present.
+     *
+     * @param forecast The forecast, or null while none was computed yet
+     */
+    public void updateForecast(DueForecast forecast) {
+        Object selected = vehicleTypeCombo.getSelectedItem();
+        this.forecast = forecast;
+
+        DefaultComboBoxModel<String> model = new DefaultComboBoxModel<>();
+        model.addElement("All vehicle types");
+        if (forecast != null && forecast.getVehicleTypeIds().size() > 1) {
+            for (String label : forecast.getVehicleTypeLabels()) {
+                model.addElement(label);
+            }
+        }
+        vehicleTypeCombo.setModel(model);
+        if (selected != null && model.getIndexOf(selected) >= 0) {
+            vehicleTypeCombo.setSelectedItem(selected);
+        }
+        showForecast();
+    }
+
+    /**
+     * Displays the forecast for the selected vehicle type.
+     */
+    private void showForecast() {
+        int group = vehicleTypeCombo.getSelectedIndex() - 1;
+        if (forecast == null || forecast.getVehicleTypeIds().size() <= 1) {
+            group = -1;
+        }
+        if (forecast != null) {
+            int late = 0;
+            for (int type = 0; type < forecast.getMaintenanceTypeIds().size(); type++) {
+                late += group < 0 ? forecast.getOverdue(type) : forecast.getOverdue(group, type);
+            }
+            overdueLabel.setText("Maintenance jobs falling due per week over the next " +
+                    forecast.getWeeks() + " weeks, " + late + " already overdue");
+        }
+        forecastChart.show(forecast, group);
+    }
+
     /**
      * Updates the dashboard data with planned interventions.
      */
-    public void updateData(List<PlannedIntervention> interventions) {
+    public void updateData(List<PlannedInterventionRow> interventions) {
         tableModel.setRowCount(0);
 
-        for (PlannedIntervention pi : interventions) {
+        for (PlannedInterventionRow pi : interventions) {
             String dateStr = pi.getPlannedDate() != null ? dateFormat.format(pi.getPlannedDate()) : "N/A";
             int priority = pi.getPriority();
 
@@ -168,6 +276,161 @@ public class DashboardView extends JPanel {
         }
     }
 
+    /**
+     * Shows how old the displayed data is.
+     *
+     * @param ageMillis The age in milliseconds, or a negative value while
+     *                  no data was loaded yet
+     * @param stale     Whether the data was read while the maintenance
+     *                  schedule was still being brought up to date
+     */
+    public void updateAge(long ageMillis, boolean stale) {
+        String age;
+        if (ageMillis < 0) {
+            age = "Loading...";
+        } else if (ageMillis < 5000) {
+            age = "Updated just now";
+        } else if (ageMillis < 60000) {
+            age = "Updated " + ageMillis / 1000 + " s ago";
+        } else {
+            age = "Updated " + ageMillis / 60000 + " min ago";
+        }
+        ageLabel.setText(stale && ageMillis >= 0 ? age + " (updating maintenance schedule...)" : age);
+    }
+
+    /**
+     * Stacked bar chart of the jobs falling due per week, one color per
+     * maintenance type. Hovering a bar shows its counts.
+     */
+    private class ForecastChart extends JPanel {
+
+        private static final int LEFT = 55;
+        private static final int RIGHT = 25;
+        private static final int TOP = 10;
+        private static final int BOTTOM = 50;
+
+        private DueForecast shown;
+        private int group = -1;
+
+        ForecastChart() {
+            setBackground(CARD_BACKGROUND);
+            setToolTipText("");
+        }
+
+        void show(DueForecast forecast, int group) {
+            this.shown = forecast;
+            this.group = group;
+            repaint();
+        }
+
+        private int count(int week, int type) {
+            return group < 0 ? shown.getCount(week, type) : shown.getCount(group, week, type);
+        }
+
+        private int weekTotal(int week) {
+            int total = 0;
+            for (int type = 0; type < shown.getMaintenanceTypeIds().size(); type++) {
+                total += count(week, type);
+            }
+            return total;
+        }
+
+        private int weekAt(int x) {
+            int plotWidth = getWidth() - LEFT - RIGHT;
+            if (shown == null || plotWidth <= 0 || x < LEFT || x >= LEFT + plotWidth) {
+                return -1;
+            }
+            return (x - LEFT) * shown.getWeeks() / plotWidth;
+        }
+
+        @Override
+        public String getToolTipText(java.awt.event.MouseEvent event) {
+            int week = weekAt(event.getX());
+            if (week < 0) {
+                return null;
+            }
+            StringBuilder tip = new StringBuilder("<html><b>Week of ")
+                    .append(dateFormat.format(shown.getWeekStart(week))).append("</b>");
+            List<String> names = shown.getMaintenanceTypeNames();
+            for (int type = 0; type < names.size(); type++) {
+                tip.append("<br>").append(names.get(type)).append(": ").append(count(week, type));
+            }
+            return tip.append("<br>Total: ").append(weekTotal(week)).append("</html>").toString();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            if (shown == null) {
+                return;
+            }
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setFont(new Font("SansSerif", Font.PLAIN, 11));
+            FontMetrics fm = g2.getFontMetrics();
+
+            int weeks = shown.getWeeks();
+            int types = shown.getMaintenanceTypeIds().size();
+            int plotWidth = getWidth() - LEFT - RIGHT;
+            int plotHeight = getHeight() - TOP - BOTTOM;
+            if (plotWidth <= 0 || plotHeight <= 0) {
+                g2.dispose();
+                return;
+            }
+            int max = 1;
+            for (int week = 0; week < weeks; week++) {
+                max = Math.max(max, weekTotal(week));
+            }
+
+            // Horizontal grid with counts
+            g2.setColor(GRID_COLOR);
+            int steps = Math.min(4, max);
+            for (int step = 0; step <= steps; step++) {
+                int value = max * step / steps;
+                int y = TOP + plotHeight - plotHeight * value / max;
+                g2.setColor(GRID_COLOR);
+                g2.drawLine(LEFT, y, LEFT + plotWidth, y);
+                g2.setColor(TEXT_SECONDARY);
+                String label = String.valueOf(value);
+                g2.drawString(label, LEFT - 8 - fm.stringWidth(label), y + fm.getAscent() / 2);
+            }
+
+            // One stacked bar per week, a date label every four weeks
+            double slot = (double) plotWidth / weeks;
+            int barWidth = Math.max(1, (int) (slot * 0.7));
+            for (int week = 0; week < weeks; week++) {
+                int x = LEFT + (int) (week * slot + (slot - barWidth) / 2);
+                int base = TOP + plotHeight;
+                for (int type = 0; type < types; type++) {
+                    int height = plotHeight * count(week, type) / max;
+                    if (height > 0) {
+                        g2.setColor(SERIES_COLORS[type % SERIES_COLORS.length]);
+                        g2.fillRect(x, base - height, barWidth, height);
+                        base -= height;
+                    }
+                }
+                if (week % 4 == 0) {
+                    g2.setColor(TEXT_SECONDARY);
+                    String label = new SimpleDateFormat("dd/MM").format(shown.getWeekStart(week));
+                    g2.drawString(label, x, TOP + plotHeight + fm.getAscent() + 4);
+                }
+            }
+
+            // Legend
+            int x = LEFT;
+            int y = getHeight() - 12;
+            List<String> names = shown.getMaintenanceTypeNames();
+            for (int type = 0; type < types; type++) {
+                g2.setColor(SERIES_COLORS[type % SERIES_COLORS.length]);
+                g2.fillRoundRect(x, y - 9, 10, 10, 3, 3);
+                g2.setColor(TEXT_PRIMARY);
+                g2.drawString(names.get(type), x + 14, y);
+                x += 14 + fm.stringWidth(names.get(type)) + 18;
+            }
+            g2.dispose();
+        }
+    }
+
     /**
      * Custom renderer to display priority with colors.
      */
@@ -4,7 +4,13 @@ import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.*;
+import dto.MaintenanceTypeOption;
+import dto.TypeOption;
+import dto.VehicleOption;
 import entities.*;
+import services.InterventionService.PlannedIntervention;
+
+import java.util.List;
 
 /**
  * Intervention form view.
@@ -25,9 +31,9 @@ public class InterventionFormView extends JPanel {
     private static final Color INPUT_BACKGROUND = new Color(248, 250, 252);
 
     
-    public JComboBox<Vehicle> comboVehicle;
-    public JComboBox<InterventionType> comboInterventionType;
-    public JComboBox<MaintenanceType> comboMaintenanceType;
+    public JComboBox<VehicleOption> comboVehicle;
+    public JComboBox<TypeOption> comboInterventionType;
+    public JComboBox<MaintenanceTypeOption> comboMaintenanceType;
     public JTextField txtDate;
     public JTextField txtMileage;
     public JTextField txtBasePrice;
@@ -190,19 +196,8 @@ public class InterventionFormView extends JPanel {
             public Component getListCellRendererComponent(JList<?> list, Object value,
                     int index, boolean isSelected, boolean cellHasFocus) {
                 super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-                if (value instanceof Vehicle) {
-                    Vehicle v = (Vehicle) value;
-                    String reg = v.getRegistration() != null
-                            ? v.getRegistration().getPart1() + "-" + v.getRegistration().getPart2() + "-"
-                                    + v.getRegistration().getPart3()
-                            : "N/A";
-                    String brand = v.getVehicleType() != null
-                            ? v.getVehicleType().getBrand() + " " + v.getVehicleType().getModel()
-                            : "";
-                    String owner = v.getOwner() != null
-                            ? " - " + v.getOwner().getFirstName() + " " + v.getOwner().getLastName()
-                            : "";
-                    setText("🚗 " + reg + " | " + brand + owner);
+                if (value instanceof VehicleOption) {
+                    setText("🚗 " + ((VehicleOption) value).getLabel());
                     setFont(new Font("SansSerif", Font.PLAIN, 14));
                 }
                 return this;
@@ -222,7 +217,6 @@ public class InterventionFormView extends JPanel {
         btnShowDiagram.setFocusPainted(false);
         btnShowDiagram.setBorderPainted(false);
         btnShowDiagram.setCursor(new Cursor(Cursor.HAND_CURSOR));
-        btnShowDiagram.addActionListener(e -> showVehicleDiagram());
 
         btnShowDiagram.addMouseListener(new MouseAdapter() {
             @Override
@@ -258,20 +252,12 @@ public class InterventionFormView extends JPanel {
 
     /**
      * Shows the vehicle diagram in a dialog.
+     *
+     * @param selectedVehicle The vehicle to display
+     * @param planned         Its planned interventions, colouring the parts
      */
-    private void showVehicleDiagram() {
-        Vehicle selectedVehicle = (Vehicle) comboVehicle.getSelectedItem();
-
-        if (selectedVehicle == null) {
-            JOptionPane.showMessageDialog(this,
-                    "Please select a vehicle first.",
-                    "No Vehicle Selected",
-                    JOptionPane.WARNING_MESSAGE);
-            return;
-        }
-
-        
-        diagramView.setVehicleData(selectedVehicle, null, null);
+    public void showVehicleDiagram(Vehicle selectedVehicle, List<PlannedIntervention> planned) {
+        diagramView.setVehicleData(selectedVehicle, planned, null);
 
         
         if (diagramDialog == null) {
@@ -322,8 +308,8 @@ public class InterventionFormView extends JPanel {
             public Component getListCellRendererComponent(JList<?> list, Object value,
                     int index, boolean isSelected, boolean cellHasFocus) {
                 super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-                if (value instanceof InterventionType) {
-                    setText(((InterventionType) value).getName());
+                if (value instanceof TypeOption) {
+                    setText(((TypeOption) value).getLabel());
                 }
                 return this;
             }
@@ -354,9 +340,8 @@ public class InterventionFormView extends JPanel {
             public Component getListCellRendererComponent(JList<?> list, Object value,
                     int index, boolean isSelected, boolean cellHasFocus) {
                 super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-                if (value instanceof MaintenanceType) {
-                    MaintenanceType mt = (MaintenanceType) value;
-                    setText(mt.getName() + " (max " + mt.getMaxMileage() + " km / " + mt.getMaxDuration() + " months)");
+                if (value instanceof MaintenanceTypeOption) {
+                    setText(((MaintenanceTypeOption) value).getLabel());
                 }
                 return this;
             }
@@ -676,6 +661,7 @@ public class InterventionFormView extends JPanel {
         txtMileage.setText("");
         txtBasePrice.setText("100.00");
         txtFinalPrice.setText("");
+        txtFinalPrice.setToolTipText(null);
         if (comboVehicle.getItemCount() > 0) {
             comboVehicle.setSelectedIndex(0);
         }
@@ -691,7 +677,17 @@ public class InterventionFormView extends JPanel {
      * Displays the calculated price.
      */
     public void displayPrice(double price) {
+        displayPrice(price, null);
+    }
+
+    /**
+     * Displays the calculated price and, as tooltip, where it comes from.
+     *
+     * @param origin The origin of the price, or null
+     */
+    public void displayPrice(double price, String origin) {
         txtFinalPrice.setText(String.format("%.2f", price));
+        txtFinalPrice.setToolTipText(origin);
     }
 
     /**
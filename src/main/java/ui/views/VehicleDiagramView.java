@@ -4,6 +4,7 @@ import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.List;
 import entities.*;
@@ -38,6 +39,10 @@ public class VehicleDiagramView extends JPanel {
     private static final Color CAR_OUTLINE_COLOR = new Color(180, 190, 200); 
     private static final Color LABEL_BG = new Color(30, 41, 59, 220); 
 
+    /** Priorities from which a maintenance area is shown as due soon / urgent. */
+    private static final int DUE_PRIORITY = 2;
+    private static final int URGENT_PRIORITY = 5;
+
     
     
     
@@ -60,6 +65,9 @@ public class VehicleDiagramView extends JPanel {
     
     private List<PlannedIntervention> plannedInterventions;
 
+    /** Diagram areas showing the parts of each intervention type, by type id. */
+    private Map<Long, Set<VehiclePart>> partsByInterventionType = new HashMap<>();
+
     
     
     
@@ -250,7 +258,8 @@ public class VehicleDiagramView extends JPanel {
 
     /**
      * Initializes all vehicle parts with their positions and intervention keywords.
-     * Each part has separate lists for MAINTENANCE and REPAIR actions.
+     * Each part has separate lists for MAINTENANCE and REPAIR actions, and
+     * the names of the Part entities it shows.
      */
     private void initVehicleParts() {
         vehicleParts = new LinkedHashMap<>();
@@ -260,32 +269,38 @@ public class VehicleDiagramView extends JPanel {
         String[] wheelRepair = { "Tire Replacement", "Wheel Alignment" };
 
         
-        vehicleParts.put("WHEEL_FL",
-                new VehiclePart("Front L. Wheel", 0.02, 0.12, 0.14, 0.18, wheelMaint, wheelRepair));
-        vehicleParts.put("WHEEL_FR",
-                new VehiclePart("Front R. Wheel", 0.84, 0.12, 0.14, 0.18, wheelMaint, wheelRepair));
-        vehicleParts.put("WHEEL_RL", new VehiclePart("Rear L. Wheel", 0.02, 0.70, 0.14, 0.18, wheelMaint, wheelRepair));
-        vehicleParts.put("WHEEL_RR", new VehiclePart("Rear R. Wheel", 0.84, 0.70, 0.14, 0.18, wheelMaint, wheelRepair));
+        vehicleParts.put("WHEEL_FL", new VehiclePart("Front L. Wheel", 0.02, 0.12, 0.14, 0.18,
+                wheelMaint, wheelRepair, new String[] { "Front Left Tire" }));
+        vehicleParts.put("WHEEL_FR", new VehiclePart("Front R. Wheel", 0.84, 0.12, 0.14, 0.18,
+                wheelMaint, wheelRepair, new String[] { "Front Right Tire" }));
+        vehicleParts.put("WHEEL_RL", new VehiclePart("Rear L. Wheel", 0.02, 0.70, 0.14, 0.18,
+                wheelMaint, wheelRepair, new String[] { "Rear Left Tire" }));
+        vehicleParts.put("WHEEL_RR", new VehiclePart("Rear R. Wheel", 0.84, 0.70, 0.14, 0.18,
+                wheelMaint, wheelRepair, new String[] { "Rear Right Tire" }));
 
         
         vehicleParts.put("BRAKES", new VehiclePart("Braking System", 0.30, 0.28, 0.40, 0.10,
                 new String[] { "Brake Fluid Check", "Brake Pads Check" },
-                new String[] { "Replace Brake Discs", "Replace Brake Pads" }));
+                new String[] { "Replace Brake Discs", "Replace Brake Pads" },
+                new String[] { "Front Left Brake", "Front Right Brake", "Rear Left Brake", "Rear Right Brake" }));
 
         
         vehicleParts.put("ENGINE", new VehiclePart("Engine / Front", 0.25, 0.02, 0.50, 0.25,
                 new String[] { "Oil Level Check", "Coolant Check", "Filter Change", "Front Lights Check" },
-                new String[] { "Engine Repair", "Front Bumper Replacement" }));
+                new String[] { "Engine Repair", "Front Bumper Replacement" },
+                new String[] { "Engine", "Oil Filter", "Cooling System", "Air Filter", "Timing Belt" }));
 
         
         vehicleParts.put("BATTERY", new VehiclePart("Power Supply", 0.25, 0.40, 0.50, 0.30,
                 new String[] { "Battery Check", "Electrical System Check" },
-                new String[] { "Battery Replacement", "Alternator Repair" }));
+                new String[] { "Battery Replacement", "Alternator Repair" },
+                new String[] { "Battery" }));
 
         
         vehicleParts.put("EXHAUST", new VehiclePart("Rear / Exhaust", 0.30, 0.85, 0.40, 0.12,
                 new String[] { "Rear Lights Check", "Exhaust Inspection" },
-                new String[] { "Rear Bumper Replacement", "Exhaust System Repair" }));
+                new String[] { "Rear Bumper Replacement", "Exhaust System Repair" },
+                new String[] {}));
     }
 
     
@@ -381,7 +396,8 @@ public class VehicleDiagramView extends JPanel {
                 new EmptyBorder(5, 20, 5, 20)));
 
         p.add(createBadge(SUCCESS_COLOR, "Maintenance Mode Area"));
-        p.add(createBadge(DANGER_COLOR, "Repair Mode Area"));
+        p.add(createBadge(WARNING_COLOR, "Maintenance Due Soon"));
+        p.add(createBadge(DANGER_COLOR, "Repair Mode Area / Urgent Maintenance"));
         p.add(createBadge(PRIMARY_COLOR, "Selected Part"));
 
         return p;
@@ -429,6 +445,20 @@ public class VehicleDiagramView extends JPanel {
         this.plannedInterventions = planned != null ? planned : new ArrayList<>();
 
         
+        for (VehiclePart part : vehicleParts.values()) {
+            part.planned.clear();
+        }
+        for (PlannedIntervention pi : plannedInterventions) {
+            if (pi.getMaintenanceType() == null) {
+                continue;
+            }
+            for (VehiclePart part : partsByInterventionType.getOrDefault(pi.getMaintenanceType().getId(),
+                    Collections.emptySet())) {
+                part.planned.add(pi);
+            }
+        }
+
+        
         diagramPanel.repaint();
 
         if (selectedPart != null) {
@@ -436,6 +466,28 @@ public class VehicleDiagramView extends JPanel {
         }
     }
 
+    /**
+     * Links the Part entities to the diagram areas showing them, by name.
+     * Planned interventions are then shown on the areas of the parts of
+     * their type.
+     *
+     * @param parts All parts
+     */
+    public void setParts(List<Part> parts) {
+        partsByInterventionType = new HashMap<>();
+        for (Part part : parts) {
+            if (part.getInterventionType() == null) {
+                continue;
+            }
+            for (VehiclePart area : vehicleParts.values()) {
+                if (area.shows(part.getName())) {
+                    partsByInterventionType.computeIfAbsent(part.getInterventionType().getId(),
+                            id -> new LinkedHashSet<>()).add(area);
+                }
+            }
+        }
+    }
+
     /**
      * Updates the details panel with information about the selected part.
      * Shows different actions based on current mode.
@@ -452,6 +504,19 @@ public class VehicleDiagramView extends JPanel {
         sb.append("Mode: ").append(currentMode == InterventionMode.MAINTENANCE ? "Maintenance" : "Repair").append("\n");
         sb.append("Available actions: ").append(actions.length).append("\n");
 
+        if (currentMode == InterventionMode.MAINTENANCE && !part.planned.isEmpty()) {
+            SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy");
+            sb.append("\nPlanned maintenance:\n");
+            for (PlannedIntervention pi : part.planned) {
+                sb.append("• ").append(pi.getInterventionName())
+                        .append(" - ").append(dateFormat.format(pi.getPlannedDate()))
+                        .append(" (priority ").append(pi.getPriority()).append(")\n");
+                if (pi.getReason() != null && !pi.getReason().isEmpty()) {
+                    sb.append("  ").append(pi.getReason()).append("\n");
+                }
+            }
+        }
+
         detailsArea.setText(sb.toString());
 
         
@@ -637,7 +702,7 @@ public class VehicleDiagramView extends JPanel {
                 if (isActive) {
                     
                     Color baseColor = (currentMode == InterventionMode.MAINTENANCE)
-                            ? SUCCESS_COLOR
+                            ? urgencyColor(p.getPriority())
                             : DANGER_COLOR;
 
                     
@@ -665,6 +730,19 @@ public class VehicleDiagramView extends JPanel {
             }
         }
 
+        /**
+         * Color of a maintenance area by its most urgent planned intervention.
+         */
+        private Color urgencyColor(int priority) {
+            if (priority >= URGENT_PRIORITY) {
+                return DANGER_COLOR;
+            }
+            if (priority >= DUE_PRIORITY) {
+                return WARNING_COLOR;
+            }
+            return SUCCESS_COLOR;
+        }
+
         /**
          * Draws labels for all active parts.
          */
@@ -752,7 +830,9 @@ public class VehicleDiagramView extends JPanel {
         double x, y, w, h; 
         String[] maintenanceKeywords; 
         String[] repairKeywords; 
+        String[] partNames; 
         Rectangle rect; 
+        List<PlannedIntervention> planned = new ArrayList<>(); 
 
         /**
          * Constructor for a vehicle part.
@@ -764,9 +844,10 @@ public class VehicleDiagramView extends JPanel {
          * @param h           Height as percentage
          * @param maintenance Actions for maintenance mode
          * @param repair      Actions for repair mode
+         * @param partNames   Names of the Part entities in this area
          */
         public VehiclePart(String name, double x, double y, double w, double h,
-                String[] maintenance, String[] repair) {
+                String[] maintenance, String[] repair, String[] partNames) {
             this.name = name;
             this.x = x;
             this.y = y;
@@ -774,6 +855,35 @@ public class VehicleDiagramView extends JPanel {
             this.h = h;
             this.maintenanceKeywords = maintenance;
             this.repairKeywords = repair;
+            this.partNames = partNames;
+        }
+
+        /**
+         * Checks if a Part entity is shown in this area.
+         *
+         * @param partName Name of the part
+         * @return true if the name is one of this area's parts, ignoring case
+         */
+        boolean shows(String partName) {
+            for (String partNameHere : partNames) {
+                if (partNameHere.equalsIgnoreCase(partName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Gets the highest priority of the interventions planned on this area.
+         *
+         * @return The priority, 0 if none is planned
+         */
+        int getPriority() {
+            int priority = 0;
+            for (PlannedIntervention pi : planned) {
+                priority = Math.max(priority, pi.getPriority());
+            }
+            return priority;
         }
 
         /**
@@ -0,0 +1,139 @@
+package utils;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Point-in-time snapshot of the second-level and query cache counters.
+ * Counters are cumulative since the EntityManagerFactory was created.
+ */
+public class CacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long puts;
+    private final long queryHits;
+    private final long queryMisses;
+    private final long queryPuts;
+    private final List<Region> regions;
+
+    public CacheStats(long hits, long misses, long puts,
+            long queryHits, long queryMisses, long queryPuts, List<Region> regions) {
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        this.queryHits = queryHits;
+        this.queryMisses = queryMisses;
+        this.queryPuts = queryPuts;
+        this.regions = Collections.unmodifiableList(regions);
+    }
+
+    /**
+     * Entity lookups served from the second-level cache.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Entity lookups that had to go to the database.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getPuts() {
+        return puts;
+    }
+
+    public long getQueryHits() {
+        return queryHits;
+    }
+
+    public long getQueryMisses() {
+        return queryMisses;
+    }
+
+    public long getQueryPuts() {
+        return queryPuts;
+    }
+
+    /**
+     * Gets the entity hit ratio.
+     *
+     * @return hits / (hits + misses), or 0 if nothing was looked up yet
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Gets the counters of each cache region.
+     */
+    public List<Region> getRegions() {
+        return regions;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", puts=" + puts +
+                ", queryHits=" + queryHits +
+                ", queryMisses=" + queryMisses +
+                ", queryPuts=" + queryPuts +
+                ", regions=" + regions +
+                '}';
+    }
+
+    /**
+     * Counters of a single cache region.
+     */
+    public static class Region {
+
+        private final String name;
+        private final long hits;
+        private final long misses;
+        private final long puts;
+        private final long size;
+
+        public Region(String name, long hits, long misses, long puts, long size) {
+            this.name = name;
+            this.hits = hits;
+            this.misses = misses;
+            this.puts = puts;
+            this.size = size;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getPuts() {
+            return puts;
+        }
+
+        /**
+         * Entries currently held in memory, or -1 if the provider does not
+         * report it.
+         */
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return name + "{hits=" + hits + ", misses=" + misses + ", puts=" + puts + ", size=" + size + '}';
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package utils;
+
+/**
+ * Point-in-time snapshot of the connection pool counters.
+ * Latencies are connection acquisition times over the most recent samples.
+ */
+public class ConnectionPoolStats {
+
+    private final int active;
+    private final int idle;
+    private final int waiting;
+    private final int total;
+    private final long acquisitions;
+    private final long timeouts;
+    private final double p50Ms;
+    private final double p95Ms;
+    private final double p99Ms;
+    private final double maxMs;
+
+    public ConnectionPoolStats(int active, int idle, int waiting, int total,
+            long acquisitions, long timeouts,
+            double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+        this.total = total;
+        this.acquisitions = acquisitions;
+        this.timeouts = timeouts;
+        this.p50Ms = p50Ms;
+        this.p95Ms = p95Ms;
+        this.p99Ms = p99Ms;
+        this.maxMs = maxMs;
+    }
+
+    /**
+     * Connections currently checked out.
+     */
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * Connections open and available in the pool.
+     */
+    public int getIdle() {
+        return idle;
+    }
+
+    /**
+     * Threads currently blocked waiting for a connection.
+     */
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public double getP50Ms() {
+        return p50Ms;
+    }
+
+    public double getP95Ms() {
+        return p95Ms;
+    }
+
+    public double getP99Ms() {
+        return p99Ms;
+    }
+
+    public double getMaxMs() {
+        return maxMs;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolStats{" +
+                "active=" + active +
+                ", idle=" + idle +
+                ", waiting=" + waiting +
+                ", total=" + total +
+                ", acquisitions=" + acquisitions +
+                ", timeouts=" + timeouts +
+                ", p50=" + String.format("%.3f", p50Ms) + "ms" +
+                ", p95=" + String.format("%.3f", p95Ms) + "ms" +
+                ", p99=" + String.format("%.3f", p99Ms) + "ms" +
+                ", max=" + String.format("%.3f", maxMs) + "ms" +
+                '}';
+    }
+}
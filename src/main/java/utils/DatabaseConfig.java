@@ -0,0 +1,175 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Database and connection pool settings.
+ * Values are read from database.properties on the classpath and can be
+ * overridden with system properties prefixed by "auto2i."
+ * (e.g. -Dauto2i.pool.maxSize=20).
+ *
+ * The database is chosen by a profile (mysql, embedded or memory), set with
+ * -Dauto2i.profile or the AUTO2I_PROFILE environment variable. Keys prefixed
+ * by the profile name (e.g. "memory.db.url") take precedence over the
+ * unprefixed ones.
+ */
+public class DatabaseConfig {
+
+    private static final String RESOURCE = "/database.properties";
+    private static final String OVERRIDE_PREFIX = "auto2i.";
+    private static final String PROFILE_KEY = "profile";
+    private static final String PROFILE_ENV = "AUTO2I_PROFILE";
+    private static final String DEFAULT_PROFILE = "mysql";
+
+    private final Properties properties;
+    private final String profile;
+
+    private DatabaseConfig(Properties properties) {
+        this.properties = properties;
+        this.profile = resolveProfile(properties);
+    }
+
+    /**
+     * Loads the settings from database.properties and applies system property
+     * overrides.
+     *
+     * @return The loaded configuration
+     */
+    public static DatabaseConfig load() {
+        Properties properties = new Properties();
+        try (InputStream in = DatabaseConfig.class.getResourceAsStream(RESOURCE)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read " + RESOURCE, e);
+        }
+        return new DatabaseConfig(properties);
+    }
+
+    private static String resolveProfile(Properties properties) {
+        String profile = System.getProperty(OVERRIDE_PREFIX + PROFILE_KEY);
+        if (profile == null || profile.trim().isEmpty()) {
+            profile = System.getenv(PROFILE_ENV);
+        }
+        if (profile == null || profile.trim().isEmpty()) {
+            profile = properties.getProperty(PROFILE_KEY, DEFAULT_PROFILE);
+        }
+        profile = profile.trim().toLowerCase(Locale.ROOT);
+        if (!properties.containsKey(profile + ".db.url")) {
+            throw new IllegalStateException("Unknown database profile: " + profile);
+        }
+        return profile;
+    }
+
+    /**
+     * Gets the active database profile.
+     *
+     * @return The profile name (mysql, embedded or memory)
+     */
+    public String getProfile() {
+        return profile;
+    }
+
+    public String getDriver() {
+        return get("db.driver");
+    }
+
+    public String getUrl() {
+        return get("db.url");
+    }
+
+    public String getUser() {
+        return get("db.user");
+    }
+
+    public String getPassword() {
+        return get("db.password");
+    }
+
+    /**
+     * Minimum number of idle connections kept open by the pool.
+     */
+    public int getPoolMinIdle() {
+        return getInt("pool.minIdle", 2);
+    }
+
+    /**
+     * Maximum number of connections (active + idle) the pool may open.
+     */
+    public int getPoolMaxSize() {
+        return getInt("pool.maxSize", 10);
+    }
+
+    /**
+     * How long a caller waits for a connection before failing, in milliseconds.
+     */
+    public long getConnectionTimeoutMs() {
+        return getLong("pool.connectionTimeoutMs", 5000);
+    }
+
+    /**
+     * How long a connection may stay checked out before it is reported as a
+     * possible leak, in milliseconds (0 disables leak detection).
+     */
+    public long getLeakDetectionThresholdMs() {
+        return getLong("pool.leakDetectionThresholdMs", 10000);
+    }
+
+    /**
+     * How long a connection may sit idle before being evicted, in milliseconds.
+     */
+    public long getIdleTimeoutMs() {
+        return getLong("pool.idleTimeoutMs", 300000);
+    }
+
+    /**
+     * Maximum lifetime of a pooled connection, in milliseconds.
+     */
+    public long getMaxLifetimeMs() {
+        return getLong("pool.maxLifetimeMs", 1800000);
+    }
+
+    /**
+     * Gets a raw setting. System property overrides take precedence, then
+     * the value for the active profile, then the shared value.
+     *
+     * @param key The setting key (without the "auto2i." or profile prefix)
+     * @return The value or null if not set
+     */
+    public String get(String key) {
+        String override = System.getProperty(OVERRIDE_PREFIX + key);
+        if (override != null) {
+            return override.trim();
+        }
+        String value = properties.getProperty(profile + "." + key, properties.getProperty(key));
+        return value != null ? value.trim() : null;
+    }
+
+    private int getInt(String key, int defaultValue) {
+        String value = get(key);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Invalid integer for " + key + ": " + value, e);
+        }
+    }
+
+    private long getLong(String key, long defaultValue) {
+        String value = get(key);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Invalid number for " + key + ": " + value, e);
+        }
+    }
+}
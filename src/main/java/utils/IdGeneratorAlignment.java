@@ -0,0 +1,96 @@
+package utils;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.metamodel.EntityType;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * Keeps the table-based id generators ahead of the ids already stored.
+ * Rows inserted before pooled id generation was introduced (IDENTITY
+ * columns) are unknown to the generator table, so without this the first
+ * allocated block would start at 1 and collide with existing rows.
+ */
+class IdGeneratorAlignment {
+
+    private IdGeneratorAlignment() {
+    }
+
+    /**
+     * Moves every generator row past the highest id of its entity table.
+     * Rows are only ever moved forward.
+     *
+     * @param emf The EntityManagerFactory whose entities should be checked
+     */
+    static void align(EntityManagerFactory emf) {
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction et = em.getTransaction();
+        try {
+            et.begin();
+            for (EntityType<?> type : emf.getMetamodel().getEntities()) {
+                TableGenerator generator = findTableGenerator(type.getJavaType());
+                if (generator == null) {
+                    continue;
+                }
+
+                Long maxId = em.createQuery("SELECT MAX(e.id) FROM " + type.getName() + " e", Long.class)
+                        .getSingleResult();
+                if (maxId == null) {
+                    continue;
+                }
+
+                // The pooled optimizer hands out (next_val - allocationSize, next_val]
+                long target = maxId + generator.allocationSize();
+                String table = generator.table();
+                List<?> current = em.createNativeQuery(
+                        "SELECT " + generator.valueColumnName() + " FROM " + table +
+                                " WHERE " + generator.pkColumnName() + " = ?1")
+                        .setParameter(1, generator.pkColumnValue())
+                        .getResultList();
+
+                if (current.isEmpty()) {
+                    em.createNativeQuery(
+                            "INSERT INTO " + table + " (" + generator.pkColumnName() + ", " +
+                                    generator.valueColumnName() + ") VALUES (?1, ?2)")
+                            .setParameter(1, generator.pkColumnValue())
+                            .setParameter(2, target)
+                            .executeUpdate();
+                } else if (((Number) current.get(0)).longValue() < target) {
+                    em.createNativeQuery(
+                            "UPDATE " + table + " SET " + generator.valueColumnName() + " = ?1" +
+                                    " WHERE " + generator.pkColumnName() + " = ?2" +
+                                    " AND " + generator.valueColumnName() + " < ?1")
+                            .setParameter(1, target)
+                            .setParameter(2, generator.pkColumnValue())
+                            .executeUpdate();
+                }
+            }
+            et.commit();
+        } catch (RuntimeException re) {
+            if (et.isActive()) {
+                et.rollback();
+            }
+            throw re;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Finds the table generator declared on the id field of a class.
+     * Subclasses share the generator of their root entity and return null.
+     */
+    private static TableGenerator findTableGenerator(Class<?> entityClass) {
+        for (Field field : entityClass.getDeclaredFields()) {
+            TableGenerator generator = field.getAnnotation(TableGenerator.class);
+            if (generator != null) {
+                return generator;
+            }
+        }
+        return null;
+    }
+}
@@ -1,21 +1,128 @@
 package utils;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the application EntityManagerFactory.
+ * Connections come from a bounded HikariCP pool configured through
+ * database.properties (see {@link DatabaseConfig}).
+ * Reference data entities are kept in a bounded second-level cache
+ * (see ehcache.xml).
+ */
 public class JPAUtil {
-    private static final EntityManagerFactory emf=Persistence.createEntityManagerFactory("auto2iPU");;
+    private static final PoolMetrics poolMetrics = new PoolMetrics();
+    private static final HikariDataSource dataSource = createDataSource(DatabaseConfig.load());
+    private static final EntityManagerFactory emf = createEntityManagerFactory();
 
     public JPAUtil() {
     }
 
+    private static HikariDataSource createDataSource(DatabaseConfig config) {
+        HikariConfig hikari = new HikariConfig();
+        hikari.setPoolName("auto2i-pool");
+        if (config.getDriver() != null) {
+            hikari.setDriverClassName(config.getDriver());
+        }
+        hikari.setJdbcUrl(config.getUrl());
+        hikari.setUsername(config.getUser());
+        hikari.setPassword(config.getPassword());
+        hikari.setMinimumIdle(config.getPoolMinIdle());
+        hikari.setMaximumPoolSize(config.getPoolMaxSize());
+        hikari.setConnectionTimeout(config.getConnectionTimeoutMs());
+        hikari.setLeakDetectionThreshold(config.getLeakDetectionThresholdMs());
+        hikari.setIdleTimeout(config.getIdleTimeoutMs());
+        hikari.setMaxLifetime(config.getMaxLifetimeMs());
+        hikari.setAutoCommit(false);
+        hikari.setMetricsTrackerFactory(poolMetrics);
+        hikari.setRegisterMbeans(true);
+        return new HikariDataSource(hikari);
+    }
+
+    private static EntityManagerFactory createEntityManagerFactory() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("jakarta.persistence.nonJtaDataSource", dataSource);
+        // Pool connections are handed out with auto-commit disabled
+        properties.put("hibernate.connection.provider_disables_autocommit", "true");
+        EntityManagerFactory factory = Persistence.createEntityManagerFactory("auto2iPU", properties);
+        IdGeneratorAlignment.align(factory);
+        SchemaBackfill.run(factory);
+        return factory;
+    }
+
     public static EntityManagerFactory getEntityManagerFactory() {
         return emf;
     }
 
+    /**
+     * Gets a snapshot of the connection pool counters and acquisition latency
+     * percentiles.
+     *
+     * @return The current pool statistics
+     */
+    public static ConnectionPoolStats getPoolStats() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        long[] samples = poolMetrics.sortedSamples();
+        return new ConnectionPoolStats(
+                pool != null ? pool.getActiveConnections() : 0,
+                pool != null ? pool.getIdleConnections() : 0,
+                pool != null ? pool.getThreadsAwaitingConnection() : 0,
+                pool != null ? pool.getTotalConnections() : 0,
+                poolMetrics.getAcquisitions(),
+                poolMetrics.getTimeouts(),
+                PoolMetrics.percentileMs(samples, 50),
+                PoolMetrics.percentileMs(samples, 95),
+                PoolMetrics.percentileMs(samples, 99),
+                PoolMetrics.percentileMs(samples, 100));
+    }
+
+    /**
+     * Gets a snapshot of the second-level and query cache hit/miss counters.
+     *
+     * @return The current cache statistics
+     */
+    public static CacheStats getCacheStats() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        List<CacheStats.Region> regions = new ArrayList<>();
+        String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regionNames);
+        for (String regionName : regionNames) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region != null) {
+                // Providers that cannot count entries report Long.MIN_VALUE
+                long size = Math.max(-1, region.getElementCountInMemory());
+                regions.add(new CacheStats.Region(regionName, region.getHitCount(), region.getMissCount(),
+                        region.getPutCount(), size));
+            }
+        }
+        return new CacheStats(
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(),
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount(),
+                regions);
+    }
+
     public static void close() {
         if (emf.isOpen()) {
             emf.close();
         }
+        if (!dataSource.isClosed()) {
+            dataSource.close();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package utils;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records connection acquisition latency for the connection pool.
+ * Keeps the most recent samples in a fixed-size ring so percentiles can be
+ * computed at any time without unbounded memory.
+ */
+public class PoolMetrics implements MetricsTrackerFactory {
+
+    private static final int SAMPLE_SIZE = 1024;
+
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLE_SIZE);
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                long index = acquisitions.getAndIncrement();
+                samples.set((int) (index % SAMPLE_SIZE), elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.incrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * Total number of connections handed out since startup.
+     */
+    public long getAcquisitions() {
+        return acquisitions.get();
+    }
+
+    /**
+     * Number of callers that gave up waiting for a connection.
+     */
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * Returns the recent acquisition latencies in nanoseconds, sorted ascending.
+     */
+    long[] sortedSamples() {
+        int count = (int) Math.min(acquisitions.get(), SAMPLE_SIZE);
+        long[] copy = new long[count];
+        for (int i = 0; i < count; i++) {
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    /**
+     * Gets a percentile from sorted samples, in milliseconds.
+     *
+     * @param sorted     Samples sorted ascending (nanoseconds)
+     * @param percentile Percentile between 0 and 100
+     * @return The latency in milliseconds, 0 if there are no samples
+     */
+    static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        index = Math.max(0, Math.min(sorted.length - 1, index));
+        return sorted[index] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,52 @@
+package utils;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+
+/**
+ * Fills derived columns that the automatic schema update adds empty to
+ * existing tables.
+ */
+class SchemaBackfill {
+
+    private SchemaBackfill() {
+    }
+
+    /**
+     * Computes the normalized plate of registrations and the identity key of
+     * owners stored before those columns existed. Same formats as
+     * entities.Registration#plateKey and entities.Owner#identityKey.
+     * If legacy rows hold duplicates the unique constraint rejects the
+     * update; the error is reported and those rows keep an empty key.
+     *
+     * @param emf The EntityManagerFactory to run on
+     */
+    static void run(EntityManagerFactory emf) {
+        update(emf, "UPDATE Registration r SET r.plateKey = CONCAT(UPPER(TRIM(r.part1)), '-', " +
+                        "CAST(r.part2 AS String), '-', UPPER(TRIM(COALESCE(r.part3, '')))) " +
+                        "WHERE r.plateKey IS NULL",
+                "registration plates");
+        update(emf, "UPDATE Owner o SET o.ownerKey = CONCAT(LOWER(TRIM(o.firstName)), '|', " +
+                        "LOWER(TRIM(o.lastName)), '|', TRIM(o.phoneNumber)) " +
+                        "WHERE o.ownerKey IS NULL AND o.phoneNumber IS NOT NULL",
+                "owner identities");
+    }
+
+    private static void update(EntityManagerFactory emf, String jpql, String what) {
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction et = em.getTransaction();
+        try {
+            et.begin();
+            em.createQuery(jpql).executeUpdate();
+            et.commit();
+        } catch (RuntimeException re) {
+            if (et.isActive()) {
+                et.rollback();
+            }
+            System.err.println("Could not normalize existing " + what + ": " + re.getMessage());
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package utils;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Thread-bound unit of work.
+ * While a unit of work is open on the current thread, every DAO call joins
+ * its EntityManager and transaction, so a whole user action runs on one
+ * connection and is committed once.
+ *
+ * <pre>
+ * try (UnitOfWork uow = UnitOfWork.begin()) {
+ *     interventionDAO.save(intervention);
+ *     vehicleDAO.setLastMileage(vehicleId, mileage);
+ *     uow.commit();
+ * }
+ * </pre>
+ *
+ * Closing a unit of work that was not committed rolls it back. Units opened
+ * while another one is active join the outer one: their commit is deferred
+ * to the outer commit and a rollback marks the whole unit rollback-only.
+ */
+public class UnitOfWork implements AutoCloseable {
+
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final UnitOfWork root;
+    private final EntityManager em;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private boolean rollbackOnly;
+    private boolean completed;
+    private boolean committed;
+
+    private UnitOfWork(UnitOfWork root, EntityManager em) {
+        this.root = root;
+        this.em = em;
+    }
+
+    /**
+     * Opens a unit of work on the current thread, or joins the one already
+     * open.
+     *
+     * @return The unit of work handle, to be closed by the caller
+     */
+    public static UnitOfWork begin() {
+        UnitOfWork current = CURRENT.get();
+        if (current != null) {
+            return new UnitOfWork(current, current.em);
+        }
+
+        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
+        try {
+            em.getTransaction().begin();
+        } catch (RuntimeException re) {
+            em.close();
+            throw re;
+        }
+        UnitOfWork unit = new UnitOfWork(null, em);
+        CURRENT.set(unit);
+        return unit;
+    }
+
+    /**
+     * Checks if a unit of work is open on the current thread.
+     *
+     * @return true if DAO calls will join an open unit of work
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Commits the unit of work. For a joined unit, the commit happens when
+     * the outermost unit commits.
+     *
+     * @throws IllegalStateException if the unit was marked rollback-only
+     */
+    public void commit() {
+        if (completed) {
+            throw new IllegalStateException("Unit of work already completed.");
+        }
+        completed = true;
+        if (root != null) {
+            return;
+        }
+
+        EntityTransaction et = em.getTransaction();
+        if (rollbackOnly) {
+            if (et.isActive()) {
+                et.rollback();
+            }
+            throw new IllegalStateException("Unit of work was marked rollback-only.");
+        }
+        try {
+            et.commit();
+            committed = true;
+        } catch (RuntimeException re) {
+            if (et.isActive()) {
+                et.rollback();
+            }
+            throw re;
+        }
+    }
+
+    /**
+     * Runs an action once the current unit of work has committed and is
+     * closed, or right away if no unit of work is open. The action is
+     * dropped if the unit rolls back.
+     *
+     * @param action The action to run, outside any unit of work
+     */
+    public static void afterCommit(Runnable action) {
+        UnitOfWork current = CURRENT.get();
+        if (current == null) {
+            action.run();
+            return;
+        }
+        current.afterCommit.add(action);
+    }
+
+    /**
+     * Marks the whole unit of work so that it can only roll back.
+     */
+    public void setRollbackOnly() {
+        owner().rollbackOnly = true;
+    }
+
+    /**
+     * Gets the EntityManager shared by this unit of work.
+     */
+    public EntityManager getEntityManager() {
+        return em;
+    }
+
+    /**
+     * Ends the unit of work, rolling it back if it was not committed.
+     */
+    @Override
+    public void close() {
+        if (root != null) {
+            if (!completed) {
+                root.rollbackOnly = true;
+                completed = true;
+            }
+            return;
+        }
+
+        try {
+            EntityTransaction et = em.getTransaction();
+            if (et.isActive()) {
+                et.rollback();
+            }
+        } finally {
+            completed = true;
+            CURRENT.remove();
+            em.close();
+        }
+        if (committed) {
+            for (Runnable action : afterCommit) {
+                action.run();
+            }
+        }
+    }
+
+    private UnitOfWork owner() {
+        return root != null ? root : this;
+    }
+
+    /**
+     * Runs a write operation in a transaction.
+     * Joins the current unit of work if one is open, otherwise uses a
+     * dedicated EntityManager and transaction committed on completion.
+     *
+     * @param work The operation to run
+     */
+    public static void execute(Consumer<EntityManager> work) {
+        call(em -> {
+            work.accept(em);
+            return null;
+        });
+    }
+
+    /**
+     * Runs a write operation in a transaction and returns its result.
+     *
+     * @param work The operation to run
+     * @return The operation result
+     * @see #execute(Consumer)
+     */
+    public static <T> T call(Function<EntityManager, T> work) {
+        UnitOfWork current = CURRENT.get();
+        if (current != null) {
+            try {
+                return work.apply(current.em);
+            } catch (RuntimeException re) {
+                current.rollbackOnly = true;
+                throw re;
+            }
+        }
+
+        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
+        EntityTransaction et = em.getTransaction();
+        try {
+            et.begin();
+            T result = work.apply(em);
+            et.commit();
+            return result;
+        } catch (RuntimeException re) {
+            if (et.isActive()) {
+                et.rollback();
+            }
+            throw re;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Runs a read-only operation.
+     * Joins the current unit of work if one is open, otherwise uses a
+     * dedicated EntityManager closed on completion.
+     *
+     * @param work The query to run
+     * @return The query result
+     */
+    public static <T> T read(Function<EntityManager, T> work) {
+        UnitOfWork current = CURRENT.get();
+        if (current != null) {
+            return work.apply(current.em);
+        }
+
+        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
+        try {
+            return work.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package dao;
+
+import entities.InterventionType;
+import entities.Part;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import utils.UnitOfWork;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs patches on the memory profile.
+ */
+class PatchTest {
+
+    /** More than two statements' worth of ids. */
+    private static final int PARTS = 2100;
+
+    private static final List<Long> partIds = new ArrayList<>();
+
+    @BeforeAll
+    static void createParts() {
+        InterventionType interventionType = new InterventionType("Patch test");
+        List<Part> parts = new ArrayList<>();
+        for (int i = 0; i < PARTS; i++) {
+            parts.add(new Part(interventionType, "Part " + i));
+        }
+        UnitOfWork.execute(em -> {
+            em.persist(interventionType);
+            parts.forEach(em::persist);
+        });
+        for (Part part : parts) {
+            partIds.add(part.getId());
+        }
+    }
+
+    @Test
+    void patchesOneRow() {
+        Long id = partIds.get(0);
+
+        assertEquals(1, Patch.of(Part.class).set("name", "Renamed").applyTo(id));
+        assertEquals("Renamed", new PartDAO().findById(id).getName());
+    }
+
+    @Test
+    void reportsAMissingId() {
+        assertEquals(0, Patch.of(Part.class).set("name", "Nothing").applyTo(-1L));
+    }
+
+    @Test
+    void chunksManyIdsAndCountsTheRowsFound() {
+        List<Long> ids = new ArrayList<>(partIds);
+        ids.add(-1L);
+        ids.add(-2L);
+        int[] updated = new int[1];
+
+        List<String> statements = SqlCapture.capture(() ->
+                updated[0] = Patch.of(Part.class).set("name", "Bulk").applyTo(ids));
+
+        assertEquals(PARTS, updated[0]);
+        // 2102 ids, at most 1000 per statement
+        assertEquals(3, statements.stream()
+                .filter(sql -> sql.toLowerCase(Locale.ROOT).startsWith("update"))
+                .count());
+        List<String> names = UnitOfWork.read(em -> em.createQuery(
+                "SELECT DISTINCT p.name FROM Part p WHERE p.id IN :ids", String.class)
+                .setParameter("ids", partIds.subList(PARTS - 100, PARTS))
+                .getResultList());
+        assertEquals(List.of("Bulk"), names);
+    }
+
+    @Test
+    void rejectsAnUnknownAttribute() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Patch.of(Part.class).set("colour", "red").applyTo(partIds.get(1)));
+    }
+
+    @Test
+    void rejectsTheId() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Patch.of(Part.class).set("id", 1L).applyTo(partIds.get(1)));
+    }
+
+    @Test
+    void rejectsACollection() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Patch.of(InterventionType.class).set("parts", new ArrayList<>()).applyTo(1L));
+    }
+}
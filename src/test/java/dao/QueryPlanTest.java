@@ -0,0 +1,165 @@
+package dao;
+
+import entities.Intervention;
+import entities.MaintenanceType;
+import entities.Owner;
+import entities.Part;
+import entities.Pricing;
+import entities.Registration;
+import entities.Vehicle;
+import entities.VehicleType;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import utils.UnitOfWork;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks the indexes of the schema against the filtered DAO queries.
+ * Each DAO method is called on the memory profile while {@link SqlCapture}
+ * records the SQL Hibernate generates for it; every SELECT, UPDATE and
+ * DELETE recorded is then explained by H2, which names the access path it
+ * chose for each table. A test fails when a table is read by a full scan.
+ */
+class QueryPlanTest {
+
+    private static final Date DAY = new GregorianCalendar(2024, 0, 15).getTime();
+    private static final List<Long> IDS = List.of(1L, 2L);
+
+    private static VehicleType vehicleType;
+    private static Owner owner;
+    private static Registration registration;
+    private static Vehicle vehicle;
+    private static MaintenanceType maintenanceType;
+
+    @BeforeAll
+    static void createRows() {
+        vehicleType = new VehicleType("Plan", "Check", "Gasoline", "Manual", 5, 5, 90);
+        owner = new Owner("Plan", "Check", "0600000006", "plan.check@example.com");
+        registration = new Registration("PC", 606, "QP");
+        vehicle = new Vehicle(owner, vehicleType, DAY, 12000);
+        vehicle.setRegistration(registration);
+        maintenanceType = new MaintenanceType("Plan check service", 15000, 12);
+        Intervention intervention = new Intervention(vehicle, DAY, 11000, 80);
+        intervention.setInterventionType(maintenanceType);
+        UnitOfWork.execute(em -> {
+            em.persist(vehicleType);
+            em.persist(owner);
+            em.persist(registration);
+            em.persist(vehicle);
+            em.persist(maintenanceType);
+            em.persist(intervention);
+            em.persist(new Pricing(80, maintenanceType, vehicleType));
+            em.persist(new Part(maintenanceType, "Plan check filter"));
+        });
+    }
+
+    @Test
+    void interventionQueries() {
+        InterventionDAO dao = new InterventionDAO();
+        assertIndexed("InterventionDAO.existsByVehicleTypeAndDate",
+                () -> dao.existsByVehicleTypeAndDate(vehicle, maintenanceType, DAY));
+        assertIndexed("InterventionDAO.findByVehicleAndDate", () -> dao.findByVehicleAndDate(vehicle, DAY));
+        assertIndexed("InterventionDAO.findByVehicle", () -> dao.findByVehicle(vehicle));
+        assertIndexed("InterventionDAO.findByInterventionType", () -> dao.findByInterventionType(maintenanceType));
+        assertIndexed("InterventionDAO.findLastByVehicleAndType", () -> dao.findLastByVehicleAndType(IDS));
+    }
+
+    @Test
+    void pricingQueries() {
+        PricingDAO dao = new PricingDAO();
+        assertIndexed("PricingDAO.findByInterventionTypeAndVehicleType",
+                () -> dao.findByInterventionTypeAndVehicleType(maintenanceType, vehicleType));
+        assertIndexed("PricingDAO.findByInterventionType", () -> dao.findByInterventionType(maintenanceType));
+        assertIndexed("PricingDAO.findByVehicleType", () -> dao.findByVehicleType(vehicleType));
+        assertIndexed("PricingDAO.findPrices", () -> dao.findPrices(IDS, IDS));
+    }
+
+    @Test
+    void ownerRegistrationAndVehicleQueries() {
+        VehicleDAO vehicleDAO = new VehicleDAO();
+        assertIndexed("OwnerDAO.findByNameAndPhone",
+                () -> new OwnerDAO().findByNameAndPhone("Plan", "Check", "0600000006"));
+        assertIndexed("RegistrationDAO.findByParts", () -> new RegistrationDAO().findByParts("PC", 606, "QP"));
+        assertIndexed("VehicleDAO.findByVehicleType", () -> vehicleDAO.findByVehicleType(vehicleType));
+        assertIndexed("VehicleDAO.findByOwner", () -> vehicleDAO.findByOwner(owner));
+        assertIndexed("VehicleDAO.findByRegistration", () -> vehicleDAO.findByRegistration(registration));
+        assertIndexed("VehicleDAO.findByIdRange", () -> vehicleDAO.findByIdRange(1, 500));
+        assertIndexed("PartDAO.findByInterventionType",
+                () -> new PartDAO().findByInterventionType(maintenanceType));
+    }
+
+    @Test
+    void maintenanceDueQueries() {
+        MaintenanceDueDAO dao = new MaintenanceDueDAO();
+        Date later = new GregorianCalendar(2024, 1, 15).getTime();
+        assertIndexed("MaintenanceDueDAO.findMostUrgent", () -> dao.findMostUrgent(10));
+        assertIndexed("MaintenanceDueDAO.findDueBetween", () -> dao.findDueBetween(DAY, later, 50));
+        assertIndexed("MaintenanceDueDAO.findByRemainingMileage",
+                () -> dao.findByRemainingMileage(Integer.MIN_VALUE, 1000, 50));
+        assertIndexed("MaintenanceDueDAO.findByVehicles", () -> dao.findByVehicles(IDS));
+        assertIndexed("MaintenanceDueDAO.setEvaluatedOn", () -> dao.setEvaluatedOn(IDS, IDS, DAY));
+        assertIndexed("VehicleMileageStatsDAO.findRates", () -> new VehicleMileageStatsDAO().findRates(IDS));
+    }
+
+    /**
+     * Calls a DAO method and explains the statements it ran.
+     */
+    private static void assertIndexed(String method, Supplier<?> call) {
+        List<String> statements = SqlCapture.capture(call);
+        assertFalse(statements.isEmpty(), method + " ran no SQL: is dao.SqlCapture installed?");
+        List<String> scans = UnitOfWork.read(em -> em.unwrap(Session.class).doReturningWork(connection -> {
+            assumeTrue("H2".equals(connection.getMetaData().getDatabaseProductName()),
+                    "Plans are read from H2 (-Dauto2i.profile=memory)");
+            List<String> found = new ArrayList<>();
+            for (String sql : statements) {
+                String scan = tableScan(connection, sql);
+                if (scan != null) {
+                    found.add(scan + " in: " + sql);
+                }
+            }
+            return found;
+        }));
+        assertEquals(List.of(), scans, method + " reads a table without an index");
+    }
+
+    /**
+     * Explains one statement.
+     *
+     * @return The table read by a full scan, or null if every table is
+     *         accessed through an index (or the statement is not explained)
+     */
+    private static String tableScan(Connection connection, String sql) throws SQLException {
+        String verb = sql.trim().toLowerCase(Locale.ROOT);
+        if (!verb.startsWith("select") && !verb.startsWith("update") && !verb.startsWith("delete")) {
+            return null;
+        }
+        // H2 explains statements with unset parameters
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql);
+             ResultSet plan = explain.executeQuery()) {
+            while (plan.next()) {
+                // H2 annotates each table with its access path, e.g. /* PUBLIC.OWNER.tableScan */
+                String text = plan.getString(1);
+                int scan = text.indexOf(".tableScan");
+                if (scan >= 0) {
+                    return text.substring(text.lastIndexOf("PUBLIC.", scan) + "PUBLIC.".length(), scan);
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,41 @@
+package dao;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Records the SQL Hibernate prepares on the current thread while a capture
+ * is running. Installed for the whole test run by the surefire
+ * configuration (hibernate.session_factory.statement_inspector).
+ */
+public class SqlCapture implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> captured = CAPTURED.get();
+        if (captured != null) {
+            captured.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Runs a call and returns the statements it prepared, in order. Nothing
+     * is captured when the inspector is not installed.
+     */
+    static List<String> capture(Supplier<?> call) {
+        List<String> captured = new ArrayList<>();
+        CAPTURED.set(captured);
+        try {
+            call.get();
+        } finally {
+            CAPTURED.remove();
+        }
+        return captured;
+    }
+}
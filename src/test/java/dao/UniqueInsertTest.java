@@ -0,0 +1,97 @@
+package dao;
+
+import entities.InterventionType;
+import entities.Owner;
+import entities.Registration;
+import org.junit.jupiter.api.Test;
+import utils.UnitOfWork;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs inserts-if-absent on the memory profile.
+ */
+class UniqueInsertTest {
+
+    private final OwnerDAO ownerDAO = new OwnerDAO();
+    private final RegistrationDAO registrationDAO = new RegistrationDAO();
+
+    @Test
+    void insertsANewRow() {
+        Owner owner = new Owner("Ada", "Unique", "0600000010", "ada@example.com");
+
+        InsertResult<Owner> result = ownerDAO.createIfAbsent(owner);
+
+        assertTrue(result.isCreated());
+        assertNotNull(owner.getId());
+        assertEquals(owner.getId(), ownerDAO.findByNameAndPhone("Ada", "Unique", "0600000010").getId());
+    }
+
+    @Test
+    void returnsTheExistingRowOfADuplicate() {
+        Owner first = new Owner("Grace", "Unique", "0600000011", "grace@example.com");
+        ownerDAO.createIfAbsent(first);
+        // Same identity once normalized
+        Owner duplicate = new Owner(" GRACE ", "unique", "0600000011", "other@example.com");
+
+        InsertResult<Owner> result = ownerDAO.createIfAbsent(duplicate);
+
+        assertFalse(result.isCreated());
+        assertEquals(first.getId(), result.getEntity().getId());
+        assertEquals("grace@example.com", result.getEntity().getEmail());
+        assertNull(duplicate.getId(), "a rejected entity keeps no id");
+    }
+
+    @Test
+    void keepsTheUnitOfWorkUsableAfterADuplicate() {
+        registrationDAO.createIfAbsent(new Registration("UI", 10, "AA"));
+        InterventionType other = new InterventionType("Unique insert neighbour");
+
+        InsertResult<Registration> result;
+        try (UnitOfWork uow = UnitOfWork.begin()) {
+            UnitOfWork.execute(em -> em.persist(other));
+            result = registrationDAO.createIfAbsent(new Registration("ui", 10, "aa"));
+            uow.commit();
+        }
+
+        assertFalse(result.isCreated());
+        assertEquals("UI-10-AA", result.getEntity().getPlateKey());
+        assertNotNull(new InterventionTypeDAO().findById(other.getId()), "the other insert was committed");
+    }
+
+    @Test
+    void createsOneRowForConcurrentCallers() throws Exception {
+        int callers = 4;
+        List<Callable<InsertResult<Owner>>> calls = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            calls.add(() -> ownerDAO.createIfAbsent(new Owner("Alan", "Unique", "0600000012", "alan@example.com")));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            int created = 0;
+            Long id = null;
+            for (Future<InsertResult<Owner>> future : executor.invokeAll(calls)) {
+                InsertResult<Owner> result = future.get();
+                created += result.isCreated() ? 1 : 0;
+                if (id == null) {
+                    id = result.getEntity().getId();
+                }
+                assertEquals(id, result.getEntity().getId());
+            }
+            assertEquals(1, created);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
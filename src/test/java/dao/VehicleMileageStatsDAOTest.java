@@ -0,0 +1,112 @@
+package dao;
+
+import dto.MileageRate;
+import entities.Intervention;
+import entities.MaintenanceType;
+import entities.Owner;
+import entities.Registration;
+import entities.Vehicle;
+import entities.VehicleType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import utils.UnitOfWork;
+
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fits mileage rates from the stats kept by {@link InterventionDAO}, on the
+ * memory profile.
+ */
+class VehicleMileageStatsDAOTest {
+
+    private static int plate = 100;
+
+    private final InterventionDAO interventionDAO = new InterventionDAO();
+    private final VehicleMileageStatsDAO statsDAO = new VehicleMileageStatsDAO();
+    private Vehicle vehicle;
+    private MaintenanceType maintenanceType;
+
+    @BeforeEach
+    void createVehicle() {
+        VehicleType vehicleType = new VehicleType("Rate", "Test", "Diesel", "Manual", 5, 5, 110);
+        Owner owner = new Owner("Rate", "Test " + plate, "0600000017", "rate@example.com");
+        Registration registration = new Registration("RT", plate++, "ST");
+        vehicle = new Vehicle(owner, vehicleType, day(2020, 0, 1), 0);
+        vehicle.setRegistration(registration);
+        maintenanceType = new MaintenanceType("Rate test service", 15000, 12);
+        UnitOfWork.execute(em -> {
+            em.persist(vehicleType);
+            em.persist(owner);
+            em.persist(registration);
+            em.persist(vehicle);
+            em.persist(maintenanceType);
+        });
+    }
+
+    private static Date day(int year, int month, int dayOfMonth) {
+        return new GregorianCalendar(year, month, dayOfMonth).getTime();
+    }
+
+    private Intervention save(Date date, int mileage) {
+        Intervention intervention = new Intervention(vehicle, date, mileage, 80);
+        intervention.setInterventionType(maintenanceType);
+        interventionDAO.save(intervention);
+        return intervention;
+    }
+
+    private MileageRate rate() {
+        List<MileageRate> rates = statsDAO.findRates(List.of(vehicle.getId()));
+        assertEquals(1, rates.size());
+        return rates.get(0);
+    }
+
+    @Test
+    void fitsTheRateOfSavedInterventions() {
+        save(day(2024, 0, 1), 10000);
+        save(day(2024, 3, 10), 15000);
+        save(day(2024, 9, 27), 25000);
+
+        MileageRate rate = rate();
+
+        assertEquals(3, rate.getPoints());
+        assertEquals(50, rate.getKmPerDay(), 1e-9);
+        assertEquals(MileageRate.epochDay(day(2024, 0, 1)) + 600, rate.dayReaching(40000));
+    }
+
+    @Test
+    void followsMovedAndRemovedInterventions() {
+        save(day(2024, 0, 1), 10000);
+        Intervention moved = save(day(2024, 1, 1), 15000);
+        Intervention removed = save(day(2024, 2, 1), 99000);
+        save(day(2024, 9, 27), 25000);
+
+        interventionDAO.remove(removed.getId());
+        // Back on the line of the others: 15000 km on day 100
+        interventionDAO.setDate(moved.getId(), day(2024, 3, 10));
+
+        MileageRate rate = rate();
+        assertEquals(3, rate.getPoints());
+        assertEquals(50, rate.getKmPerDay(), 1e-9);
+    }
+
+    @Test
+    void rebuildsMissingStatsFromTheHistory() {
+        save(day(2024, 0, 1), 10000);
+        save(day(2024, 3, 10), 15000);
+        save(day(2024, 9, 27), 25000);
+        MileageRate kept = rate();
+        UnitOfWork.execute(em -> em.createQuery("DELETE FROM VehicleMileageStats s WHERE s.vehicle.id = :id")
+                .setParameter("id", vehicle.getId()).executeUpdate());
+
+        assertTrue(statsDAO.rebuildIfIncomplete());
+
+        MileageRate rebuilt = rate();
+        assertEquals(kept.getPoints(), rebuilt.getPoints());
+        assertEquals(kept.getKmPerDay(), rebuilt.getKmPerDay(), 1e-9);
+    }
+}
@@ -0,0 +1,81 @@
+package dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MileageRateTest {
+
+    private static final long DAY = LocalDate.of(2024, 1, 1).toEpochDay();
+
+    /**
+     * Builds a rate from (day, mileage) points, summed like
+     * entities.VehicleMileageStats does.
+     */
+    private static MileageRate fit(long[] days, int[] mileages) {
+        long sumDays = 0;
+        long sumMileage = 0;
+        long sumDaysSquared = 0;
+        long sumDaysMileage = 0;
+        for (int i = 0; i < days.length; i++) {
+            sumDays += days[i];
+            sumMileage += mileages[i];
+            sumDaysSquared += days[i] * days[i];
+            sumDaysMileage += days[i] * mileages[i];
+        }
+        return new MileageRate(1L, days.length, sumDays, sumMileage, sumDaysSquared, sumDaysMileage);
+    }
+
+    @Test
+    void fitsAStraightLineExactly() {
+        MileageRate rate = fit(new long[]{DAY, DAY + 100, DAY + 300}, new int[]{10000, 15000, 25000});
+
+        assertTrue(rate.isFitted());
+        assertEquals(50, rate.getKmPerDay(), 1e-9);
+        // 40000 km is reached 600 days after the first reading
+        assertEquals(DAY + 600, rate.dayReaching(40000));
+        assertEquals(DAY - 200, rate.dayReaching(0));
+    }
+
+    @Test
+    void fitsScatteredReadingsByLeastSquares() {
+        long[] days = {DAY, DAY + 30, DAY + 95, DAY + 180, DAY + 400};
+        int[] mileages = {20000, 21500, 24100, 28300, 37000};
+
+        MileageRate rate = fit(days, mileages);
+
+        // Slope computed independently, on centered values
+        double meanDay = 0;
+        double meanMileage = 0;
+        for (int i = 0; i < days.length; i++) {
+            meanDay += days[i] / (double) days.length;
+            meanMileage += mileages[i] / (double) days.length;
+        }
+        double covariance = 0;
+        double spread = 0;
+        for (int i = 0; i < days.length; i++) {
+            covariance += (days[i] - meanDay) * (mileages[i] - meanMileage);
+            spread += (days[i] - meanDay) * (days[i] - meanDay);
+        }
+        assertEquals(covariance / spread, rate.getKmPerDay(), 1e-9);
+    }
+
+    @Test
+    void needsTwoDaysOfIncreasingMileage() {
+        assertFalse(fit(new long[]{DAY}, new int[]{10000}).isFitted());
+        assertFalse(fit(new long[]{DAY, DAY}, new int[]{10000, 12000}).isFitted());
+        assertFalse(fit(new long[]{DAY, DAY + 10}, new int[]{12000, 10000}).isFitted());
+        assertEquals(Long.MIN_VALUE, fit(new long[]{DAY}, new int[]{10000}).dayReaching(20000));
+    }
+
+    @Test
+    void doesNotProjectPastTheLastDay() {
+        MileageRate rate = fit(new long[]{DAY, DAY + 1000}, new int[]{10000, 10001});
+
+        assertEquals(Long.MIN_VALUE, rate.dayReaching(Integer.MAX_VALUE));
+    }
+}
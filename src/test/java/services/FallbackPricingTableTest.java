@@ -0,0 +1,85 @@
+package services;
+
+import entities.FallbackPricingRule;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FallbackPricingTableTest {
+
+    /**
+     * Surcharge of the fallback price before the rules were stored, as a
+     * chain of conditions.
+     */
+    private static double baselineSurcharge(int power, String fuelType) {
+        double surcharge = 0;
+        if (power > 200) {
+            surcharge += 0.5;
+        } else if (power > 150) {
+            surcharge += 0.3;
+        } else if (power > 100) {
+            surcharge += 0.1;
+        }
+        if (fuelType != null) {
+            switch (fuelType.toLowerCase(Locale.ROOT)) {
+                case "electric":
+                    surcharge += 0.2;
+                    break;
+                case "hybrid":
+                    surcharge += 0.15;
+                    break;
+                case "diesel":
+                    surcharge += 0.05;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return surcharge;
+    }
+
+    @Test
+    void defaultRulesMatchTheBaselineBrackets() {
+        FallbackPricingTable table = FallbackPricingTable.compile(FallbackPricingTable.defaultRules());
+        List<String> fuelTypes = Arrays.asList("Electric", "ELECTRIC", "hybrid", "Diesel", "Gasoline", "", null);
+
+        for (int power = -10; power <= 400; power++) {
+            for (String fuelType : fuelTypes) {
+                assertEquals(baselineSurcharge(power, fuelType),
+                        table.powerSurcharge(power) + table.fuelSurcharge(fuelType), 1e-12,
+                        power + " hp, " + fuelType);
+            }
+        }
+        assertEquals(0.5, table.powerSurcharge(Integer.MAX_VALUE));
+        assertEquals(0, table.powerSurcharge(Integer.MIN_VALUE));
+    }
+
+    @Test
+    void overlappingRulesAddUp() {
+        FallbackPricingTable table = FallbackPricingTable.compile(List.of(
+                FallbackPricingRule.power(null, 50, 0.1),
+                FallbackPricingRule.power(0, 100, 0.2),
+                FallbackPricingRule.fuelType("Diesel", 0.05),
+                FallbackPricingRule.fuelType(" diesel ", 0.1)));
+
+        assertEquals(0.1, table.powerSurcharge(Integer.MIN_VALUE), 1e-12);
+        assertEquals(0.1, table.powerSurcharge(-1), 1e-12);
+        assertEquals(0.3, table.powerSurcharge(0), 1e-12);
+        assertEquals(0.3, table.powerSurcharge(49), 1e-12);
+        assertEquals(0.2, table.powerSurcharge(50), 1e-12);
+        assertEquals(0, table.powerSurcharge(100), 1e-12);
+        assertEquals(0.15, table.fuelSurcharge("DIESEL"), 1e-12);
+    }
+
+    @Test
+    void noRulesMeansNoSurcharge() {
+        FallbackPricingTable table = FallbackPricingTable.compile(List.of());
+
+        assertEquals(0, table.powerSurcharge(250));
+        assertEquals(0, table.fuelSurcharge("Electric"));
+    }
+}
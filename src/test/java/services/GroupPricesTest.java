@@ -0,0 +1,81 @@
+package services;
+
+import dto.PriceDecision.Level;
+import entities.GroupPricing;
+import entities.InterventionType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class GroupPricesTest {
+
+    private static InterventionType interventionType(long id) {
+        InterventionType interventionType = new InterventionType("Type " + id);
+        interventionType.setId(id);
+        return interventionType;
+    }
+
+    private static final InterventionType OIL = interventionType(5);
+    private static final InterventionType BRAKES = interventionType(9);
+
+    private static final GroupPrices PRICES = GroupPrices.compile(List.of(
+            GroupPricing.forInterventionType(OIL, 100),
+            GroupPricing.forFuelTypeAndPower(OIL, "Diesel", 100, 200, 150),
+            GroupPricing.forBrand(OIL, "Renault", 200),
+            GroupPricing.forBrand(OIL, "renault", 250),
+            GroupPricing.forFuelTypeAndPower(BRAKES, null, null, 90, 80)));
+
+    private static void assertPrice(double price, Level level, RulePrice actual) {
+        assertEquals(price, actual.price);
+        assertEquals(level, actual.level);
+    }
+
+    @Test
+    void brandRulesComeFirstThenFuelTypeAndPowerThenTheDefault() {
+        assertPrice(200, Level.BRAND, PRICES.resolve(5, "RENAULT", "Diesel", 150));
+        assertPrice(150, Level.FUEL_TYPE_POWER, PRICES.resolve(5, "Peugeot", "diesel", 150));
+        assertPrice(100, Level.INTERVENTION_TYPE, PRICES.resolve(5, "Peugeot", "Gasoline", 150));
+    }
+
+    @Test
+    void powerRangesIncludeTheirLowerBoundOnly() {
+        assertPrice(150, Level.FUEL_TYPE_POWER, PRICES.resolve(5, "Peugeot", "Diesel", 100));
+        assertPrice(100, Level.INTERVENTION_TYPE, PRICES.resolve(5, "Peugeot", "Diesel", 200));
+        assertPrice(100, Level.INTERVENTION_TYPE, PRICES.resolve(5, "Peugeot", "Diesel", 99));
+    }
+
+    @Test
+    void anOpenRuleMatchesAnyFuelTypeAndPowerBelowItsBound() {
+        assertPrice(80, Level.FUEL_TYPE_POWER, PRICES.resolve(9, "Tesla", "Electric", Integer.MIN_VALUE));
+        assertPrice(80, Level.FUEL_TYPE_POWER, PRICES.resolve(9, "Tesla", null, 89));
+        assertNull(PRICES.resolve(9, "Tesla", "Electric", 90));
+    }
+
+    @Test
+    void unknownInterventionTypesHaveNoPrice() {
+        assertNull(PRICES.resolve(7, "Renault", "Diesel", 150));
+        assertArrayEquals(new long[]{5, 9}, PRICES.interventionTypeIds());
+    }
+
+    @Test
+    void changesReturnACopy() {
+        InterventionType tyres = interventionType(7);
+
+        GroupPrices changed = PRICES.with(5, List.of(GroupPricing.forInterventionType(OIL, 120)))
+                .with(7, List.of(GroupPricing.forBrand(tyres, "Renault", 60)));
+
+        assertPrice(120, Level.INTERVENTION_TYPE, changed.resolve(5, "Renault", "Diesel", 150));
+        assertPrice(60, Level.BRAND, changed.resolve(7, "Renault", "Diesel", 150));
+        assertPrice(80, Level.FUEL_TYPE_POWER, changed.resolve(9, "Tesla", "Electric", 50));
+        assertArrayEquals(new long[]{5, 7, 9}, changed.interventionTypeIds());
+        // The rules read before the change are untouched
+        assertPrice(200, Level.BRAND, PRICES.resolve(5, "Renault", "Diesel", 150));
+        assertNull(PRICES.resolve(7, "Renault", "Diesel", 150));
+        assertSame(PRICES, PRICES.with(3, List.of()));
+    }
+}
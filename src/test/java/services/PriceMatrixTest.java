@@ -0,0 +1,97 @@
+package services;
+
+import dto.PriceDecision.Level;
+import dto.PriceEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceMatrixTest {
+
+    /** Group price 10 * intervention type + vehicle type, except for intervention type 3. */
+    private static final PriceMatrix.Resolver GROUPS = (interventionTypeId, vehicleTypeId) ->
+            interventionTypeId == 3 ? null
+                    : new RulePrice(10 * interventionTypeId + vehicleTypeId, Level.INTERVENTION_TYPE);
+
+    private static final PriceMatrix MATRIX = PriceMatrix.of(
+            List.of(new PriceEntry(1L, 20L, 99), new PriceEntry(3L, 10L, 55)),
+            new long[]{2}, new long[]{30}, GROUPS);
+
+    @Test
+    void exactPricesWinOverGroupPrices() {
+        assertEquals(99, MATRIX.price(1, 20));
+        assertEquals(Level.VEHICLE_TYPE, MATRIX.level(1, 20));
+        assertEquals(55, MATRIX.price(3, 10));
+        assertEquals(Level.VEHICLE_TYPE, MATRIX.level(3, 10));
+    }
+
+    @Test
+    void otherPairsTakeTheirGroupPrice() {
+        assertEquals(30, MATRIX.price(2, 10));
+        assertEquals(Level.INTERVENTION_TYPE, MATRIX.level(2, 10));
+        assertEquals(40, MATRIX.price(1, 30));
+        // 3 rows of 3 columns, less the two pairs of type 3 without rule
+        assertEquals(7, MATRIX.size());
+    }
+
+    @Test
+    void pairsWithoutRuleHaveNoPrice() {
+        assertTrue(Double.isNaN(MATRIX.price(3, 20)));
+        assertNull(MATRIX.level(3, 20));
+        assertTrue(Double.isNaN(MATRIX.price(4, 20)));
+        assertNull(MATRIX.level(1, 40));
+        assertTrue(MATRIX.hasVehicleType(30));
+        assertFalse(MATRIX.hasVehicleType(40));
+    }
+
+    @Test
+    void changesReturnACopy() {
+        PriceMatrix changed = MATRIX.with(1, 20, null)
+                .with(2, 25, RulePrice.exact(70))
+                .with(4, 20, new RulePrice(12, Level.BRAND));
+
+        assertEquals(40, changed.price(2, 20));
+        assertEquals(70, changed.price(2, 25));
+        assertEquals(Level.VEHICLE_TYPE, changed.level(2, 25));
+        assertEquals(12, changed.price(4, 20));
+        assertEquals(Level.BRAND, changed.level(4, 20));
+        assertTrue(Double.isNaN(changed.price(1, 20)));
+        // Pairs of an inserted row or column are not resolved
+        assertTrue(Double.isNaN(changed.price(1, 25)));
+        assertTrue(Double.isNaN(changed.price(4, 10)));
+        // Unchanged pairs keep their price and level
+        assertEquals(55, changed.price(3, 10));
+        assertEquals(Level.VEHICLE_TYPE, changed.level(3, 10));
+        assertEquals(40, changed.price(1, 30));
+        // The matrix read before the change is untouched
+        assertEquals(99, MATRIX.price(1, 20));
+        assertFalse(MATRIX.hasVehicleType(25));
+    }
+
+    @Test
+    void resolvingARowOrColumnKeepsExactPrices() {
+        PriceMatrix.Resolver raised = (interventionTypeId, vehicleTypeId) ->
+                new RulePrice(1000 + vehicleTypeId, Level.BRAND);
+
+        PriceMatrix row = MATRIX.withInterventionType(3, raised);
+        assertEquals(55, row.price(3, 10));
+        assertEquals(1020, row.price(3, 20));
+        assertEquals(Level.BRAND, row.level(3, 20));
+        assertEquals(30, row.price(2, 10));
+
+        PriceMatrix column = MATRIX.withVehicleType(20, raised);
+        assertEquals(99, column.price(1, 20));
+        assertEquals(1020, column.price(2, 20));
+        assertEquals(1020, column.price(3, 20));
+        assertEquals(40, column.price(1, 30));
+
+        PriceMatrix added = MATRIX.withVehicleType(25, GROUPS);
+        assertEquals(35, added.price(1, 25));
+        assertTrue(Double.isNaN(added.price(3, 25)));
+    }
+}
@@ -0,0 +1,194 @@
+package services;
+
+import dao.VehicleDAO;
+import dao.VehicleMileageStatsDAO;
+import entities.Intervention;
+import entities.MaintenanceType;
+import entities.Owner;
+import entities.Registration;
+import entities.Vehicle;
+import entities.VehicleType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import services.InterventionService.PlannedIntervention;
+import utils.UnitOfWork;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the urgency scan against the baseline: every pair scored one by
+ * one, sorted by {@link InterventionService#URGENCY_ORDER} and cut to the
+ * limit. The fleet is generated on the memory profile, over more than two
+ * chunks of {@link InterventionService#VEHICLE_CHUNK} vehicles.
+ */
+class UrgencyScanTest {
+
+    private static final int VEHICLES = 1200;
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    @BeforeAll
+    static void createFleet() {
+        Random random = new Random(18);
+        List<MaintenanceType> maintenanceTypes = List.of(
+                new MaintenanceType("Scan oil change", 15000, 12),
+                new MaintenanceType("Scan timing belt", 60000, 48),
+                new MaintenanceType("Scan inspection", 30000, 24));
+        VehicleType vehicleType = new VehicleType("Scan", "Fleet", "Diesel", "Manual", 5, 5, 110);
+        long today = LocalDate.now().toEpochDay();
+        UnitOfWork.execute(em -> {
+            maintenanceTypes.forEach(em::persist);
+            em.persist(vehicleType);
+            for (int v = 0; v < VEHICLES; v++) {
+                Owner owner = new Owner("Scan", "Owner " + v, String.format("07%08d", v), null);
+                Registration registration = new Registration("S" + (char) ('A' + v / 1000), v % 1000, "UT");
+                long registered = today - 200 - random.nextInt(3000);
+                int mileage = random.nextInt(5) == 0 ? 0 : random.nextInt(200000);
+                Vehicle vehicle = new Vehicle(owner, vehicleType, toDate(registered), mileage);
+                vehicle.setRegistration(registration);
+                em.persist(owner);
+                em.persist(registration);
+                em.persist(vehicle);
+                // A few services spread between registration and today, mileage increasing
+                int services = random.nextInt(5);
+                for (int s = 1; s <= services; s++) {
+                    long day = registered + (today - registered) * s / (services + 1);
+                    Intervention intervention = new Intervention(vehicle, toDate(day), mileage * s / (services + 1), 80);
+                    intervention.setInterventionType(maintenanceTypes.get(random.nextInt(maintenanceTypes.size())));
+                    em.persist(intervention);
+                }
+            }
+        });
+        // The interventions were persisted directly: fit the mileage rates
+        new VehicleMileageStatsDAO().rebuildIfIncomplete();
+    }
+
+    private static Date toDate(long epochDay) {
+        return UrgencyScan.toDate(epochDay);
+    }
+
+    /**
+     * Scores every pair of every vehicle one by one and sorts them.
+     */
+    private static List<String> baseline(InterventionService service) {
+        List<PlannedIntervention> all = new ArrayList<>();
+        for (Vehicle vehicle : new VehicleDAO().findAll()) {
+            for (PlannedIntervention planned : service.getPlannedInterventionsForVehicle(vehicle)) {
+                if (planned.getPriority() > 0) {
+                    all.add(planned);
+                }
+            }
+        }
+        all.sort(InterventionService.URGENCY_ORDER);
+        return keys(all);
+    }
+
+    private static List<String> keys(List<PlannedIntervention> planned) {
+        return planned.stream()
+                .map(p -> key(p.getVehicle().getId(), p.getMaintenanceType().getId(), p.getPriority(),
+                        p.getPlannedDate()))
+                .collect(Collectors.toList());
+    }
+
+    private static String key(Long vehicleId, Long maintenanceTypeId, int priority, Date plannedDate) {
+        return vehicleId + "/" + maintenanceTypeId + " priority " + priority + " on "
+                + UrgencyScan.epochDay(TimeZone.getDefault(), plannedDate.getTime());
+    }
+
+    @Test
+    void keepsTheBaselineOrdering() {
+        InterventionService sequential = new InterventionService();
+        InterventionService partitioned = new InterventionService(new ForkJoinPool(3));
+        MaintenanceDueService dueService = new MaintenanceDueService();
+        dueService.refreshAll();
+        List<String> baseline = baseline(sequential);
+
+        for (int limit : new int[]{1, 10, 137, Integer.MAX_VALUE}) {
+            List<String> expected = baseline.subList(0, Math.min(limit, baseline.size()));
+
+            assertEquals(expected, keys(sequential.getTopUrgentInterventions(limit)), "sequential, limit " + limit);
+            assertEquals(expected, keys(partitioned.getTopUrgentInterventions(limit)), "partitioned, limit " + limit);
+            assertEquals(expected, sequential.getTopUrgentRows(limit).stream()
+                    .map(row -> key(row.getVehicleId(), row.getMaintenanceTypeId(), row.getPriority(),
+                            row.getPlannedDate()))
+                    .collect(Collectors.toList()), "due table, limit " + limit);
+        }
+    }
+
+    @Test
+    void scoresLikeTheCalendarBaseline() {
+        Random random = new Random(16);
+        long today = LocalDate.of(2025, 6, 15).toEpochDay();
+        // The baseline compared instants: today is some time after midnight
+        Date now = new Date(UrgencyScan.toDate(today).getTime() + MILLIS_PER_DAY / 2);
+        for (int i = 0; i < 20000; i++) {
+            long lastDay = today - random.nextInt(2000);
+            boolean serviced = random.nextBoolean();
+            int months = 1 + random.nextInt(48);
+            int maxMileage = 5000 + random.nextInt(60000);
+            int lastMileage = random.nextInt(100000);
+            int currentMileage = lastMileage + random.nextInt(maxMileage * 2);
+
+            long scored = UrgencyScan.score(today, currentMileage, lastDay, serviced ? lastDay : UrgencyScan.NONE,
+                    lastMileage, maxMileage, months, null, null);
+
+            Calendar cal = Calendar.getInstance();
+            cal.setTime(UrgencyScan.toDate(lastDay));
+            cal.add(Calendar.MONTH, months);
+            Date plannedDate = cal.getTime();
+            String pair = "last day " + lastDay + ", " + months + " months, serviced " + serviced;
+            assertEquals(UrgencyScan.epochDay(TimeZone.getDefault(), plannedDate.getTime()),
+                    UrgencyScan.plannedDay(scored), pair);
+            assertEquals(baselinePriority(now, plannedDate, serviced, currentMileage, lastMileage, maxMileage),
+                    UrgencyScan.priority(scored), pair);
+        }
+    }
+
+    /**
+     * Priority as computed before the scan, from dates and milliseconds.
+     */
+    private static int baselinePriority(Date today, Date plannedDate, boolean serviced, int currentMileage,
+            int lastMileage, int maxMileage) {
+        int priority = 0;
+        if (plannedDate.before(today)) {
+            long daysOverdue = (today.getTime() - plannedDate.getTime()) / MILLIS_PER_DAY;
+            priority += serviced ? Math.min(5, (int) (daysOverdue / 30) + 2) : Math.min(5, (int) (daysOverdue / 30));
+        } else {
+            long daysUntil = (plannedDate.getTime() - today.getTime()) / MILLIS_PER_DAY;
+            if (daysUntil <= 30) {
+                priority += 2;
+            } else if (daysUntil <= 90) {
+                priority += 1;
+            }
+        }
+        int mileage = serviced ? currentMileage - lastMileage : currentMileage;
+        if (mileage >= maxMileage) {
+            priority += 3;
+        } else if (mileage >= maxMileage * 0.9) {
+            priority += 2;
+        } else if (serviced && mileage >= maxMileage * 0.75) {
+            priority += 1;
+        }
+        return priority;
+    }
+
+    @Test
+    void addsMonthsLikeLocalDate() {
+        LocalDate day = LocalDate.of(1999, 1, 1);
+        for (int i = 0; i < 12000; i++, day = day.plusDays(1)) {
+            for (int months : new int[]{1, 2, 11, 12, 13, 25, 48}) {
+                assertEquals(day.plusMonths(months).toEpochDay(), UrgencyScan.plusMonths(day.toEpochDay(), months),
+                        day + " plus " + months + " months");
+            }
+        }
+    }
+}